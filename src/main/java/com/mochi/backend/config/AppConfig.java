@@ -1,24 +1,54 @@
 package com.mochi.backend.config;
 
+import com.mochi.backend.security.password.BCryptCalibration;
+import com.mochi.backend.security.password.LegacyFormatPasswordEncoder;
+import com.mochi.backend.security.password.OffloadingPasswordEncoder;
+import com.mochi.backend.security.password.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class AppConfig {
     @Bean
     public MessageSource messageSource() {
         ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
-        messageSource.setBasename("messages_validate");
+        messageSource.setBasenames("messages_validate", "messages_email");
         messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setFallbackToSystemLocale(false);
         return messageSource;
     }
 
+    //    hash moi co dang {id}..., hash bcrypt/argon2 cu khong co tien to van match duoc va se duoc hash lai khi dang nhap
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${password.bcrypt.strength:10}") int strength,
+                                           @Value("${password.bcrypt.target-ms:0}") long targetMs,
+                                           @Value("${password.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${password.bcrypt.max-strength:14}") int maxStrength) {
+        int bcryptStrength = targetMs > 0
+                ? BCryptCalibration.calibrate(Duration.ofMillis(targetMs), minStrength, maxStrength)
+                : strength;
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        PasswordEncoder argon2 = Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", argon2);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new LegacyFormatPasswordEncoder(bcrypt, argon2));
+        return new OffloadingPasswordEncoder(delegating, passwordHashingExecutor, meterRegistry);
     }
 }
@@ -1,5 +1,6 @@
 package com.mochi.backend.config;
 
+import com.mochi.backend.security.email.InMemoryMailSender;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,9 +23,15 @@ public class EmailConfig {
     @Value(("${spring.mail.port}"))
     private int emailPort;
 
+    @Value("${email.fake-sink.enabled:false}")
+    private boolean fakeSinkEnabled;
+
+    @Value("${email.fake-sink.capacity:1000}")
+    private int fakeSinkCapacity;
+
     @Bean
     public JavaMailSender mailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        JavaMailSenderImpl mailSender = fakeSinkEnabled ? new InMemoryMailSender(fakeSinkCapacity) : new JavaMailSenderImpl();
         mailSender.setHost(emailHost);
         mailSender.setPort(emailPort);
         mailSender.setUsername(emailUsername);
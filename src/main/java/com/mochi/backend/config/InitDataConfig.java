@@ -5,6 +5,7 @@ import com.mochi.backend.model.Role;
 import com.mochi.backend.model.User;
 import com.mochi.backend.repository.RoleRepository;
 import com.mochi.backend.repository.UserRepository;
+import com.mochi.backend.service.RoleRegistry;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,16 +16,20 @@ public class InitDataConfig {
     @Bean
     CommandLineRunner initData(UserRepository userRepository,
                                RoleRepository roleRepository,
-                               PasswordEncoder passwordEncoder) {
+                               PasswordEncoder passwordEncoder,
+                               RoleRegistry roleRegistry) {
         return args -> {
             Role adminRole = roleRepository.findByName(RoleType.ROLE_ADMIN.name())
                     .orElseGet(() -> roleRepository.save(Role.builder()
                             .name(RoleType.ROLE_ADMIN.name())
+                            .bit(RoleType.ROLE_ADMIN.ordinal())
                             .build()));
             Role userRole = roleRepository.findByName(RoleType.ROLE_USER.name())
                     .orElseGet(() -> roleRepository.save(Role.builder()
                             .name(RoleType.ROLE_USER.name())
+                            .bit(RoleType.ROLE_USER.ordinal())
                             .build()));
+            roleRegistry.publishChange();
             if (userRepository.findByUsername("admin01")
                     .isEmpty()) {
                 User admin = new User();
@@ -32,8 +37,7 @@ public class InitDataConfig {
                 admin.setEmail("admin01@example.com");
                 admin.setPassword(passwordEncoder.encode("Admin.123"));
                 admin.setEnabled(true);
-                admin.getRoles()
-                        .add(adminRole);
+                admin.setRoleMask(1L << adminRole.getBit());
 
                 userRepository.save(admin);
                 System.out.println("Admin account created: admin01/Admin.123");
@@ -45,8 +49,7 @@ public class InitDataConfig {
                 user.setEmail("hoang01@gmail.com");
                 user.setPassword(passwordEncoder.encode("Hoang@01"));
                 user.setEnabled(true);
-                user.getRoles()
-                        .add(userRole);
+                user.setRoleMask(1L << userRole.getBit());
 
                 userRepository.save(user);
                 System.out.println("user account created: hoang01/Hoang@01");
@@ -1,10 +1,32 @@
 package com.mochi.backend.config;
 
+import com.mochi.backend.enums.RedisMode;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.*;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
 
 @Configuration
 public class RedisConfig {
@@ -15,9 +37,197 @@ public class RedisConfig {
     @Value("${spring.data.redis.port}")
     private int port;
 
+    @Value("${redis.mode:standalone}")
+    private RedisMode mode;
+
+    @Value("${redis.sentinel.master:mymaster}")
+    private String sentinelMaster;
+
+    @Value("${redis.sentinel.nodes:}")
+    private List<String> sentinelNodes;
+
+    @Value("${redis.cluster.nodes:}")
+    private List<String> clusterNodes;
+
+    @Value("${redis.cluster.max-redirects:3}")
+    private int maxRedirects;
+
+    @Value("${redis.cluster.topology-refresh:30s}")
+    private Duration topologyRefresh;
+
+    @Value("${redis.read-from:replicaPreferred}")
+    private String readFrom;
+
+    @Value("${redis.command-timeout:2s}")
+    private Duration commandTimeout;
+
+    @Value("${redis.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${redis.shutdown-timeout:100ms}")
+    private Duration shutdownTimeout;
+
+    @Value("${redis.pool.enabled:false}")
+    private boolean poolEnabled;
+
+    @Value("${redis.pool.max-active:16}")
+    private int poolMaxActive;
+
+    @Value("${redis.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${redis.pool.min-idle:0}")
+    private int poolMinIdle;
+
+    @Value("${redis.pool.max-wait:1s}")
+    private Duration poolMaxWait;
+
+    //    hai connection factory dung chung mot event loop, so thread bang so core
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources redisClientResources() {
+        int cores = Runtime.getRuntime()
+                .availableProcessors();
+        return DefaultClientResources.builder()
+                .ioThreadPoolSize(cores)
+                .computationThreadPoolSize(cores)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources redisClientResources) {
+        return new LettuceConnectionFactory(redisConfiguration(), clientConfiguration(redisClientResources, null));
+    }
+
+    //    doc tu replica cho cac namespace trong redis.replica-reads, ghi van di qua master
+    @Bean
+    public LettuceConnectionFactory replicaRedisConnectionFactory(ClientResources redisClientResources) {
+        return new LettuceConnectionFactory(redisConfiguration(),
+                clientConfiguration(redisClientResources, ReadFrom.valueOf(readFrom)));
+    }
+
+    //    khong dung serializer: key/value la byte[] do RedisNamespace va RedisCodec tao ra
+    @Bean
+    public RedisTemplate<byte[], byte[]> binaryRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+        return binaryTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    public RedisTemplate<byte[], byte[]> replicaRedisTemplate(
+            @Qualifier("replicaRedisConnectionFactory") LettuceConnectionFactory replicaRedisConnectionFactory) {
+        return binaryTemplate(replicaRedisConnectionFactory);
+    }
+
+    //    mac dinh container tao mot thread cho moi message, thu tu message khong con dung
+    //    mot thread duy nhat giu thu tu, listener chi decode roi chuyen viec sang thread cua no
+    //    executor la bean nen spring shutdown no sau khi dung container
+    @Bean
+    public ThreadPoolTaskExecutor redisListenerExecutor() {
+        return listenerExecutor("redis-listener-");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor chatBusListenerExecutor() {
+        return listenerExecutor("chat-bus-listener-");
+    }
+
+    //    kenh dieu khien: revoked token, role, principal cache... (RoleRegistry reload doc db tren thread nay)
+    @Bean
+    @Primary
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            LettuceConnectionFactory redisConnectionFactory,
+            @Qualifier("redisListenerExecutor") ThreadPoolTaskExecutor redisListenerExecutor) {
+        return listenerContainer(redisConnectionFactory, redisListenerExecutor);
+    }
+
+    //    frame chat giua cac node co container va thread rieng, listener cham cua kenh dieu khien khong chan duoc
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
+    public RedisMessageListenerContainer chatBusListenerContainer(
+            LettuceConnectionFactory redisConnectionFactory,
+            @Qualifier("chatBusListenerExecutor") ThreadPoolTaskExecutor chatBusListenerExecutor) {
+        return listenerContainer(redisConnectionFactory, chatBusListenerExecutor);
+    }
+
+    private RedisConfiguration redisConfiguration() {
+        return switch (mode) {
+            case STANDALONE -> new RedisStandaloneConfiguration(host, port);
+            case SENTINEL -> new RedisSentinelConfiguration(sentinelMaster, new HashSet<>(sentinelNodes));
+            case CLUSTER -> {
+                RedisClusterConfiguration cluster = new RedisClusterConfiguration(clusterNodes);
+                cluster.setMaxRedirects(maxRedirects);
+                yield cluster;
+            }
+        };
+    }
+
+    private LettuceClientConfiguration clientConfiguration(ClientResources clientResources, ReadFrom readFrom) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = poolEnabled
+                ? LettucePoolingClientConfiguration.builder()
+                .poolConfig(poolConfig())
+                : LettuceClientConfiguration.builder();
+        builder.clientResources(clientResources)
+                .clientOptions(clientOptions())
+                .commandTimeout(commandTimeout)
+                .shutdownTimeout(shutdownTimeout);
+        if (readFrom != null) {
+            builder.readFrom(readFrom);
+        }
+        return builder.build();
+    }
+
+    private ClientOptions clientOptions() {
+        SocketOptions socketOptions = SocketOptions.builder()
+                .connectTimeout(connectTimeout)
+                .keepAlive(true)
+                .build();
+        TimeoutOptions timeoutOptions = TimeoutOptions.enabled(commandTimeout);
+        if (mode == RedisMode.CLUSTER) {
+            return ClusterClientOptions.builder()
+                    .socketOptions(socketOptions)
+                    .timeoutOptions(timeoutOptions)
+                    .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                            .enablePeriodicRefresh(topologyRefresh)
+                            .enableAllAdaptiveRefreshTriggers()
+                            .build())
+                    .build();
+        }
+        return ClientOptions.builder()
+                .socketOptions(socketOptions)
+                .timeoutOptions(timeoutOptions)
+                .build();
+    }
+
+    private GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig() {
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+        poolConfig.setMaxWait(poolMaxWait);
+        return poolConfig;
+    }
+
+    private static ThreadPoolTaskExecutor listenerExecutor(String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setDaemon(true);
+        executor.setAwaitTerminationSeconds(5);
+        return executor;
+    }
+
+    private static RedisMessageListenerContainer listenerContainer(LettuceConnectionFactory connectionFactory,
+                                                                   ThreadPoolTaskExecutor executor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        return container;
+    }
 
-        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+    private static RedisTemplate<byte[], byte[]> binaryTemplate(LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setEnableDefaultSerializer(false);
+        return template;
     }
 }
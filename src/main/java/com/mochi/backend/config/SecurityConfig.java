@@ -3,6 +3,7 @@ package com.mochi.backend.config;
 import com.mochi.backend.security.jwt.JwtAuthenticationEntryPoint;
 import com.mochi.backend.security.jwt.JwtAuthenticationFilter;
 import com.mochi.backend.security.oauth2.CustomOAuth2SuccessHandler;
+import com.mochi.backend.security.ratelimit.RateLimitFilter;
 import com.mochi.backend.security.userDetails.CustomUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,6 +36,7 @@ public class SecurityConfig {
 
     private final CustomUserDetailsService customUserDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final CustomOAuth2SuccessHandler customOAuth2SuccessHandler;
     private final PasswordEncoder passwordEncoder;
@@ -50,7 +52,9 @@ public class SecurityConfig {
             "/auth/verify-otp",
             "/auth/refresh-token",
             "/oauth2/**",
-            "/auth/login-google-success"
+            "/auth/login-google-success",
+            // websocket tu xac thuc access token luc bat tay (JwtHandshakeInterceptor)
+            "/ws/**"
 
     };
 
@@ -67,6 +71,7 @@ public class SecurityConfig {
                 )
                 .authenticationProvider(authenticationProvider())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .oauth2Login(oauth2 -> oauth2
                         .loginPage("/oauth2/authorization/google")
@@ -100,6 +105,7 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider(customUserDetailsService);
         daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsPasswordService(customUserDetailsService);
         return daoAuthenticationProvider;
     }
 }
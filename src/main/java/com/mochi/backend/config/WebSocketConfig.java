@@ -0,0 +1,54 @@
+package com.mochi.backend.config;
+
+import com.mochi.backend.websocket.ChatWebSocketHandler;
+import com.mochi.backend.websocket.JwtHandshakeInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.time.Duration;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ChatWebSocketHandler chatWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Value("${client.url}")
+    private String clientUrl;
+
+    @Value("${chat.ws.max-text-message-size:16384}")
+    private int maxTextMessageSize;
+
+    @Value("${chat.ws.idle-timeout:5m}")
+    private Duration idleTimeout;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        //    client gui token trong Sec-WebSocket-Protocol thi server phai chon lai "bearer", neu khong trinh duyet huy ket noi
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(JwtHandshakeInterceptor.BEARER_PROTOCOL);
+        registry.addHandler(chatWebSocketHandler, "/ws/chat")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(jwtHandshakeInterceptor)
+                .setAllowedOriginPatterns(clientUrl);
+    }
+
+    //    buffer nho cho moi ket noi: tin nhan chat ngan, khong dung binary
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxTextMessageSize);
+        container.setMaxBinaryMessageBufferSize(1024);
+        container.setMaxSessionIdleTimeout(idleTimeout.toMillis());
+        return container;
+    }
+}
@@ -97,8 +97,13 @@ public class AuthController {
     @PostMapping("/refresh-token")
     public ResponseEntity<ApiResponse<RefreshTokenResponse>> refreshToken(HttpServletRequest request) {
         String refreshToken = CookieUtils.getCookieValue(request, "refreshToken");
+        RefreshTokenResponse refreshTokenResponse = authService.refreshToken(refreshToken);
+
+        ResponseCookie refreshTokenCookie = cookieUtils.createRefreshTokenCookie(refreshTokenResponse.getRefreshToken());
+        refreshTokenResponse.setRefreshToken(null);
         return ResponseEntity.status(SuccessCode.REFRESH_TOKEN.getStatus())
-                .body(ApiResponse.success(authService.refreshToken(refreshToken), SuccessCode.REFRESH_TOKEN));
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie.toString())
+                .body(ApiResponse.success(refreshTokenResponse, SuccessCode.REFRESH_TOKEN));
     }
 
 
@@ -117,4 +122,20 @@ public class AuthController {
                 .build();
     }
 
+    // can access token: huy moi refresh token cua user tren tat ca thiet bi
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(HttpServletRequest request) {
+        authService.logoutAll(request);
+        ResponseCookie refreshToken = ResponseCookie.from("refreshToken", "")
+                .httpOnly(true)
+                .secure(false)
+                .path("/")
+                .maxAge(0)
+                .sameSite("None")
+                .build();
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, refreshToken.toString())
+                .build();
+    }
+
 }
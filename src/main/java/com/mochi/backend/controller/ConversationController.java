@@ -0,0 +1,59 @@
+package com.mochi.backend.controller;
+
+import com.mochi.backend.dto.api.ApiResponse;
+import com.mochi.backend.dto.chat.ConversationDto;
+import com.mochi.backend.dto.chat.ConversationPageResponse;
+import com.mochi.backend.dto.chat.CreateConversationRequest;
+import com.mochi.backend.dto.chat.MessagePageResponse;
+import com.mochi.backend.enums.SuccessCode;
+import com.mochi.backend.service.ConversationService;
+import com.mochi.backend.service.MessageService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/conversations")
+@RequiredArgsConstructor
+public class ConversationController {
+
+    private final ConversationService conversationService;
+    private final MessageService messageService;
+
+    //    DIRECT da ton tai giua hai user thi tra ve conversation cu
+    @PostMapping
+    public ResponseEntity<ApiResponse<ConversationDto>> createConversation(
+            Authentication authentication,
+            @Valid @RequestBody CreateConversationRequest request) {
+        return ResponseEntity.status(SuccessCode.CREATE_CONVERSATION.getStatus())
+                .body(
+                        ApiResponse.success(conversationService.createConversation(authentication, request), SuccessCode.CREATE_CONVERSATION)
+                );
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<ConversationPageResponse>> getConversations(
+            Authentication authentication,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(
+                        ApiResponse.success(conversationService.getConversations(authentication, limit, cursor), SuccessCode.SUCCESS)
+                );
+    }
+
+    //    phan trang lui theo id tin nhan: truyen nextCursor vao before de lay cac tin cu hon
+    @GetMapping("/{conversationId}/messages")
+    public ResponseEntity<ApiResponse<MessagePageResponse>> getMessages(
+            Authentication authentication,
+            @PathVariable("conversationId") Long conversationId,
+            @RequestParam(value = "before", required = false) String before,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(
+                        ApiResponse.success(messageService.getHistory(authentication, conversationId, before, limit), SuccessCode.SUCCESS)
+                );
+    }
+}
@@ -0,0 +1,32 @@
+package com.mochi.backend.controller;
+
+import com.mochi.backend.dto.api.ApiResponse;
+import com.mochi.backend.enums.SuccessCode;
+import com.mochi.backend.security.jwt.JwtKeySync;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// xoay khoa ky jwt tren moi node cung luc; retire khoa cu sau khi token ky bang no da het han (security.jwt.expiration-ms)
+@RestController
+@RequestMapping("/admin/jwt-keys")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class JwtKeyController {
+    private final JwtKeySync jwtKeySync;
+
+    //    tra ve kid moi
+    @PostMapping("/rotate")
+    public ResponseEntity<ApiResponse<String>> rotate() {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(ApiResponse.success(jwtKeySync.rotate(), SuccessCode.SUCCESS));
+    }
+
+    //    false neu kid khong ton tai
+    @DeleteMapping("/{keyId}")
+    public ResponseEntity<ApiResponse<Boolean>> retire(@PathVariable String keyId) {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(ApiResponse.success(jwtKeySync.retire(keyId), SuccessCode.SUCCESS));
+    }
+}
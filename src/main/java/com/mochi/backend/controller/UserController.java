@@ -3,9 +3,16 @@ package com.mochi.backend.controller;
 import com.mochi.backend.dto.api.ApiResponse;
 import com.mochi.backend.dto.user.AddUserRequest;
 import com.mochi.backend.dto.user.ChangePasswordRequest;
+import com.mochi.backend.dto.user.PresenceDto;
+import com.mochi.backend.dto.user.PresenceRequest;
 import com.mochi.backend.dto.user.UserDto;
+import com.mochi.backend.dto.user.UserPageRequest;
+import com.mochi.backend.dto.user.UserPageResponse;
 import com.mochi.backend.enums.SuccessCode;
+import com.mochi.backend.service.PresenceService;
+import com.mochi.backend.service.UserSearchService;
 import com.mochi.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +20,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -21,9 +30,11 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserSearchService userSearchService;
+    private final PresenceService presenceService;
 
     @PostMapping("/add")
-    public ResponseEntity<ApiResponse<UserDto>> addUser(@RequestBody AddUserRequest request) {
+    public ResponseEntity<ApiResponse<UserDto>> addUser(@Valid @RequestBody AddUserRequest request) {
         return ResponseEntity.status(SuccessCode.ADDUSER.getStatus())
                 .body(
                         ApiResponse.success(userService.addUser(request, null), SuccessCode.ADDUSER)
@@ -32,13 +43,45 @@ public class UserController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/get-all")
-    public ResponseEntity<ApiResponse<List<UserDto>>> getAllUsers() {
+    public ResponseEntity<ApiResponse<UserPageResponse>> getAllUsers(
+            @RequestBody(required = false) UserPageRequest request) {
         return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
                 .body(
-                        ApiResponse.success(userService.getUsers(), SuccessCode.SUCCESS)
+                        ApiResponse.success(userService.getUsers(request == null ? new UserPageRequest() : request), SuccessCode.SUCCESS)
                 );
     }
 
+    //    moi dong mot user (ndjson), bo qua limit; cursor dung de tiep tuc tu vi tri cu
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportUsers(@RequestBody(required = false) UserPageRequest request,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userService.exportUsers(request == null ? new UserPageRequest() : request, response.getOutputStream());
+    }
+
+
+    //    tim theo tien to username/ho/ten/email, ket qua xep hang, dung nextCursor de lay trang tiep
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<UserPageResponse>> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(
+                        ApiResponse.success(userSearchService.search(query, limit, cursor), SuccessCode.SUCCESS)
+                );
+    }
+
+    //    trang thai cua danh sach lien he (toi da 500 id), doc tu redis trong mot lan
+    @PostMapping("/presence")
+    public ResponseEntity<ApiResponse<List<PresenceDto>>> getPresence(@Valid @RequestBody PresenceRequest request) {
+        return ResponseEntity.status(SuccessCode.SUCCESS.getStatus())
+                .body(
+                        ApiResponse.success(presenceService.getPresence(request.getUserIds()), SuccessCode.SUCCESS)
+                );
+    }
 
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserDto>> getCurrentUser(Authentication authentication) {
@@ -1,8 +1,8 @@
 package com.mochi.backend.dto.auth;
 
+import com.mochi.backend.validation.constraints.StrongPassword;
 import com.mochi.backend.validation.constraints.UsernameOrEmail;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -17,7 +17,7 @@ public class LoginRequest {
     String usernameOrEmail;
 
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\\[\\]:;<>,.?~\\\\/-]).*$", message = "{PASSWORD_REGEX}")
+    @StrongPassword
     @Size(min = 8, max = 128, message = "{PASSWORD_SIZE}")
     String password;
 }
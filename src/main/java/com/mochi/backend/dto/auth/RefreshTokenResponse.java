@@ -1,5 +1,6 @@
 package com.mochi.backend.dto.auth;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter
@@ -7,8 +8,10 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class RefreshTokenResponse {
     private String accessToken;
+    private String refreshToken;
     private long expiresInMS;
 
 
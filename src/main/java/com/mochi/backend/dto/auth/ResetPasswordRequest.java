@@ -1,7 +1,7 @@
 package com.mochi.backend.dto.auth;
 
+import com.mochi.backend.validation.constraints.StrongPassword;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 
@@ -14,7 +14,7 @@ public class ResetPasswordRequest {
     private String resetToken;
     
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\\[\\]:;<>,.?~\\\\/-]).*$", message = "{PASSWORD_REGEX}")
+    @StrongPassword
     @Size(min = 8, max = 128, message = "{PASSWORD_SIZE}")
     private String newPassword;
 }
@@ -0,0 +1,38 @@
+package com.mochi.backend.dto.chat;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mochi.backend.enums.ChatEventType;
+import com.mochi.backend.enums.PresenceStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.UUID;
+
+// mot frame json tren websocket, truong nao khong dung thi bo trong
+// id snowflake gui/nhan dang chuoi
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatFrame {
+    ChatEventType type;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long conversationId;
+
+    //    MESSAGE/ACK: id cua tin nhan da luu, READ: tin nhan moi nhat da doc
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long messageId;
+
+    UUID from;
+    String clientMessageId;
+    String content;
+    String error;
+    Long timestamp;
+    //    HEARTBEAT: ONLINE hoac AWAY, bo trong la ONLINE
+    PresenceStatus status;
+}
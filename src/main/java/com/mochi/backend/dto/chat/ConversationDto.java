@@ -0,0 +1,33 @@
+package com.mochi.backend.dto.chat;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mochi.backend.enums.ConversationType;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversationDto {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long id;
+
+    ConversationType type;
+    String name;
+    LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long lastReadMessageId;
+
+    //    chi tra ve khi tao conversation
+    List<UUID> memberIds;
+}
@@ -0,0 +1,16 @@
+package com.mochi.backend.dto.chat;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConversationPageResponse {
+    private List<ConversationDto> items;
+    //    null khi da het du lieu
+    private String nextCursor;
+}
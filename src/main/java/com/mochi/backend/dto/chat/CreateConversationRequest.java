@@ -0,0 +1,29 @@
+package com.mochi.backend.dto.chat;
+
+import com.mochi.backend.enums.ConversationType;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CreateConversationRequest {
+    @NotNull(message = "{NOT_BLANK}")
+    ConversationType type;
+
+    @Size(max = 100, message = "{CONVERSATION_NAME_SIZE}")
+    String name;
+
+    //    khong tinh nguoi tao; DIRECT thi dung mot nguoi
+    @NotEmpty(message = "{NOT_BLANK}")
+    @Size(max = 256, message = "{CONVERSATION_MEMBERS_SIZE}")
+    List<UUID> memberIds;
+}
@@ -0,0 +1,30 @@
+package com.mochi.backend.dto.chat;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// id snowflake vuot qua Number.MAX_SAFE_INTEGER cua javascript nen tra ve dang chuoi
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageDto {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long id;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Long conversationId;
+
+    UUID senderId;
+    String clientMessageId;
+    String content;
+    LocalDateTime createdAt;
+}
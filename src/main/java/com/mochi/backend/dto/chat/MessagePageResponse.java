@@ -0,0 +1,17 @@
+package com.mochi.backend.dto.chat;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessagePageResponse {
+    //    moi nhat truoc
+    private List<MessageDto> items;
+    //    id cua tin cu nhat trong trang, truyen vao before de lay trang truoc do; null khi da het
+    private String nextCursor;
+}
@@ -1,8 +1,10 @@
 package com.mochi.backend.dto.user;
 
+import com.mochi.backend.validation.constraints.PersonName;
+import com.mochi.backend.validation.constraints.StrongPassword;
+import com.mochi.backend.validation.constraints.ValidUsername;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -16,7 +18,7 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class AddUserRequest {
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^[a-zA-Z0-9._-]+$", message = "{USERNAME_REGEX}")
+    @ValidUsername
     @Size(min = 3, max = 30, message = "{USERNAME_SIZE}")
     String username;
 
@@ -26,17 +28,17 @@ public class AddUserRequest {
     String email;
 
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\\[\\]:;<>,.?~\\\\/-]).*$", message = "{PASSWORD_REGEX}")
+    @StrongPassword
     @Size(min = 8, max = 128, message = "{PASSWORD_SIZE}")
     String password;
 
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^[\\p{L} ]+$", message = "{FIRSTNAME_REGEX}")
+    @PersonName(message = "{FIRSTNAME_REGEX}")
     @Size(min = 2, max = 50, message = "{FIRSTNAME_SIZE}")
     String firstname;
 
     @NotBlank(message = "{NOT_BLANK}")
-    @Pattern(regexp = "^[\\p{L} ]+$", message = "{LASTNAME_REGEX}")
+    @PersonName(message = "{LASTNAME_REGEX}")
     @Size(min = 2, max = 50, message = "{LASTNAME_SIZE}")
     String lastname;
 
@@ -0,0 +1,23 @@
+package com.mochi.backend.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mochi.backend.enums.PresenceStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PresenceDto {
+    UUID userId;
+    PresenceStatus status;
+    //    chi co khi OFFLINE
+    LocalDateTime lastSeenAt;
+}
@@ -0,0 +1,20 @@
+package com.mochi.backend.dto.user;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PresenceRequest {
+    @NotEmpty(message = "{NOT_BLANK}")
+    @Size(max = 500, message = "{PRESENCE_USERS_SIZE}")
+    List<UUID> userIds;
+}
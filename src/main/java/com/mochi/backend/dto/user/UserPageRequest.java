@@ -0,0 +1,22 @@
+package com.mochi.backend.dto.user;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserPageRequest {
+    //    nextCursor cua trang truoc, bo trong de lay trang dau
+    String cursor;
+
+    Integer limit;
+
+    String role;
+
+    Boolean enabled;
+
+    String provider;
+}
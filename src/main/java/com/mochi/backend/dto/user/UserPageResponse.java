@@ -0,0 +1,16 @@
+package com.mochi.backend.dto.user;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPageResponse {
+    private List<UserDto> items;
+    //    null khi da het du lieu
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.mochi.backend.enums;
+
+// SEND/TYPING/READ/HEARTBEAT do client gui len, MESSAGE/ACK/ERROR do server gui xuong (TYPING/READ duoc chuyen tiep nguyen dang)
+// HEARTBEAT chi cap nhat presence trong bo nho cua node, khong chuyen tiep
+public enum ChatEventType {
+    SEND,
+    MESSAGE,
+    ACK,
+    TYPING,
+    READ,
+    ERROR,
+    HEARTBEAT,
+}
@@ -0,0 +1,6 @@
+package com.mochi.backend.enums;
+
+public enum ConversationType {
+    DIRECT,
+    GROUP,
+}
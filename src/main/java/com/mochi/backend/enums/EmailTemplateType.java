@@ -0,0 +1,14 @@
+package com.mochi.backend.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum EmailTemplateType {
+    VERIFICATION("templates/email/verification.html", "email.verification.subject"),
+    PASSWORD_RESET("templates/email/password-reset.html", "email.password-reset.subject"),
+    ;
+    private final String location;
+    private final String subjectKey;
+}
@@ -21,6 +21,7 @@ public enum ErrorCode {
     EMAIL_NOT_REGISTERED("The email not registered!", HttpStatus.BAD_REQUEST),
     VERIFICATION_CODE_EXPIRED("Verification code expired!", HttpStatus.BAD_REQUEST),
     VERIFICATION_CODE_INVALID("Verification code does not match!", HttpStatus.BAD_REQUEST),
+    VERIFICATION_CODE_LOCKED("Too many incorrect verification attempts, please try again later!", HttpStatus.TOO_MANY_REQUESTS),
     TOKEN_EXPIRED("Token expired!", HttpStatus.BAD_REQUEST),
     NOT_FOUND_IN_COOKIES("Not found in cookies", HttpStatus.NOT_FOUND),
     REFRESH_TOKEN_INVALID("Refresh token invalid", HttpStatus.BAD_REQUEST),
@@ -29,6 +30,18 @@ public enum ErrorCode {
     INVALID_RESET_TOKEN("Reset token invalid!", HttpStatus.BAD_REQUEST),
     PASSWORD_CONFIRM_MISMATCH("Password confirm mismatch!", HttpStatus.BAD_REQUEST),
     OLD_PASSWORD_INCORRECT("Old password incorrect!", HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR("Cursor invalid!", HttpStatus.BAD_REQUEST),
+    TOO_MANY_REQUESTS("Too many requests, please try again later!", HttpStatus.TOO_MANY_REQUESTS),
+    ACCOUNT_LOCKED("Too many failed login attempts, please try again later!", HttpStatus.TOO_MANY_REQUESTS),
+    CONVERSATION_NOT_FOUND("Conversation not found!", HttpStatus.NOT_FOUND),
+    CONVERSATION_FORBIDDEN("You are not a member of this conversation!", HttpStatus.FORBIDDEN),
+    CONVERSATION_MEMBERS_INVALID("Conversation members invalid!", HttpStatus.BAD_REQUEST),
+    MESSAGE_INVALID("Message content invalid!", HttpStatus.BAD_REQUEST),
+    CHAT_FRAME_INVALID("Invalid chat frame!", HttpStatus.BAD_REQUEST),
+    CHAT_BUSY("Chat service is busy, please try again later!", HttpStatus.SERVICE_UNAVAILABLE),
+    JWT_KEY_EXISTS("JWT key id already exists!", HttpStatus.CONFLICT),
+    JWT_KEY_ACTIVE("Cannot retire the active JWT signing key!", HttpStatus.BAD_REQUEST),
+    EMAIL_QUEUE_FULL("Email service is busy, please try again later!", HttpStatus.SERVICE_UNAVAILABLE),
     ;
     private final String message;
 
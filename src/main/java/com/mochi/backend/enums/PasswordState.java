@@ -0,0 +1,8 @@
+package com.mochi.backend.enums;
+
+public enum PasswordState {
+    //    mat khau vua nhap, saveUser se hash truoc khi luu
+    RAW,
+    //    hash cu khong co tien to {id} cung la HASHED: DelegatingPasswordEncoder.upgradeEncoding hash lai khi dang nhap
+    HASHED,
+}
@@ -0,0 +1,8 @@
+package com.mochi.backend.enums;
+
+// ONLINE/AWAY do client bao qua HEARTBEAT, OFFLINE khi het ket noi hoac het han tren redis
+public enum PresenceStatus {
+    ONLINE,
+    AWAY,
+    OFFLINE,
+}
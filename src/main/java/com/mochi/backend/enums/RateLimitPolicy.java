@@ -0,0 +1,53 @@
+package com.mochi.backend.enums;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// so request toi da trong mot window cho tung scope, ghi de bang rate-limit.<ten-policy>.<scope>
+@Getter
+public enum RateLimitPolicy {
+    LOGIN("/auth/login", 20, 10, 2000),
+    VERIFY_EMAIL("/auth/verify-email", 20, 10, 1000),
+    VERIFY_OTP("/auth/verify-otp", 20, 10, 1000),
+    RESEND_CODE("/auth/resend-code", 5, 3, 200),
+    FORGOT_PASSWORD("/auth/forgot-password", 5, 3, 200),
+    ;
+    private static final Map<String, RateLimitPolicy> BY_PATH = new HashMap<>();
+
+    static {
+        for (RateLimitPolicy policy : values()) {
+            BY_PATH.put(policy.path, policy);
+        }
+    }
+
+    private final String path;
+    private final int ipCapacity;
+    private final int accountCapacity;
+    private final int endpointCapacity;
+
+    RateLimitPolicy(String path, int ipCapacity, int accountCapacity, int endpointCapacity) {
+        this.path = path;
+        this.ipCapacity = ipCapacity;
+        this.accountCapacity = accountCapacity;
+        this.endpointCapacity = endpointCapacity;
+    }
+
+    public static RateLimitPolicy fromPath(String path) {
+        return BY_PATH.get(path);
+    }
+
+    public String getPropertyName() {
+        return name().toLowerCase()
+                .replace('_', '-');
+    }
+
+    public int getDefaultCapacity(RateLimitScope scope) {
+        return switch (scope) {
+            case IP -> ipCapacity;
+            case ACCOUNT -> accountCapacity;
+            case ENDPOINT -> endpointCapacity;
+        };
+    }
+}
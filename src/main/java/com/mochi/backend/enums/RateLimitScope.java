@@ -0,0 +1,13 @@
+package com.mochi.backend.enums;
+
+// IP: theo dia chi client, ACCOUNT: theo username/email trong request, ENDPOINT: dung chung cho moi client
+public enum RateLimitScope {
+    IP,
+    ACCOUNT,
+    ENDPOINT,
+    ;
+
+    public String getPropertyName() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,7 @@
+package com.mochi.backend.enums;
+
+public enum RedisMode {
+    STANDALONE,
+    SENTINEL,
+    CLUSTER,
+}
@@ -0,0 +1,91 @@
+package com.mochi.backend.enums;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// moi namespace co prefix va ttl mac dinh (ghi de bang redis.ttl.<ten-namespace>)
+// key co dang prefix:{id}, hash tag {id} giup cac key cua cung mot id nam cung slot khi chay redis cluster
+@Getter
+public enum RedisNamespace {
+    OTP("otp", Duration.ofMinutes(5)),
+    OTP_LOCK("otp:lock", Duration.ofMinutes(15)),
+    RESET_TOKEN("reset-token", Duration.ofMinutes(5)),
+    RATE_LIMIT("rl", Duration.ofMinutes(1)),
+    LOGIN_FAILURES("login-fail", Duration.ofHours(1)),
+    LOGIN_LOCK("login:lock", Duration.ofHours(1)),
+    //    ttl thuc te lay theo security.jwt.expiration-ms.refresh
+    REFRESH_TOKEN("rt", Duration.ofDays(7)),
+    //    set cac node dang giu ket noi websocket cua user, duoc gia han dinh ky boi node
+    CHAT_ROUTE("chat:route", Duration.ofMinutes(30)),
+    //    score trong presence:{online}/presence:{away} = thoi diem het han, ttl la do dai moi lan gia han
+    PRESENCE("presence", Duration.ofSeconds(90)),
+    //    msg:stream:{shard} / msg:dedup:{shard}:... / msg:lease:{shard} cung hash tag de chay chung mot script
+    //    stream khong co ttl, entry bi xoa sau khi da ghi xuong postgres
+    MESSAGE_STREAM("msg:stream", Duration.ZERO),
+    //    ttl tinh tu luc tin da ghi xuong postgres, con trong stream thi key khong het han
+    MESSAGE_DEDUP("msg:dedup", Duration.ofDays(1)),
+    MESSAGE_LEASE("msg:lease", Duration.ofSeconds(10)),
+    //    msg:dead:{shard}, tin postgres tu choi khi flush (field m giong msg:stream, them field error), xu ly tay
+    MESSAGE_DEAD("msg:dead", Duration.ZERO),
+    //    job:lease:{ten job}, node giu lease chay job dinh ky, phai dai hon chu ky cua job
+    JOB_LEASE("job:lease", Duration.ofMinutes(15)),
+    //    jwt:keys:{ring} (hash kid -> khoa raw) va jwt:keys:{ring}:active, bo khoa ky jwt dung chung, khong het han
+    JWT_KEYS("jwt:keys", Duration.ZERO),
+    //    mail:dead-letter:{email}, mail gui that bai (khong luu noi dung vi chua ma otp/reset), ttl gia han moi lan them
+    MAIL_DEAD_LETTER("mail:dead-letter", Duration.ofDays(7)),
+    ;
+    private final String prefix;
+    private final Duration defaultTtl;
+    private final byte[] keyPrefix;
+
+    RedisNamespace(String prefix, Duration defaultTtl) {
+        this.prefix = prefix;
+        this.defaultTtl = defaultTtl;
+        this.keyPrefix = (prefix + ":{").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String getPropertyName() {
+        return name().toLowerCase()
+                .replace('_', '-');
+    }
+
+    //    id ascii (email, uuid, username) chi can dung mot mang byte, khong tao chuoi trung gian
+    public byte[] key(CharSequence id) {
+        int length = id.length();
+        for (int i = 0; i < length; i++) {
+            if (id.charAt(i) >= 0x80) {
+                return slowKey(id);
+            }
+        }
+        byte[] key = new byte[keyPrefix.length + length + 1];
+        System.arraycopy(keyPrefix, 0, key, 0, keyPrefix.length);
+        for (int i = 0; i < length; i++) {
+            key[keyPrefix.length + i] = (byte) id.charAt(i);
+        }
+        key[key.length - 1] = '}';
+        return key;
+    }
+
+    //    prefix:{id}:suffix, van cung hash tag voi prefix:{id}
+    public byte[] key(CharSequence id, String suffix) {
+        byte[] base = key(id);
+        byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[base.length + 1 + suffixBytes.length];
+        System.arraycopy(base, 0, key, 0, base.length);
+        key[base.length] = ':';
+        System.arraycopy(suffixBytes, 0, key, base.length + 1, suffixBytes.length);
+        return key;
+    }
+
+    private byte[] slowKey(CharSequence id) {
+        byte[] idBytes = id.toString()
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[keyPrefix.length + idBytes.length + 1];
+        System.arraycopy(keyPrefix, 0, key, 0, keyPrefix.length);
+        System.arraycopy(idBytes, 0, key, keyPrefix.length, idBytes.length);
+        key[key.length - 1] = '}';
+        return key;
+    }
+}
@@ -15,6 +15,7 @@ public enum SuccessCode {
     LOGIN("Login success", HttpStatus.OK),
     REFRESH_TOKEN("Refresh token success", HttpStatus.OK),
     VERIFY_OTP("Verify otp success", HttpStatus.OK),
+    CREATE_CONVERSATION("Create conversation success", HttpStatus.CREATED),
     ;
 
     private final String message;
@@ -4,6 +4,7 @@ import com.mochi.backend.dto.api.ApiResponse;
 import com.mochi.backend.enums.ErrorCode;
 import jakarta.validation.ConstraintViolation;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -26,6 +27,17 @@ public class GlobalExceptionHandler {
                 );
     }
 
+    @ExceptionHandler(value = {RateLimitException.class})
+    ResponseEntity<ApiResponse<Void>> handleRateLimitException(RateLimitException e) {
+        ErrorCode errorCode = e.getErrorCode();
+        return ResponseEntity
+                .status(errorCode.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(
+                        ApiResponse.failure(errorCode)
+                );
+    }
+
     @ExceptionHandler(value = {MethodArgumentNotValidException.class})
     ResponseEntity<ApiResponse<Void>> handleValidationException(MethodArgumentNotValidException e) {
         List<String> fieldOrder = List.of("username", "email", "password", "firstname", "lastname");
@@ -0,0 +1,21 @@
+package com.mochi.backend.exception;
+
+import com.mochi.backend.enums.ErrorCode;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class RateLimitException extends AppException {
+    private final Duration retryAfter;
+
+    public RateLimitException(ErrorCode errorCode, Duration retryAfter) {
+        super(errorCode);
+        this.retryAfter = retryAfter;
+    }
+
+    //    Retry-After tinh bang giay, lam tron len
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
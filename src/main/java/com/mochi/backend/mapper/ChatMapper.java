@@ -0,0 +1,17 @@
+package com.mochi.backend.mapper;
+
+import com.mochi.backend.dto.chat.ConversationDto;
+import com.mochi.backend.dto.chat.MessageDto;
+import com.mochi.backend.model.Conversation;
+import com.mochi.backend.model.Message;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface ChatMapper {
+    MessageDto toDto(Message message);
+
+    @Mapping(target = "lastReadMessageId", ignore = true)
+    @Mapping(target = "memberIds", ignore = true)
+    ConversationDto toDto(Conversation conversation);
+}
@@ -0,0 +1,57 @@
+package com.mochi.backend.model;
+
+import com.mochi.backend.enums.ConversationType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversations_direct_key", columnNames = "direct_key"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class Conversation implements Persistable<Long> {
+    //    snowflake id, do SnowflakeIdGenerator cap
+    @Id
+    Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    ConversationType type;
+
+    String name;
+
+    //    chi co o DIRECT: "<uuid nho>:<uuid lon>", moi cap user chi co mot conversation 1:1
+    String directKey;
+
+    UUID createdBy;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    LocalDateTime createdAt;
+
+    //    id gan san nen save() khong biet la entity moi, tranh SELECT truoc khi INSERT
+    @Transient
+    @Builder.Default
+    boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newEntity = false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mochi.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// chi them, khong sua: khoa chinh (conversation_id, id) voi id la snowflake
+// lich su moi nhat cua mot conversation la mot lan quet nguoc tren chinh index khoa chinh
+// ghi qua MessageWriteRepository (jdbc), jpa chi dung de doc
+@Entity
+@Table(name = "messages",
+        uniqueConstraints = @UniqueConstraint(name = "uk_messages_conversation_sender_client_message_id",
+                columnNames = {"conversation_id", "sender_id", "client_message_id"}))
+@IdClass(MessageKey.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class Message {
+    @Id
+    Long conversationId;
+
+    @Id
+    Long id;
+
+    @Column(nullable = false)
+    UUID senderId;
+
+    //    id do client tao, gui lai cung id trong cung conversation thi khong tao tin nhan thu hai
+    @Column(length = 64)
+    String clientMessageId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    String content;
+
+    @Column(nullable = false, updatable = false)
+    LocalDateTime createdAt;
+}
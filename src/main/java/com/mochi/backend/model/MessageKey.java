@@ -0,0 +1,15 @@
+package com.mochi.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageKey implements Serializable {
+    private Long conversationId;
+    private Long id;
+}
@@ -0,0 +1,56 @@
+package com.mochi.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// khoa chinh (conversation_id, user_id) dung de lay thanh vien cua conversation,
+// index (user_id, conversation_id) dung de liet ke conversation cua mot user
+@Entity
+@Table(name = "participants",
+        indexes = @Index(name = "idx_participants_user_id_conversation_id", columnList = "user_id, conversation_id"))
+@IdClass(ParticipantKey.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class Participant implements Persistable<ParticipantKey> {
+    @Id
+    Long conversationId;
+
+    @Id
+    UUID userId;
+
+    Long lastReadMessageId;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    LocalDateTime joinedAt;
+
+    @Transient
+    @Builder.Default
+    boolean newEntity = true;
+
+    @Override
+    public ParticipantKey getId() {
+        return new ParticipantKey(conversationId, userId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newEntity = false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mochi.backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantKey implements Serializable {
+    private Long conversationId;
+    private UUID userId;
+}
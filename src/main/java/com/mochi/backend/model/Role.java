@@ -3,8 +3,6 @@ package com.mochi.backend.model;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -22,6 +20,7 @@ public class Role {
     @Column(nullable = false, unique = true)
     private String name;
 
-    @ManyToMany(mappedBy = "roles")
-    private Set<User> users = new HashSet<>();
+    //    vi tri bit cua role trong User.roleMask (0..63)
+    @Column(nullable = false, unique = true)
+    private int bit;
 }
@@ -1,5 +1,6 @@
 package com.mochi.backend.model;
 
+import com.mochi.backend.enums.PasswordState;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -7,12 +8,12 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        indexes = @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_users_provider_provider_id", columnNames = {"provider", "provider_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +32,11 @@ public class User {
     
     String password;
 
+    //    khong luu xuong db, chi cho saveUser biet co can hash mat khau hay khong
+    @Transient
+    @Builder.Default
+    PasswordState passwordState = PasswordState.HASHED;
+
     String firstname;
 
     String lastname;
@@ -43,17 +49,15 @@ public class User {
 
     String providerId;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(
-            name = "user_roles",
-            joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id")
-    )
-    Set<Role> roles = new HashSet<>();
+    //    bit thu n bat khi user co role co Role.bit = n, doi ra authority qua RoleRegistry
+    @Builder.Default
+    long roleMask = 0L;
 
     @Builder.Default
     boolean enabled = false;
 
+    //    PresenceService ghi theo batch, co the tre vai phut so voi thuc te
+    LocalDateTime lastSeenAt;
 
     @CreationTimestamp
     @Column(updatable = false)
@@ -62,4 +66,8 @@ public class User {
     @UpdateTimestamp
     LocalDateTime updatedAt;
 
+    public void setRawPassword(String rawPassword) {
+        this.password = rawPassword;
+        this.passwordState = PasswordState.RAW;
+    }
 }
@@ -0,0 +1,12 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.model.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Long> {
+    Optional<Conversation> findByDirectKey(String directKey);
+}
@@ -0,0 +1,20 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.model.Message;
+import com.mochi.backend.model.MessageKey;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface MessageRepository extends JpaRepository<Message, MessageKey> {
+    List<Message> findByConversationIdOrderByIdDesc(Long conversationId, Limit limit);
+
+    List<Message> findByConversationIdAndIdLessThanOrderByIdDesc(Long conversationId, Long before, Limit limit);
+
+    Optional<Message> findByConversationIdAndSenderIdAndClientMessageId(Long conversationId, UUID senderId, String clientMessageId);
+}
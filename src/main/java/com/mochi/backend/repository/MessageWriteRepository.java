@@ -0,0 +1,52 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.model.Message;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// ghi tin nhan bang jdbc: khong qua persistence context, trung (conversation_id, sender_id, client_message_id) thi bo qua
+@Repository
+@RequiredArgsConstructor
+public class MessageWriteRepository {
+    private static final String INSERT = """
+            INSERT INTO messages (conversation_id, id, sender_id, client_message_id, content, created_at)
+            VALUES (:conversationId, :id, :senderId, :clientMessageId, :content, :createdAt)
+            ON CONFLICT (conversation_id, sender_id, client_message_id) DO NOTHING
+            """;
+    //    chi bo qua dong da flush (trung khoa chinh); vi pham unique khac nem loi de dong do vao msg:dead
+    private static final String INSERT_IGNORE = """
+            INSERT INTO messages (conversation_id, id, sender_id, client_message_id, content, created_at)
+            VALUES (:conversationId, :id, :senderId, :clientMessageId, :content, :createdAt)
+            ON CONFLICT (conversation_id, id) DO NOTHING
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    //    false neu tin nhan cung clientMessageId da ton tai
+    public boolean insert(Message message) {
+        return jdbcTemplate.update(INSERT, params(message)) > 0;
+    }
+
+    //    mot lan batchUpdate, ket hop reWriteBatchedInserts cua pgjdbc thanh INSERT nhieu dong
+    public void insertBatch(List<Message> messages) {
+        jdbcTemplate.batchUpdate(INSERT_IGNORE, messages.stream()
+                .map(MessageWriteRepository::params)
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource params(Message message) {
+        return new MapSqlParameterSource()
+                .addValue("conversationId", message.getConversationId())
+                .addValue("id", message.getId())
+                .addValue("senderId", message.getSenderId())
+                .addValue("clientMessageId", message.getClientMessageId())
+                .addValue("content", message.getContent())
+                .addValue("createdAt", Timestamp.valueOf(message.getCreatedAt()));
+    }
+}
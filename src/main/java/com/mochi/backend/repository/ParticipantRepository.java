@@ -0,0 +1,37 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.model.Participant;
+import com.mochi.backend.model.ParticipantKey;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ParticipantRepository extends JpaRepository<Participant, ParticipantKey> {
+    @Query("SELECT p.userId FROM Participant p WHERE p.conversationId = :conversationId")
+    List<UUID> findUserIdsByConversationId(@Param("conversationId") Long conversationId);
+
+    //    quet nguoc index (user_id, conversation_id), conversation moi tao truoc
+    List<Participant> findByUserIdOrderByConversationIdDesc(UUID userId, Limit limit);
+
+    List<Participant> findByUserIdAndConversationIdLessThanOrderByConversationIdDesc(UUID userId, Long conversationId, Limit limit);
+
+    //    chi tien len, READ den tre cua tin nhan cu khong lam lui moc da doc
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Participant p SET p.lastReadMessageId = :messageId
+            WHERE p.conversationId = :conversationId AND p.userId = :userId
+              AND (p.lastReadMessageId IS NULL OR p.lastReadMessageId < :messageId)
+            """)
+    int advanceLastRead(@Param("conversationId") Long conversationId,
+                        @Param("userId") UUID userId,
+                        @Param("messageId") Long messageId);
+}
@@ -2,10 +2,17 @@ package com.mochi.backend.repository;
 
 import com.mochi.backend.model.RevokedToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface RevokedTokenRepository extends JpaRepository<RevokedToken, UUID> {
@@ -13,4 +20,23 @@ public interface RevokedTokenRepository extends JpaRepository<RevokedToken, UUID
     boolean existsByJti(UUID jti);
 
     Optional<RevokedToken> findByJti(UUID jti);
+
+    Stream<RevokedToken> streamByExpiresAtAfter(LocalDateTime now);
+
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(LocalDateTime revokedAfter, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO revoked_token (jti, expires_at, revoked_at) VALUES (:jti, :expiresAt, :revokedAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("jti") UUID jti,
+                       @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("revokedAt") LocalDateTime revokedAt);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM revoked_token WHERE jti IN (SELECT jti FROM revoked_token WHERE expires_at < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT MIN(r.expiresAt) FROM RevokedToken r WHERE r.expiresAt < :now")
+    LocalDateTime findOldestExpiresAtBefore(@Param("now") LocalDateTime now);
 }
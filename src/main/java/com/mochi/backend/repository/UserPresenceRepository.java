@@ -0,0 +1,54 @@
+package com.mochi.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// last_seen_at ghi bang jdbc batch, khong nap entity User
+@Repository
+@RequiredArgsConstructor
+public class UserPresenceRepository {
+    //    khong ghi lui neu mot node khac da ghi thoi diem moi hon
+    private static final String UPDATE_LAST_SEEN = """
+            UPDATE users SET last_seen_at = :lastSeenAt
+            WHERE id = :id AND (last_seen_at IS NULL OR last_seen_at < :lastSeenAt)
+            """;
+    private static final String SELECT_LAST_SEEN = """
+            SELECT id, last_seen_at FROM users
+            WHERE id IN (:ids) AND last_seen_at IS NOT NULL
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    //    sap xep theo id de cac node cung ghi thi khoa row theo cung thu tu
+    public void updateLastSeen(Map<UUID, LocalDateTime> lastSeen) {
+        if (lastSeen.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = new TreeMap<>(lastSeen).entrySet()
+                .stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("lastSeenAt", Timestamp.valueOf(entry.getValue())))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(UPDATE_LAST_SEEN, batch);
+    }
+
+    public Map<UUID, LocalDateTime> findLastSeen(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, LocalDateTime> lastSeen = new HashMap<>();
+        jdbcTemplate.query(SELECT_LAST_SEEN, new MapSqlParameterSource("ids", ids), rs -> {
+            lastSeen.put(rs.getObject("id", UUID.class), rs.getTimestamp("last_seen_at")
+                    .toLocalDateTime());
+        });
+        return lastSeen;
+    }
+}
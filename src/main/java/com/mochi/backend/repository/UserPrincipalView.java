@@ -0,0 +1,23 @@
+package com.mochi.backend.repository;
+
+import java.util.UUID;
+
+public interface UserPrincipalView {
+    UUID getId();
+
+    String getUsername();
+
+    String getEmail();
+
+    String getPassword();
+
+    Boolean getEnabled();
+
+    String getFirstname();
+
+    String getLastname();
+
+    String getAvatarUrl();
+
+    Long getRoleMask();
+}
@@ -0,0 +1,97 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.dto.user.UserDto;
+import com.mochi.backend.dto.user.UserPageRequest;
+import com.mochi.backend.utils.CursorUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// truy van danh sach user bang jdbc: keyset theo (created_at, id) dung index idx_users_created_at_id, khong nap entity/roles
+@Repository
+public class UserQueryRepository {
+    private static final String SELECT = "SELECT u.id, u.username, u.email, u.avatar_url, u.firstname, u.lastname, u.created_at FROM users u";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    public UserQueryRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                               DataSource dataSource,
+                               @Value("${users.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(fetchSize);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    //    roleMask = 0 la khong loc theo role
+    public List<Row> findPage(UserPageRequest filter, long roleMask, CursorUtils.Cursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildQuery(filter, roleMask, after, params) + " LIMIT :limit";
+        params.addValue("limit", limit);
+        List<Row> rows = new ArrayList<>(limit);
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> rows.add(mapRow(rs)));
+        return rows;
+    }
+
+    //    postgres chi doc theo fetch size khi autocommit tat, nen phai goi trong transaction
+    public void stream(UserPageRequest filter, long roleMask, CursorUtils.Cursor after, Consumer<Row> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        streamingJdbcTemplate.query(buildQuery(filter, roleMask, after, params), params,
+                (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+    }
+
+    private static String buildQuery(UserPageRequest filter, long roleMask, CursorUtils.Cursor after,
+                                     MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE TRUE");
+        if (after != null) {
+            sql.append(" AND (u.created_at, u.id) > (:afterCreatedAt, :afterId)");
+            params.addValue("afterCreatedAt", Timestamp.valueOf(after.createdAt()));
+            params.addValue("afterId", after.id());
+        }
+        if (filter != null) {
+            if (filter.getEnabled() != null) {
+                sql.append(" AND u.enabled = :enabled");
+                params.addValue("enabled", filter.getEnabled());
+            }
+            if (filter.getProvider() != null) {
+                sql.append(" AND u.provider = :provider");
+                params.addValue("provider", filter.getProvider());
+            }
+        }
+        if (roleMask != 0) {
+            sql.append(" AND (u.role_mask & :roleMask) <> 0");
+            params.addValue("roleMask", roleMask);
+        }
+        return sql.append(" ORDER BY u.created_at, u.id")
+                .toString();
+    }
+
+    private static Row mapRow(ResultSet rs) throws SQLException {
+        UserDto user = new UserDto();
+        user.setId(rs.getObject("id", UUID.class));
+        user.setUsername(rs.getString("username"));
+        user.setEmail(rs.getString("email"));
+        user.setAvatarUrl(rs.getString("avatar_url"));
+        user.setFirstname(rs.getString("firstname"));
+        user.setLastname(rs.getString("lastname"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new Row(user, createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    public record Row(UserDto user, LocalDateTime createdAt) {
+    }
+}
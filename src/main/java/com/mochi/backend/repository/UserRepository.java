@@ -2,8 +2,14 @@ package com.mochi.backend.repository;
 
 import com.mochi.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,4 +23,54 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    long countByIdIn(Collection<UUID> ids);
+
+    //    username va email deu co unique index, postgres gop hai index bang BitmapOr trong mot lan truy van
+    @Query("""
+            SELECT u.id AS id, u.username AS username, u.email AS email, u.password AS password,
+                   u.enabled AS enabled, u.firstname AS firstname, u.lastname AS lastname,
+                   u.avatarUrl AS avatarUrl, u.roleMask AS roleMask
+            FROM User u
+            WHERE u.username = :login OR u.email = :login
+            """)
+    List<UserPrincipalView> findPrincipalByUsernameOrEmail(@Param("login") String login);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    //    tao user oauth trong mot cau lenh va tra ve chinh dong vua chen (RETURNING *)
+    //    ON CONFLICT (email, username hoac provider/provider_id) thi khong chen va tra ve empty
+    @Transactional
+    @Query(value = """
+            WITH inserted AS (
+                INSERT INTO users (id, username, email, firstname, lastname, avatar_url, provider, provider_id, role_mask, enabled, created_at, updated_at)
+                VALUES (:id, :username, :email, :firstname, :lastname, :avatarUrl, :provider, :providerId, :roleMask, TRUE, now(), now())
+                ON CONFLICT DO NOTHING
+                RETURNING *
+            )
+            SELECT * FROM inserted
+            """, nativeQuery = true)
+    Optional<User> insertOAuthUserIfAbsent(@Param("id") UUID id,
+                                 @Param("username") String username,
+                                 @Param("email") String email,
+                                 @Param("firstname") String firstname,
+                                 @Param("lastname") String lastname,
+                                 @Param("avatarUrl") String avatarUrl,
+                                 @Param("provider") String provider,
+                                 @Param("providerId") String providerId,
+                                 @Param("roleMask") long roleMask);
+
+    //    uu tien user cung provider/providerId, sau do moi toi user trung email
+    @Query(value = """
+            SELECT u.* FROM users u
+            WHERE (u.provider = :provider AND u.provider_id = :providerId) OR u.email = :email
+            ORDER BY (u.provider = :provider AND u.provider_id = :providerId) DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<User> findByProviderOrEmail(@Param("provider") String provider,
+                                           @Param("providerId") String providerId,
+                                           @Param("email") String email);
 }
@@ -0,0 +1,127 @@
+package com.mochi.backend.repository;
+
+import com.mochi.backend.dto.user.UserDto;
+import com.mochi.backend.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// tim user theo tien to username/ten/email (index text_pattern_ops) va gan dung (pg_trgm neu co)
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class UserSearchRepository {
+    private static final String SEARCH_TEXT =
+            "lower(coalesce(u.username, '') || ' ' || coalesce(u.firstname, '') || ' ' || coalesce(u.lastname, ''))";
+
+    //    ten index -> phan sau "ON"
+    private static final Map<String, String> PREFIX_INDEXES = Map.of(
+            "idx_users_username_prefix", "users (lower(username) text_pattern_ops)",
+            "idx_users_firstname_prefix", "users (lower(firstname) text_pattern_ops)",
+            "idx_users_lastname_prefix", "users (lower(lastname) text_pattern_ops)",
+            "idx_users_email_prefix", "users (lower(email) text_pattern_ops)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    //    tra ve true neu dung duoc pg_trgm (can quyen CREATE EXTENSION hoac extension da cai san)
+    //    khong goi trong transaction: CREATE INDEX CONCURRENTLY khong chay duoc trong transaction block
+    public boolean ensureIndexes() {
+        PREFIX_INDEXES.forEach(this::createIndexConcurrently);
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            createIndexConcurrently("idx_users_search_trgm", "users USING gin ("
+                    + SEARCH_TEXT.replace("u.", "") + " gin_trgm_ops)");
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("pg_trgm is not available, user search falls back to prefix matching: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    //    CONCURRENTLY khong khoa ghi bang users; lan tao truoc bi ngat de lai index INVALID ma IF NOT EXISTS bo qua, nen xoa roi tao lai
+    private void createIndexConcurrently(String name, String definition) {
+        Boolean valid = jdbcTemplate.query("SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                        + "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relname = ? AND n.nspname = current_schema()",
+                rs -> rs.next() ? rs.getBoolean(1) : null, name);
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        if (valid != null) {
+            log.warn("Index {} is invalid, rebuilding it", name);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + definition);
+    }
+
+    public List<Result> search(String query, boolean fuzzy, CursorUtils.ScoredCursor after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("q", query)
+                .addValue("prefix", escapeLike(query) + "%")
+                .addValue("limit", limit);
+        String prefixMatch = "lower(u.username) LIKE :prefix ESCAPE '\\' OR lower(u.firstname) LIKE :prefix ESCAPE '\\'"
+                + " OR lower(u.lastname) LIKE :prefix ESCAPE '\\' OR lower(u.email) LIKE :prefix ESCAPE '\\'";
+        StringBuilder sql = new StringBuilder("SELECT * FROM (SELECT u.id, u.username, u.email, u.avatar_url, u.firstname, u.lastname, (")
+                .append("CASE WHEN lower(u.username) = :q THEN 4")
+                .append(" WHEN lower(u.username) LIKE :prefix ESCAPE '\\' THEN 3")
+                .append(" WHEN lower(u.firstname) LIKE :prefix ESCAPE '\\' OR lower(u.lastname) LIKE :prefix ESCAPE '\\' THEN 2")
+                .append(" WHEN lower(u.email) LIKE :prefix ESCAPE '\\' THEN 1 ELSE 0 END");
+        if (fuzzy) {
+            sql.append(" + similarity(")
+                    .append(SEARCH_TEXT)
+                    .append(", :q)");
+        }
+        sql.append(")::float8 AS score FROM users u WHERE u.enabled AND (")
+                .append(prefixMatch);
+        if (fuzzy) {
+            sql.append(" OR ")
+                    .append(SEARCH_TEXT)
+                    .append(" % :q");
+        }
+        sql.append(")) s");
+        if (after != null) {
+            sql.append(" WHERE s.score < :afterScore OR (s.score = :afterScore AND s.id > :afterId)");
+            params.addValue("afterScore", after.score());
+            params.addValue("afterId", after.id());
+        }
+        sql.append(" ORDER BY s.score DESC, s.id LIMIT :limit");
+
+        List<Result> results = new ArrayList<>(limit);
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs -> {
+            UserDto user = new UserDto();
+            user.setId(rs.getObject("id", UUID.class));
+            user.setUsername(rs.getString("username"));
+            user.setEmail(rs.getString("email"));
+            user.setAvatarUrl(rs.getString("avatar_url"));
+            user.setFirstname(rs.getString("firstname"));
+            user.setLastname(rs.getString("lastname"));
+            results.add(new Result(user, rs.getDouble("score")));
+        });
+        return results;
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    public record Result(UserDto user, double score) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.mochi.backend.security.email;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.service.RedisService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+// hang doi gui mail: request chi enqueue, cac worker gui theo batch tren cung mot ket noi smtp
+// mail het luot thu (hoac con cho retry luc tat) vao mail:dead-letter:{email}, chi voi nguoi nhan/template/locale/loi
+@Slf4j
+@Component
+public class EmailDispatcher {
+    private static final byte[] DEAD_LETTER_KEY = RedisNamespace.MAIL_DEAD_LETTER.key("email");
+
+    private final JavaMailSender mailSender;
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final long deadLetterTtl;
+
+    private final BlockingQueue<OutboundEmail> queue;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retryScheduler;
+    private final Set<PendingRetry> pendingRetries = ConcurrentHashMap.newKeySet();
+    private final int workerCount;
+    private volatile boolean running;
+
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetterCounter;
+
+    @Value("${email.queue.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email.retry.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${email.retry.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${email.dead-letter.max-size:1000}")
+    private long deadLetterMaxSize;
+
+    public EmailDispatcher(JavaMailSender mailSender,
+                           RedisService redisService,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${email.queue.capacity:1000}") int capacity,
+                           @Value("${email.queue.workers:2}") int workerCount) {
+        this.mailSender = mailSender;
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+        this.deadLetterTtl = redisService.ttl(RedisNamespace.MAIL_DEAD_LETTER)
+                .toMillis();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workerCount = workerCount;
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform()
+                .name("mail-sender-", 0)
+                .daemon()
+                .factory());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("mail-retry")
+                .daemon()
+                .factory());
+
+        Gauge.builder("email.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("email.send.latency")
+                .description("Time to send one batch of emails over a single SMTP connection")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("email.sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("email.failed")
+                .description("Failed send attempts, including ones that are retried")
+                .register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("email.dead_letter")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+    }
+
+    //    mail dang cho retry va mail con trong hang doi sau khi worker dung deu vao dead-letter, khong mat im lang
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        retryScheduler.shutdownNow();
+        retryScheduler.awaitTermination(1, TimeUnit.SECONDS);
+        for (PendingRetry retry : pendingRetries) {
+            if (pendingRetries.remove(retry)) {
+                deadLetter(retry.email(), retry.cause());
+            }
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        List<OutboundEmail> unsent = new ArrayList<>();
+        queue.drainTo(unsent);
+        if (!unsent.isEmpty()) {
+            log.warn("{} emails were still queued at shutdown", unsent.size());
+            IllegalStateException cause = new IllegalStateException("Dispatcher stopped before sending");
+            unsent.forEach(email -> deadLetter(email, cause));
+        }
+    }
+
+    public void enqueue(OutboundEmail email) {
+        if (!queue.offer(email)) {
+            log.warn("Email queue is full, rejecting email to {}", email.getTo());
+            throw new AppException(ErrorCode.EMAIL_QUEUE_FULL);
+        }
+    }
+
+    private void runWorker() {
+        List<OutboundEmail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboundEmail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Unexpected error in mail worker", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<OutboundEmail> batch) {
+        Map<MimeMessage, OutboundEmail> messages = new IdentityHashMap<>(batch.size());
+        for (OutboundEmail email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                deadLetter(email, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(messages.keySet()
+                    .toArray(MimeMessage[]::new));
+            sentCounter.increment(messages.size());
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                messages.values()
+                        .forEach(email -> retryOrDeadLetter(email, e));
+            } else {
+                sentCounter.increment(messages.size() - failed.size());
+                failed.forEach((message, cause) -> {
+                    OutboundEmail email = messages.get(message);
+                    if (email != null) {
+                        retryOrDeadLetter(email, cause);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            messages.values()
+                    .forEach(email -> retryOrDeadLetter(email, e));
+        } finally {
+            sample.stop(sendTimer);
+        }
+    }
+
+    //    subject da duoc encode san, body la mot part text/html duy nhat nen khong can dung MimeMessageHelper/multipart
+    private MimeMessage toMimeMessage(OutboundEmail email) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        mimeMessage.setRecipients(Message.RecipientType.TO, email.getTo());
+        mimeMessage.setHeader("Subject", email.getEncodedSubject());
+        mimeMessage.setText(email.getHtmlBody(), StandardCharsets.UTF_8.name(), "html");
+        return mimeMessage;
+    }
+
+    private void retryOrDeadLetter(OutboundEmail email, Exception cause) {
+        failedCounter.increment();
+        OutboundEmail next = email.nextAttempt();
+        if (next.getAttempts() >= maxAttempts || !running) {
+            deadLetter(next, cause);
+            return;
+        }
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(next.getAttempts() - 1, 20));
+        log.warn("Sending email to {} failed (attempt {}), retrying in {} ms: {}",
+                email.getTo(), next.getAttempts(), backoff, cause.getMessage());
+        PendingRetry retry = new PendingRetry(next, cause);
+        pendingRetries.add(retry);
+        try {
+            retryScheduler.schedule(() -> {
+                //    stop() da lay ra thi bo qua
+                if (pendingRetries.remove(retry) && !queue.offer(next)) {
+                    deadLetter(next, cause);
+                }
+            }, backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (pendingRetries.remove(retry)) {
+                deadLetter(next, cause);
+            }
+        }
+    }
+
+    //    htmlBody chua ma otp/reset dang con hieu luc nen khong luu, gui lai phai render lai tu template
+    private void deadLetter(OutboundEmail email, Exception cause) {
+        deadLetterCounter.increment();
+        log.error("Giving up on email to {} after {} attempts: {}", email.getTo(), email.getAttempts(), cause.getMessage());
+        try {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("to", email.getTo());
+            entry.put("template", email.getTemplate());
+            entry.put("locale", email.getLocale());
+            entry.put("failedAt", System.currentTimeMillis());
+            entry.put("error", String.valueOf(cause.getMessage()));
+            byte[] value = objectMapper.writeValueAsBytes(entry);
+            redisService.pipelined((RedisCallback<Object>) connection -> {
+                connection.listCommands()
+                        .lPush(DEAD_LETTER_KEY, value);
+                connection.listCommands()
+                        .lTrim(DEAD_LETTER_KEY, 0, deadLetterMaxSize - 1);
+                connection.keyCommands()
+                        .pExpire(DEAD_LETTER_KEY, deadLetterTtl);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Could not store dead-letter email to {}: {}", email.getTo(), e.getMessage());
+        }
+    }
+
+    private record PendingRetry(OutboundEmail email, Exception cause) {
+    }
+}
@@ -1,49 +1,56 @@
 package com.mochi.backend.security.email;
 
+import com.mochi.backend.enums.EmailTemplateType;
 import com.mochi.backend.enums.ErrorCode;
 import com.mochi.backend.exception.AppException;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-    private final JavaMailSender mailSender;
-
-    public void sendVerificationEmail(String to, String subject, String body) throws MessagingException {
-        // implementation for sending mail
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(body, true);
-        mailSender.send(mimeMessage);
-    }
+    private final EmailDispatcher emailDispatcher;
+    private final EmailTemplateEngine templateEngine;
 
-    public void sendVerificationEmail(String email, String verificationCode) {
-        String subject = "Verify your email";
-        String htmlMessage = "<html>"
-                + "<body style=\"font-family: Arial, sans-serif;\">"
-                + "<div style=\"background-color: #f5f5f5; padding: 20px;\">"
-                + "<h2 style=\"color: #333;\">Welcome to our app!</h2>"
-                + "<p style=\"font-size: 16px;\">Please enter the verification code below to continue:</p>"
-                + "<div style=\"background-color: #fff; padding: 20px; border-radius: 5px; box-shadow: 0 0 10px rgba(0,0,0,0.1);\">"
-                + "<h3 style=\"color: #333;\">Verification Code:</h3>"
-                + "<p style=\"font-size: 18px; font-weight: bold; color: #007bff;\">" + verificationCode + "</p>"
-                + "</div>"
-                + "</div>"
-                + "</body>"
-                + "</html>";
+    //    chi dua mail vao hang doi, viec gui smtp do EmailDispatcher thuc hien o background
+    public void sendEmail(String to, String subject, String body) {
         try {
-            sendVerificationEmail(email, subject, htmlMessage);
-        } catch (MessagingException e) {
+            enqueue(to, MimeUtility.encodeText(subject, StandardCharsets.UTF_8.name(), "B"), body, null, null);
+        } catch (UnsupportedEncodingException e) {
             throw new AppException(ErrorCode.SEND_EMAIL_FAIL, List.of(e.getMessage()));
         }
     }
+
+    public void sendVerificationEmail(String email, String verificationCode) {
+        send(email, EmailTemplateType.VERIFICATION, Map.of("code", verificationCode));
+    }
+
+    public void sendPasswordResetEmail(String email, String resetCode) {
+        send(email, EmailTemplateType.PASSWORD_RESET, Map.of("code", resetCode));
+    }
+
+    private void send(String to, EmailTemplateType type, Map<String, String> variables) {
+        Locale locale = LocaleContextHolder.getLocale();
+        EmailTemplateEngine.RenderedEmail rendered = templateEngine.render(type, locale, variables);
+        enqueue(to, rendered.encodedSubject(), rendered.htmlBody(), type.name(), locale.toLanguageTag());
+    }
+
+    private void enqueue(String to, String encodedSubject, String htmlBody, String template, String locale) {
+        emailDispatcher.enqueue(OutboundEmail.builder()
+                .to(to)
+                .encodedSubject(encodedSubject)
+                .htmlBody(htmlBody)
+                .template(template)
+                .locale(locale)
+                .enqueuedAt(System.currentTimeMillis())
+                .build());
+    }
 }
@@ -0,0 +1,135 @@
+package com.mochi.backend.security.email;
+
+import com.mochi.backend.enums.EmailTemplateType;
+import jakarta.mail.internet.MimeUtility;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// template mail duoc bien dich mot lan khi khoi dong: #{key} lay tu messages_email theo locale, {{var}} dien luc gui
+@Slf4j
+@Component
+public class EmailTemplateEngine {
+    private final Map<EmailTemplateType, Map<String, CompiledTemplate>> templates = new EnumMap<>(EmailTemplateType.class);
+    private final String defaultLanguage;
+
+    public EmailTemplateEngine(MessageSource messageSource,
+                               @Value("${email.template.locales:en,vi}") List<String> languages) {
+        this.defaultLanguage = languages.get(0);
+        for (EmailTemplateType type : EmailTemplateType.values()) {
+            String source = readTemplate(type.getLocation());
+            Map<String, CompiledTemplate> byLanguage = new HashMap<>();
+            for (String language : languages) {
+                Locale locale = Locale.forLanguageTag(language);
+                String subject = messageSource.getMessage(type.getSubjectKey(), null, locale);
+                byLanguage.put(language, compile(type, source, subject, messageSource, locale));
+            }
+            templates.put(type, byLanguage);
+        }
+        log.info("Compiled {} email templates for locales {}", templates.size(), languages);
+    }
+
+    public RenderedEmail render(EmailTemplateType type, Map<String, String> variables) {
+        return render(type, LocaleContextHolder.getLocale(), variables);
+    }
+
+    public RenderedEmail render(EmailTemplateType type, Locale locale, Map<String, String> variables) {
+        Map<String, CompiledTemplate> byLanguage = templates.get(type);
+        CompiledTemplate template = byLanguage.get(locale == null ? defaultLanguage : locale.getLanguage());
+        if (template == null) {
+            template = byLanguage.get(defaultLanguage);
+        }
+        return template.render(variables);
+    }
+
+    private static CompiledTemplate compile(EmailTemplateType type, String source, String subject,
+                                            MessageSource messageSource, Locale locale) {
+        String localized = resolveMessages(source, messageSource, locale);
+        List<String> segments = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int start = localized.indexOf("{{", position);
+            if (start < 0) {
+                break;
+            }
+            int end = localized.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalStateException("Unclosed placeholder in " + type.getLocation());
+            }
+            segments.add(localized.substring(position, start));
+            variables.add(localized.substring(start + 2, end)
+                    .trim());
+            position = end + 2;
+        }
+        segments.add(localized.substring(position));
+        try {
+            return new CompiledTemplate(
+                    MimeUtility.encodeText(subject, StandardCharsets.UTF_8.name(), "B"),
+                    segments.toArray(String[]::new),
+                    variables.toArray(String[]::new)
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String resolveMessages(String source, MessageSource messageSource, Locale locale) {
+        StringBuilder result = new StringBuilder(source.length());
+        int position = 0;
+        while (true) {
+            int start = source.indexOf("#{", position);
+            if (start < 0) {
+                break;
+            }
+            int end = source.indexOf('}', start + 2);
+            result.append(source, position, start)
+                    .append(HtmlUtils.htmlEscape(messageSource.getMessage(source.substring(start + 2, end), null, locale), StandardCharsets.UTF_8.name()));
+            position = end + 1;
+        }
+        return result.append(source, position, source.length())
+                .toString();
+    }
+
+    private static String readTemplate(String location) {
+        try (InputStream in = new ClassPathResource(location).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read email template " + location, e);
+        }
+    }
+
+    private record CompiledTemplate(String encodedSubject, String[] segments, String[] variables, int staticLength) {
+        CompiledTemplate(String encodedSubject, String[] segments, String[] variables) {
+            this(encodedSubject, segments, variables, Arrays.stream(segments)
+                    .mapToInt(String::length)
+                    .sum());
+        }
+
+        RenderedEmail render(Map<String, String> values) {
+            StringBuilder html = new StringBuilder(staticLength + 64 * variables.length);
+            for (int i = 0; i < variables.length; i++) {
+                html.append(segments[i]);
+                String value = values.get(variables[i]);
+                if (value != null) {
+                    html.append(HtmlUtils.htmlEscape(value, StandardCharsets.UTF_8.name()));
+                }
+            }
+            html.append(segments[variables.length]);
+            return new RenderedEmail(encodedSubject, html.toString());
+        }
+    }
+
+    public record RenderedEmail(String encodedSubject, String htmlBody) {
+    }
+}
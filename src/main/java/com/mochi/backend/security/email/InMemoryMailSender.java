@@ -0,0 +1,48 @@
+package com.mochi.backend.security.email;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+// smtp gia cho moi truong test/dev (email.fake-sink.enabled=true): giu lai mail trong bo nho thay vi gui that
+@Slf4j
+public class InMemoryMailSender extends JavaMailSenderImpl {
+    private final int capacity;
+    private final ConcurrentLinkedDeque<MimeMessage> sentMessages = new ConcurrentLinkedDeque<>();
+
+    public InMemoryMailSender(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        for (MimeMessage message : mimeMessages) {
+            try {
+                message.saveChanges();
+                log.info("Fake SMTP sink accepted email to {}: {}", Arrays.toString(message.getAllRecipients()), message.getSubject());
+            } catch (MessagingException e) {
+                throw new MailPreparationException(e);
+            }
+            sentMessages.addLast(message);
+            while (sentMessages.size() > capacity) {
+                sentMessages.pollFirst();
+            }
+        }
+    }
+
+    public List<MimeMessage> getSentMessages() {
+        return new ArrayList<>(sentMessages);
+    }
+
+    public void clear() {
+        sentMessages.clear();
+    }
+}
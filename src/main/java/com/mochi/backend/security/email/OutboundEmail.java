@@ -0,0 +1,28 @@
+package com.mochi.backend.security.email;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class OutboundEmail {
+    String to;
+    String encodedSubject;
+    String htmlBody;
+    //    ten EmailTemplateType (null voi mail tu soan) va locale, chi hai truong nay vao dead-letter thay cho noi dung
+    String template;
+    String locale;
+    int attempts;
+    long enqueuedAt;
+
+    public OutboundEmail nextAttempt() {
+        return toBuilder()
+                .attempts(attempts + 1)
+                .build();
+    }
+}
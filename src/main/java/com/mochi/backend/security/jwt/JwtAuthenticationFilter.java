@@ -1,8 +1,7 @@
 package com.mochi.backend.security.jwt;
 
-import com.mochi.backend.model.Role;
-import com.mochi.backend.model.User;
-import com.mochi.backend.security.userDetails.CustomUserDetails;
+import com.mochi.backend.security.userDetails.GrantedAuthorities;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,13 +15,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
 
     @Override
     protected void doFilterInternal(
@@ -32,7 +30,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final ParsedToken token;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,32 +39,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7)
                 .trim();
-        username = jwtService.extractUsername(jwt);
+        token = jwtService.parseToken(jwt);
 
-        if (username != null && SecurityContextHolder.getContext()
-                .getAuthentication() == null) {
-            Set<String> roles = jwtService.extractRoles(jwt);
-            User tempUser = User.builder()
-                    .username(username)
-                    .password("")
-                    .roles(roles.stream()
-                            .map(roleName -> Role.builder()
-                                    .name(roleName)
-                                    .build())
-                            .collect(Collectors.toSet()))
-                    .enabled(true)
-                    .build();
-            CustomUserDetails userDetails = new CustomUserDetails(tempUser);
-            if (jwtService.isAccessTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext()
-                        .setAuthentication(authentication);
-            }
+        if (token.getSubject() != null && SecurityContextHolder.getContext()
+                .getAuthentication() == null && jwtService.isAccessTokenValid(token)) {
+            JwtPrincipal principal = new JwtPrincipal(
+                    token.getSubject(),
+                    GrantedAuthorities.of(token.getRoles()),
+                    token.getJti(),
+                    token.getUserId()
+            );
+            UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                    principal,
+                    null,
+                    principal.getAuthorities()
+            );
+            authentication.setDetails(detailsSource.buildDetails(request));
+            SecurityContextHolder.getContext()
+                    .setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,128 @@
+package com.mochi.backend.security.jwt;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+
+// giu cac khoa ky token theo kid, decode mot lan; bo khoa dung chung giua cac node do JwtKeySync nap tu redis (xoay khoa khong can restart)
+// token cu khong co kid luon verify bang khoa legacy-key-id (mac dinh key-id luc bat dau dung kid), khong theo khoa dang active
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    private volatile KeySet keySet;
+    private final JwtParser parser;
+
+    public JwtKeyRing(
+            @Value("${security.jwt.secret-key}") String secretKey,
+            @Value("${security.jwt.key-id:k1}") String keyId,
+            @Value("${security.jwt.previous-keys:}") String previousKeys,
+            @Value("${security.jwt.legacy-key-id:${security.jwt.key-id:k1}}") String legacyKeyId
+    ) {
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String entry : previousKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("security.jwt.previous-keys must be a list of kid:base64Secret");
+            }
+            keys.put(entry.substring(0, separator)
+                    .trim(), decode(entry.substring(separator + 1)
+                    .trim()));
+        }
+        keys.put(keyId, decode(secretKey));
+        this.keySet = new KeySet(keyId, legacyKeyId, keys);
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return keySet.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    public JwtParser parser() {
+        return parser;
+    }
+
+    public JwtBuilder sign(JwtBuilder builder) {
+        KeySet current = keySet;
+        return builder.header()
+                .keyId(current.activeKeyId)
+                .and()
+                .signWith(current.activeKey());
+    }
+
+    public String getActiveKeyId() {
+        return keySet.activeKeyId;
+    }
+
+    public String getLegacyKeyId() {
+        return keySet.legacyKeyId;
+    }
+
+    //    false sau khi khoa da bi retire, token ky bang no khong con hop le ke ca khi dang nam trong cache
+    public boolean isTrusted(String keyId) {
+        return keyId != null && keySet.keys.containsKey(keyId);
+    }
+
+    //    thay ca bo khoa (kid -> khoa raw), kid khong con trong keys coi nhu da retire
+    synchronized void load(String activeKeyId, Map<String, byte[]> keys) {
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("Active JWT key id has no key: " + activeKeyId);
+        }
+        Map<String, SecretKey> decoded = new HashMap<>();
+        keys.forEach((keyId, key) -> decoded.put(keyId, Keys.hmacShaKeyFor(key)));
+        KeySet previous = keySet;
+        keySet = new KeySet(activeKeyId, previous.legacyKeyId, decoded);
+        if (!activeKeyId.equals(previous.activeKeyId) || !decoded.keySet()
+                .equals(previous.keys.keySet())) {
+            log.info("JWT keys loaded: active kid={}, kids={}", activeKeyId, decoded.keySet());
+        }
+    }
+
+    //    khoa raw theo kid, dung de nap bo khoa ban dau len redis
+    Map<String, byte[]> encodedKeys() {
+        Map<String, byte[]> encoded = new HashMap<>();
+        keySet.keys.forEach((keyId, key) -> encoded.put(keyId, key.getEncoded()));
+        return encoded;
+    }
+
+    private static SecretKey decode(String base64Secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+    }
+
+    private record KeySet(String activeKeyId, String legacyKeyId, Map<String, SecretKey> keys) {
+        KeySet {
+            keys = Map.copyOf(keys);
+        }
+
+        SecretKey activeKey() {
+            return keys.get(activeKeyId);
+        }
+
+        SecretKey verificationKey(String keyId) {
+            String resolved = keyId == null ? legacyKeyId : keyId;
+            SecretKey key = keys.get(resolved);
+            if (key == null) {
+                throw new IllegalArgumentException("Unknown JWT key id: " + resolved);
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.mochi.backend.security.jwt;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// bo khoa ky jwt dung chung giua cac node, luu o jwt:keys:{ring}; redis chua co thi nap tu cau hinh cua node dau tien
+// xoay/retire chi qua day: doi redis roi PUBLISH, moi node nap lai bo khoa; nap lai dinh ky phong khi mat tin pub/sub
+// redis loi luc khoi dong thi tam dung khoa trong cau hinh, lan reload sau dong bo lai
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class JwtKeySync implements MessageListener {
+    public static final String CHANNEL = "jwt-keys";
+    //    HS512
+    private static final int KEY_BYTES = 64;
+    private static final byte[] KEYS_KEY = RedisNamespace.JWT_KEYS.key("ring");
+    private static final byte[] ACTIVE_KEY = RedisNamespace.JWT_KEYS.key("ring", "active");
+    private static final RedisScript<Long> SEED_SCRIPT = RedisScript.of(new ClassPathResource("redis/jwt_key_seed.lua"), Long.class);
+    private static final RedisScript<Long> ROTATE_SCRIPT = RedisScript.of(new ClassPathResource("redis/jwt_key_rotate.lua"), Long.class);
+    private static final RedisScript<Long> RETIRE_SCRIPT = RedisScript.of(new ClassPathResource("redis/jwt_key_retire.lua"), Long.class);
+
+    JwtKeyRing keyRing;
+    RedisService redisService;
+    StringRedisTemplate redisTemplate;
+    RedisMessageListenerContainer listenerContainer;
+    SecureRandom random = new SecureRandom();
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        try {
+            List<byte[]> args = new ArrayList<>();
+            args.add(bytes(keyRing.getActiveKeyId()));
+            keyRing.encodedKeys()
+                    .forEach((keyId, key) -> {
+                        args.add(bytes(keyId));
+                        args.add(key);
+                    });
+            Long seeded = redisService.execute(SEED_SCRIPT, List.of(KEYS_KEY, ACTIVE_KEY), args.toArray(byte[][]::new));
+            if (seeded != null && seeded == 1) {
+                log.info("Seeded shared JWT keys from configuration, active kid={}", keyRing.getActiveKeyId());
+            }
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not sync JWT keys from Redis, using configured keys: {}", e.getMessage());
+        }
+    }
+
+    //    sinh khoa moi tren server (secret khong di qua request/log), tra ve kid moi
+    public String rotate() {
+        String keyId = "k" + System.currentTimeMillis();
+        byte[] key = new byte[KEY_BYTES];
+        random.nextBytes(key);
+        Long rotated = redisService.execute(ROTATE_SCRIPT, List.of(KEYS_KEY, ACTIVE_KEY), bytes(keyId), key);
+        if (rotated == null || rotated != 1) {
+            throw new AppException(ErrorCode.JWT_KEY_EXISTS);
+        }
+        log.info("JWT signing key rotated to kid={}", keyId);
+        reloadAndBroadcast(keyId);
+        return keyId;
+    }
+
+    //    token ky bang kid nay bi tu choi ngay ca khi dang nam trong VerifiedTokenCache
+    public boolean retire(String keyId) {
+        Long retired = redisService.execute(RETIRE_SCRIPT, List.of(KEYS_KEY, ACTIVE_KEY), bytes(keyId));
+        if (retired != null && retired == -1) {
+            throw new AppException(ErrorCode.JWT_KEY_ACTIVE);
+        }
+        if (retired == null || retired == 0) {
+            return false;
+        }
+        log.info("JWT key retired: kid={}", keyId);
+        reloadAndBroadcast(keyId);
+        return true;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not reload JWT keys after change of kid={}: {}",
+                    new String(message.getBody(), StandardCharsets.UTF_8), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.key-sync.reload-interval-ms:60000}",
+            initialDelayString = "${security.jwt.key-sync.reload-interval-ms:60000}")
+    void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Could not reload JWT keys: {}", e.getMessage());
+        }
+    }
+
+    void reload() {
+        List<Object> result = redisService.pipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands()
+                    .get(ACTIVE_KEY);
+            connection.hashCommands()
+                    .hGetAll(KEYS_KEY);
+            return null;
+        });
+        if (!(result.get(0) instanceof byte[] active) || !(result.get(1) instanceof Map<?, ?> stored)) {
+            log.warn("Shared JWT keys are missing in Redis, keeping current keys");
+            return;
+        }
+        Map<String, byte[]> keys = new HashMap<>();
+        stored.forEach((keyId, key) -> keys.put(new String((byte[]) keyId, StandardCharsets.UTF_8), (byte[]) key));
+        keyRing.load(new String(active, StandardCharsets.UTF_8), keys);
+    }
+
+    private void reloadAndBroadcast(String keyId) {
+        reload();
+        try {
+            redisTemplate.convertAndSend(CHANNEL, keyId);
+        } catch (Exception e) {
+            log.warn("Could not broadcast JWT key change kid={}: {}", keyId, e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,20 +2,19 @@ package com.mochi.backend.security.jwt;
 
 import com.mochi.backend.enums.ErrorCode;
 import com.mochi.backend.exception.AppException;
-import com.mochi.backend.model.RevokedToken;
+import com.mochi.backend.security.userDetails.CustomUserDetails;
 import com.mochi.backend.service.RevokedTokenService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -24,8 +23,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JwtService {
     private final RevokedTokenService revokedTokenService;
-    @Value("${security.jwt.secret-key}")
-    private String jwtSecretKey;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwtKeyRing keyRing;
 
     @Value("${security.jwt.expiration-ms.access}")
     private long accessExpirationMs;
@@ -33,8 +32,10 @@ public class JwtService {
     @Value("${security.jwt.expiration-ms.refresh}")
     private long refreshExpirationMs;
 
-    public JwtService(RevokedTokenService revokedTokenService) {
+    public JwtService(RevokedTokenService revokedTokenService, VerifiedTokenCache verifiedTokenCache, JwtKeyRing keyRing) {
         this.revokedTokenService = revokedTokenService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.keyRing = keyRing;
     }
 
     //    trich xuat cac claim tu token tra ve kieu T
@@ -45,13 +46,13 @@ public class JwtService {
 
     //    trich xuat tat ca claims tu token
     public Claims extractAllClaims(String token) {
+        return parseSigned(token).getPayload();
+    }
+
+    private Jws<Claims> parseSigned(String token) {
         try {
-            return Jwts
-                    .parser()
-                    .verifyWith(getSingInKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return keyRing.parser()
+                    .parseSignedClaims(token);
         } catch (ExpiredJwtException e) {
             log.error("Token đã hết hạn: {}", e.getMessage());
             throw new AppException(ErrorCode.TOKEN_EXPIRED);
@@ -62,24 +63,72 @@ public class JwtService {
 
     }
 
+    //    verify token mot lan, cac lan sau lay tu cache cho den khi token het han hoac khoa ky bi retire
+    public ParsedToken parseToken(String token) {
+        ByteBuffer cacheKey = VerifiedTokenCache.keyOf(token);
+        ParsedToken cached = verifiedTokenCache.get(cacheKey);
+        if (cached != null) {
+            if (!keyRing.isTrusted(cached.getKeyId())) {
+                verifiedTokenCache.invalidate(cacheKey);
+                throw new AppException(ErrorCode.UNAUTHORIZED);
+            }
+            if (cached.isExpired()) {
+                verifiedTokenCache.invalidate(cacheKey);
+                throw new AppException(ErrorCode.TOKEN_EXPIRED);
+            }
+            return cached;
+        }
+        Jws<Claims> jws = parseSigned(token);
+        //    token cu khong co kid duoc verify bang khoa legacy
+        String keyId = jws.getHeader()
+                .getKeyId();
+        ParsedToken parsed = toParsedToken(jws.getPayload(), keyId == null ? keyRing.getLegacyKeyId() : keyId);
+        verifiedTokenCache.put(cacheKey, parsed);
+        return parsed;
+    }
+
+    private ParsedToken toParsedToken(Claims claims, String keyId) {
+        String type = claims.get("type", String.class);
+        String jti = claims.get("jti", String.class);
+        String fid = claims.get("fid", String.class);
+        String uid = claims.get("uid", String.class);
+        List<?> rawRoles = claims.get("roles", List.class);
+        Set<String> roles = rawRoles == null
+                ? Set.of()
+                : rawRoles.stream()
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .collect(Collectors.toUnmodifiableSet());
+        return ParsedToken.builder()
+                .subject(claims.getSubject())
+                .userId(uid == null ? null : UUID.fromString(uid))
+                .type(type == null ? null : TokenType.valueOf(type))
+                .roles(roles)
+                .jti(jti == null ? null : UUID.fromString(jti))
+                .familyId(fid == null ? null : UUID.fromString(fid))
+                .keyId(keyId)
+                .issuedAt(claims.getIssuedAt() == null ? null : claims.getIssuedAt()
+                        .toInstant())
+                .expiration(claims.getExpiration()
+                        .toInstant())
+                .build();
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).getSubject();
     }
 
     public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("type", String.class));
+        TokenType type = parseToken(token).getType();
+        return type == null ? null : type.name();
     }
 
     public UUID extractJti(String token) {
-        return extractClaim(token, claims -> UUID.fromString(claims.get("jti", String.class)));
+        return parseToken(token).getJti();
     }
 
     public Set<String> extractRoles(String token) {
-        List<?> rawRoles = extractClaim(token, claims -> claims.get("roles", List.class));
-        return rawRoles.stream()
-                .filter(Objects::nonNull)
-                .map(Object::toString)
-                .collect(Collectors.toSet());
+        return parseToken(token).getRoles();
     }
 
     public String generateAccessToken(
@@ -88,10 +137,20 @@ public class JwtService {
         return generateToken(new HashMap<>(), userDetails, TokenType.ACCESS, accessExpirationMs);
     }
 
+    //    jti va fid do RefreshTokenService cap de ghi vao family truoc khi ky
     public String generateRefreshToken(
-            UserDetails userDetails
+            UserDetails userDetails,
+            UUID familyId,
+            UUID jti
     ) {
-        return generateToken(new HashMap<>(), userDetails, TokenType.REFRESH, refreshExpirationMs);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("fid", familyId.toString());
+        claims.put("jti", jti.toString());
+        return generateToken(claims, userDetails, TokenType.REFRESH, refreshExpirationMs);
+    }
+
+    public long getRefreshTokenExpiry() {
+        return refreshExpirationMs;
     }
 
     public String generateToken(
@@ -103,41 +162,36 @@ public class JwtService {
         extraClaims.put("type", tokenType.name());
 
         long now = System.currentTimeMillis();
-        if (tokenType == TokenType.REFRESH) {
-            extraClaims.put("jti", UUID.randomUUID()
-                    .toString());
-        }
+        extraClaims.putIfAbsent("jti", UUID.randomUUID()
+                .toString());
         if (tokenType == TokenType.ACCESS) {
             extraClaims.put("roles", userDetails.getAuthorities()
                     .stream()
                     .map(GrantedAuthority::getAuthority)
                     .collect(Collectors.toSet()));
+            if (userDetails instanceof CustomUserDetails customUserDetails && customUserDetails.getUser()
+                    .getId() != null) {
+                extraClaims.put("uid", customUserDetails.getUser()
+                        .getId()
+                        .toString());
+            }
         }
-        return Jwts.builder()
-                .claims(extraClaims)
-                .subject(userDetails.getUsername())
-                .issuedAt(new Date(now))
-                .expiration(new Date(now + expirationMs))
-                .signWith(getSingInKey())
+        return keyRing.sign(Jwts.builder()
+                        .claims(extraClaims)
+                        .subject(userDetails.getUsername())
+                        .issuedAt(new Date(now))
+                        .expiration(new Date(now + expirationMs)))
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractClaim(token, Claims::getSubject);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        ParsedToken parsed = parseToken(token);
+        return parsed.getSubject()
+                .equals(userDetails.getUsername()) && !parsed.isExpired();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private SecretKey getSingInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return Date.from(parseToken(token).getExpiration());
     }
 
     public long getAccessTokenExpiry() {
@@ -146,40 +200,33 @@ public class JwtService {
 
     public boolean isRefreshTokenValid(String refreshToken) {
         try {
-            String tokenType = extractTokenType(refreshToken);
-            Optional<RevokedToken> revokedToken = revokedTokenService.findByJti(extractJti(refreshToken));
-            if (!TokenType.REFRESH.name()
-                    .equals(tokenType)) {
-                log.warn("Invalid token: Incorrect token type");
-                return false;
-            }
-            if (isTokenExpired(refreshToken)) {
-                log.warn("The token has expired");
-                return false;
-            }
-            if (revokedToken.isPresent()) {
-                log.warn("The token has been revoked: jti={}", revokedToken.get()
-                        .getJti());
-                return false;
-            }
-            return true;
-
-
+            return isRefreshTokenValid(parseToken(refreshToken));
         } catch (Exception e) {
             log.warn("Invalid refresh token: {}", e.getMessage());
             return false;
         }
     }
 
-    public boolean isAccessTokenValid(String accessToken, UserDetails userDetails) {
-        try {
-            String tokenType = extractTokenType(accessToken);
-            return TokenType.ACCESS.name()
-                    .equals(tokenType) && isTokenValid(accessToken, userDetails);
-        } catch (Exception e) {
-            log.warn("Access token không hợp lệ: {}", e.getMessage());
+    public boolean isRefreshTokenValid(ParsedToken refreshToken) {
+        if (!refreshToken.isRefreshToken()) {
+            log.warn("Invalid token: Incorrect token type");
+            return false;
+        }
+        if (refreshToken.isExpired()) {
+            log.warn("The token has expired");
             return false;
         }
+        //    token co family duoc kiem tra trong redis khi xoay, token cu van dung danh sach thu hoi
+        if (refreshToken.getFamilyId() == null && revokedTokenService.isRevoked(refreshToken.getJti())) {
+            log.warn("The token has been revoked: jti={}", refreshToken.getJti());
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isAccessTokenValid(ParsedToken accessToken) {
+        return accessToken.isAccessToken() && !accessToken.isExpired()
+                && !revokedTokenService.isRevoked(accessToken.getJti());
     }
 
 
@@ -0,0 +1,43 @@
+package com.mochi.backend.security.jwt;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+// ket qua cua mot lan verify token, dung chung cho filter va cac service
+@Getter
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ParsedToken {
+    String subject;
+    //    id cua user (claim uid), chi co trong access token
+    UUID userId;
+    TokenType type;
+    Set<String> roles;
+    UUID jti;
+    //    family cua refresh token, token cu (truoc khi co rotation) thi null
+    UUID familyId;
+    //    kid cua khoa da verify token, cache chi tra ve token khi khoa nay con trong JwtKeyRing
+    String keyId;
+    Instant issuedAt;
+    Instant expiration;
+
+    public boolean isExpired() {
+        return !expiration.isAfter(Instant.now());
+    }
+
+    public boolean isAccessToken() {
+        return type == TokenType.ACCESS;
+    }
+
+    public boolean isRefreshToken() {
+        return type == TokenType.REFRESH;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mochi.backend.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+// cache cac token da verify, key la sha-256 cua token de khong giu chuoi token trong bo nho
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<ByteBuffer, ParsedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${security.jwt.cache.max-size:10000}") long maxSize,
+            @Value("${security.jwt.cache.max-ttl:PT15M}") Duration maxTtl
+    ) {
+        long maxTtlNanos = maxTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, ParsedToken>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, ParsedToken token, long currentTime) {
+                        long untilExpiry = Duration.between(Instant.now(), token.getExpiration())
+                                .toNanos();
+                        return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, ParsedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, ParsedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public ParsedToken get(ByteBuffer key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(ByteBuffer key, ParsedToken token) {
+        cache.put(key, token);
+    }
+
+    public void invalidate(ByteBuffer key) {
+        cache.invalidate(key);
+    }
+
+    public static ByteBuffer keyOf(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
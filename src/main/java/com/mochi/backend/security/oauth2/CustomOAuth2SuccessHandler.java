@@ -3,6 +3,8 @@ package com.mochi.backend.security.oauth2;
 import com.mochi.backend.model.User;
 import com.mochi.backend.security.jwt.JwtService;
 import com.mochi.backend.security.userDetails.CustomUserDetails;
+import com.mochi.backend.service.RefreshTokenService;
+import com.mochi.backend.service.RoleRegistry;
 import com.mochi.backend.service.UserService;
 import com.mochi.backend.utils.CookieUtils;
 import jakarta.servlet.ServletException;
@@ -30,6 +32,8 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
     CookieUtils cookieUtils;
     private final UserService userService;
     private final JwtService jwtService;
+    private final RoleRegistry roleRegistry;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
@@ -37,9 +41,9 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
         Map<String, Object> attributes = oauthToken.getPrincipal()
                 .getAttributes();
         User user = userService.findOrCreateGoogleUser(attributes);
-        CustomUserDetails userDetails = new CustomUserDetails(user);
+        CustomUserDetails userDetails = new CustomUserDetails(user, roleRegistry.authoritiesOf(user.getRoleMask()));
         String accessToken = jwtService.generateAccessToken(userDetails);
-        String refreshToken = jwtService.generateRefreshToken(userDetails);
+        String refreshToken = refreshTokenService.issue(userDetails);
         ResponseCookie refreshTokenCookie = cookieUtils.createRefreshTokenCookie(refreshToken);
         response.addHeader(HttpHeaders.SET_COOKIE, refreshTokenCookie.toString());
 
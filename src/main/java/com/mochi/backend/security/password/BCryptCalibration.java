@@ -0,0 +1,34 @@
+package com.mochi.backend.security.password;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+// do thoi gian hash tren may hien tai de chon cost bcrypt gan nhat voi thoi gian muc tieu
+// moi lan tang cost thi thoi gian tang gap doi, nen chi can do o mot cost thap roi ngoai suy
+@Slf4j
+public final class BCryptCalibration {
+    private static final int SAMPLE_STRENGTH = 8;
+    private static final int SAMPLES = 3;
+
+    private BCryptCalibration() {
+    }
+
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        String salt = BCrypt.gensalt(SAMPLE_STRENGTH);
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double ratio = (double) target.toNanos() / Math.max(best, 1);
+        int strength = SAMPLE_STRENGTH + (int) Math.floor(Math.log(ratio) / Math.log(2));
+        int chosen = Math.max(minStrength, Math.min(maxStrength, strength));
+        log.info("BCrypt cost {} takes {} us, target {} ms -> cost {}",
+                SAMPLE_STRENGTH, best / 1_000, target.toMillis(), chosen);
+        return chosen;
+    }
+}
@@ -0,0 +1,36 @@
+package com.mochi.backend.security.password;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// dung cho hash khong co tien to {id}: doan thuat toan tu dinh dang hash roi chuyen cho encoder tuong ung
+// encode chi de du hop dong PasswordEncoder (DelegatingPasswordEncoder luon encode bang encoder mac dinh), dung bcrypt
+public class LegacyFormatPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder bcrypt;
+    private final PasswordEncoder argon2;
+
+    public LegacyFormatPasswordEncoder(PasswordEncoder bcrypt, PasswordEncoder argon2) {
+        this.bcrypt = bcrypt;
+        this.argon2 = argon2;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return bcrypt.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (PasswordFormat.isLegacyBCrypt(encodedPassword)) {
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+        if (PasswordFormat.isLegacyArgon2(encodedPassword)) {
+            return argon2.matches(rawPassword, encodedPassword);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mochi.backend.security.password;
+
+// nhan dien dinh dang hash bang vai ky tu dau, khong dung regex
+public final class PasswordFormat {
+
+    private PasswordFormat() {
+    }
+
+    //    $2a$, $2b$, $2y$
+    public static boolean isLegacyBCrypt(String encoded) {
+        if (encoded == null || encoded.length() < 7 || encoded.charAt(0) != '$' || encoded.charAt(1) != '2' || encoded.charAt(3) != '$') {
+            return false;
+        }
+        char minor = encoded.charAt(2);
+        return minor == 'a' || minor == 'b' || minor == 'y';
+    }
+
+    public static boolean isLegacyArgon2(String encoded) {
+        return encoded != null && encoded.startsWith("$argon2");
+    }
+}
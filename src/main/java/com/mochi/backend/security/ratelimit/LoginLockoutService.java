@@ -0,0 +1,120 @@
+package com.mochi.backend.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.RateLimitException;
+import com.mochi.backend.service.RedisCodec;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.service.RedisStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+// dem so lan dang nhap sai theo tai khoan, qua nguong thi khoa va moi lan sai tiep theo thoi gian khoa gap doi
+// tai khoan dang bi khoa duoc nho o local nen request lap lai khong can hoi redis
+@Slf4j
+@Component
+public class LoginLockoutService {
+    private final RedisService redisService;
+    private final RedisStore<String> failures;
+    private final RedisStore<String> locks;
+    private final RedisScript<Long> failureScript;
+    private final byte[] threshold;
+    private final byte[] baseLockSeconds;
+    private final byte[] maxLockSeconds;
+    private final byte[] failureMemorySeconds;
+    private final Cache<String, Long> lockedUntil;
+    private final Counter lockoutCounter;
+    private final Counter blockedCounter;
+
+    public LoginLockoutService(RedisService redisService,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.login-lockout.threshold:5}") int threshold,
+                               @Value("${security.login-lockout.base-duration:30s}") Duration baseDuration,
+                               @Value("${security.login-lockout.near-cache.max-size:10000}") long nearCacheSize) {
+        this.redisService = redisService;
+        this.failures = redisService.store(RedisNamespace.LOGIN_FAILURES, RedisCodec.STRING);
+        this.locks = redisService.store(RedisNamespace.LOGIN_LOCK, RedisCodec.STRING);
+        this.failureScript = RedisScript.of(new ClassPathResource("redis/login_failure.lua"), Long.class);
+        this.threshold = bytes(threshold);
+        this.baseLockSeconds = bytes(baseDuration.toSeconds());
+        this.maxLockSeconds = bytes(redisService.ttl(RedisNamespace.LOGIN_LOCK)
+                .toSeconds());
+        this.failureMemorySeconds = bytes(redisService.ttl(RedisNamespace.LOGIN_FAILURES)
+                .toSeconds());
+        Duration maxLock = redisService.ttl(RedisNamespace.LOGIN_LOCK);
+        this.lockedUntil = Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(maxLock)
+                .build();
+        this.lockoutCounter = Counter.builder("login.lockouts")
+                .description("Accounts locked after repeated failed logins")
+                .register(meterRegistry);
+        this.blockedCounter = Counter.builder("login.lockout.blocked")
+                .description("Login attempts rejected because the account was locked")
+                .register(meterRegistry);
+    }
+
+    public void ensureNotLocked(String account) {
+        long now = System.currentTimeMillis();
+        Long until = lockedUntil.getIfPresent(account);
+        if (until == null) {
+            Duration remaining;
+            try {
+                remaining = locks.remainingTtl(account);
+            } catch (RuntimeException e) {
+                log.warn("Login lockout check failed for {}: {}", account, e.getMessage());
+                return;
+            }
+            if (remaining == null) {
+                return;
+            }
+            until = now + remaining.toMillis();
+            lockedUntil.put(account, until);
+        }
+        if (until > now) {
+            blockedCounter.increment();
+            throw new RateLimitException(ErrorCode.ACCOUNT_LOCKED, Duration.ofMillis(until - now));
+        }
+        lockedUntil.invalidate(account);
+    }
+
+    public void recordFailure(String account) {
+        Long lockSeconds;
+        try {
+            lockSeconds = redisService.execute(failureScript, List.of(failures.key(account), locks.key(account)),
+                    threshold, baseLockSeconds, maxLockSeconds, failureMemorySeconds);
+        } catch (RuntimeException e) {
+            log.warn("Could not record failed login for {}: {}", account, e.getMessage());
+            return;
+        }
+        if (lockSeconds != null && lockSeconds > 0) {
+            lockedUntil.put(account, System.currentTimeMillis() + lockSeconds * 1000);
+            lockoutCounter.increment();
+            log.warn("Account {} locked for {}s after repeated failed logins", account, lockSeconds);
+        }
+    }
+
+    public void recordSuccess(String account) {
+        try {
+            failures.delete(account);
+        } catch (RuntimeException e) {
+            log.warn("Could not reset failed logins for {}: {}", account, e.getMessage());
+        }
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value)
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,9 @@
+package com.mochi.backend.security.ratelimit;
+
+public record RateLimitDecision(boolean allowed, long retryAfterMs) {
+    public static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 0);
+
+    public static RateLimitDecision rejected(long retryAfterMs) {
+        return new RateLimitDecision(false, retryAfterMs);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mochi.backend.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.dto.api.ApiResponse;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RateLimitPolicy;
+import com.mochi.backend.enums.RateLimitScope;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// chan som theo IP va theo endpoint truoc khi toi JwtAuthenticationFilter va controller
+// gioi han theo tai khoan can doc body nen nam trong AuthService
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    //    chi bat khi app dung sau proxy tin cay, neu khong client tu dat header de doi IP
+    @Value("${rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RateLimitPolicy policy = "POST".equals(request.getMethod())
+                ? RateLimitPolicy.fromPath(request.getRequestURI()
+                .substring(request.getContextPath()
+                        .length()))
+                : null;
+        if (policy != null) {
+            RateLimitDecision decision = rateLimiter.tryAcquire(policy, RateLimitScope.IP, clientIp(request));
+            if (decision.allowed()) {
+                decision = rateLimiter.tryAcquireEndpoint(policy);
+            }
+            if (!decision.allowed()) {
+                reject(response, decision);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma < 0 ? forwardedFor : forwardedFor.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, RateLimitDecision decision) throws IOException {
+        ErrorCode errorCode = ErrorCode.TOO_MANY_REQUESTS;
+        response.setStatus(errorCode.getHttpStatus()
+                .value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (decision.retryAfterMs() + 999) / 1000)));
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.failure(errorCode));
+    }
+}
@@ -0,0 +1,172 @@
+package com.mochi.backend.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RateLimitPolicy;
+import com.mochi.backend.enums.RateLimitScope;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.RateLimitException;
+import com.mochi.backend.service.RedisService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// token bucket nam trong redis (lua script), moi node lay truoc mot "lease" vai token va tieu dan o local
+// client binh thuong phan lon request chi cham vao lease local, bucket het token thi node nho thoi diem bi chan
+// redis loi thi cho qua (fail open), khong de gioi han request lam sap dang nhap
+@Slf4j
+@Component
+public class RateLimiter {
+    private static final String ENDPOINT_ID = "*";
+
+    private final RedisService redisService;
+    private final RedisScript<List> bucketScript;
+    private final boolean enabled;
+    private final Bucket[][] buckets;
+    private final Cache<String, Lease> leases;
+    private final Counter[][][] decisions;
+    private final Timer redisTimer;
+
+    public RateLimiter(RedisService redisService,
+                       MeterRegistry meterRegistry,
+                       Environment environment,
+                       @Value("${rate-limit.enabled:true}") boolean enabled,
+                       @Value("${rate-limit.lease.max-size:20}") int maxLeaseSize,
+                       @Value("${rate-limit.lease.ttl:10s}") Duration leaseTtl,
+                       @Value("${rate-limit.near-cache.max-size:100000}") long nearCacheSize) {
+        this.redisService = redisService;
+        this.bucketScript = RedisScript.of(new ClassPathResource("redis/token_bucket.lua"), List.class);
+        this.enabled = enabled;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(leaseTtl)
+                .build();
+
+        RateLimitPolicy[] policies = RateLimitPolicy.values();
+        RateLimitScope[] scopes = RateLimitScope.values();
+        Outcome[] outcomes = Outcome.values();
+        this.buckets = new Bucket[policies.length][scopes.length];
+        this.decisions = new Counter[policies.length][scopes.length][outcomes.length];
+        for (RateLimitPolicy policy : policies) {
+            String prefix = "rate-limit." + policy.getPropertyName() + ".";
+            Duration window = environment.getProperty(prefix + "window", Duration.class, Duration.ofMinutes(1));
+            for (RateLimitScope scope : scopes) {
+                int capacity = environment.getProperty(prefix + scope.getPropertyName(), Integer.class,
+                        policy.getDefaultCapacity(scope));
+                //    bucket nho thi lease nho, tranh mot node giu het token cua bucket
+                int leaseSize = Math.max(1, Math.min(maxLeaseSize, capacity / 10));
+                buckets[policy.ordinal()][scope.ordinal()] = new Bucket(policy.getPropertyName() + ":" + scope.getPropertyName() + ":",
+                        bytes(capacity), bytes(window.toMillis()), bytes(leaseSize));
+                for (Outcome outcome : outcomes) {
+                    decisions[policy.ordinal()][scope.ordinal()][outcome.ordinal()] = Counter.builder("ratelimit.decisions")
+                            .tag("policy", policy.getPropertyName())
+                            .tag("scope", scope.getPropertyName())
+                            .tag("outcome", outcome.name()
+                                    .toLowerCase(Locale.ROOT))
+                            .register(meterRegistry);
+                }
+            }
+        }
+        this.redisTimer = Timer.builder("ratelimit.redis")
+                .description("Token bucket script round trips")
+                .register(meterRegistry);
+    }
+
+    public RateLimitDecision tryAcquire(RateLimitPolicy policy, RateLimitScope scope, String id) {
+        if (!enabled) {
+            return RateLimitDecision.ALLOWED;
+        }
+        Bucket bucket = buckets[policy.ordinal()][scope.ordinal()];
+        String key = bucket.prefix() + id;
+        Counter[] counters = decisions[policy.ordinal()][scope.ordinal()];
+
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            long now = System.nanoTime();
+            if (lease.blockedUntilNanos - now > 0) {
+                counters[Outcome.REJECTED_LOCAL.ordinal()].increment();
+                return RateLimitDecision.rejected(Duration.ofNanos(lease.blockedUntilNanos - now)
+                        .toMillis());
+            }
+            if (lease.remaining.getAndDecrement() > 0) {
+                counters[Outcome.ALLOWED_LOCAL.ordinal()].increment();
+                return RateLimitDecision.ALLOWED;
+            }
+        }
+
+        List<?> result;
+        try {
+            result = redisTimer.record(() -> redisService.execute(bucketScript, List.of(RedisNamespace.RATE_LIMIT.key(key)),
+                    bucket.capacity(), bucket.window(), bucket.leaseSize()));
+        } catch (RuntimeException e) {
+            log.warn("Rate limit check failed for {}, allowing request: {}", key, e.getMessage());
+            counters[Outcome.ERROR.ordinal()].increment();
+            return RateLimitDecision.ALLOWED;
+        }
+        long granted = result == null ? 0 : ((Number) result.get(0)).longValue();
+        long retryAfterMs = result == null ? 0 : ((Number) result.get(1)).longValue();
+        if (granted > 0) {
+            //    mot token dung ngay cho request nay, phan con lai de cho cac request sau
+            leases.put(key, new Lease(new AtomicInteger((int) granted - 1), System.nanoTime()));
+            counters[Outcome.ALLOWED.ordinal()].increment();
+            return RateLimitDecision.ALLOWED;
+        }
+        leases.put(key, new Lease(new AtomicInteger(), System.nanoTime() + Duration.ofMillis(retryAfterMs)
+                .toNanos()));
+        counters[Outcome.REJECTED.ordinal()].increment();
+        return RateLimitDecision.rejected(retryAfterMs);
+    }
+
+    public RateLimitDecision tryAcquireEndpoint(RateLimitPolicy policy) {
+        return tryAcquire(policy, RateLimitScope.ENDPOINT, ENDPOINT_ID);
+    }
+
+    //    gioi han theo tai khoan chi biet duoc sau khi doc body nen AuthService tu goi
+    public void checkAccount(RateLimitPolicy policy, String account) {
+        if (account == null) {
+            return;
+        }
+        RateLimitDecision decision = tryAcquire(policy, RateLimitScope.ACCOUNT, normalize(account));
+        if (!decision.allowed()) {
+            throw new RateLimitException(ErrorCode.TOO_MANY_REQUESTS, Duration.ofMillis(decision.retryAfterMs()));
+        }
+    }
+
+    public static String normalize(String account) {
+        return account.trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value)
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private enum Outcome {
+        ALLOWED,
+        ALLOWED_LOCAL,
+        REJECTED,
+        REJECTED_LOCAL,
+        ERROR,
+    }
+
+    private record Bucket(String prefix, byte[] capacity, byte[] window, byte[] leaseSize) {
+    }
+
+    //    blockedUntilNanos <= now: lease dang dung duoc
+    private record Lease(AtomicInteger remaining, long blockedUntilNanos) {
+    }
+}
@@ -1,16 +1,13 @@
 package com.mochi.backend.security.userDetails;
 
-import com.mochi.backend.model.Role;
 import com.mochi.backend.model.User;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Getter
 @RequiredArgsConstructor
@@ -19,12 +16,12 @@ public class CustomUserDetails implements UserDetails {
 
     private final User user;
 
+    //    lay tu RoleRegistry.authoritiesOf(user.getRoleMask())
+    private final Set<GrantedAuthority> authorities;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<Role> roles = user.getRoles();
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toSet());
+        return authorities;
     }
 
     @Override
@@ -56,4 +53,4 @@ public class CustomUserDetails implements UserDetails {
     public boolean isCredentialsNonExpired() {
         return UserDetails.super.isCredentialsNonExpired();
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,64 @@
 package com.mochi.backend.security.userDetails;
 
+import com.mochi.backend.model.User;
+import com.mochi.backend.repository.UserPrincipalView;
 import com.mochi.backend.repository.UserRepository;
+import com.mochi.backend.service.RoleRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final RoleRegistry roleRegistry;
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        return userRepository.findByUsername(usernameOrEmail)
-                .or(() -> userRepository.findByEmail(usernameOrEmail))
-                .map(CustomUserDetails::new)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail));
+        return principalCache.get(usernameOrEmail, this::loadPrincipal);
     }
-}
 
+    //    DaoAuthenticationProvider goi khi dang nhap thanh cong ma hash cu khac thuat toan/cost dang cau hinh
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        if (user instanceof CustomUserDetails customUserDetails) {
+            principalCache.evict(customUserDetails.getUser());
+        }
+        return loadUserByUsername(user.getUsername());
+    }
+
+    private CustomUserDetails loadPrincipal(String usernameOrEmail) {
+        List<UserPrincipalView> rows = userRepository.findPrincipalByUsernameOrEmail(usernameOrEmail);
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("User not found: " + usernameOrEmail);
+        }
+        //    neu chuoi vua trung username cua user nay vua trung email cua user khac thi uu tien username
+        UserPrincipalView first = rows.get(0);
+        for (UserPrincipalView row : rows) {
+            if (usernameOrEmail.equals(row.getUsername())) {
+                first = row;
+                break;
+            }
+        }
+        User user = User.builder()
+                .id(first.getId())
+                .username(first.getUsername())
+                .email(first.getEmail())
+                .password(first.getPassword())
+                .enabled(Boolean.TRUE.equals(first.getEnabled()))
+                .firstname(first.getFirstname())
+                .lastname(first.getLastname())
+                .avatarUrl(first.getAvatarUrl())
+                .roleMask(first.getRoleMask() == null ? 0 : first.getRoleMask())
+                .build();
+        return new CustomUserDetails(user, roleRegistry.authoritiesOf(user.getRoleMask()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.mochi.backend.security.userDetails;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// moi to hop role chi tao mot Set<GrantedAuthority> duy nhat va dung lai cho moi request
+public final class GrantedAuthorities {
+
+    private static final int MAX_COMBINATIONS = 256;
+    private static final Map<Set<String>, Set<GrantedAuthority>> INTERNED = new ConcurrentHashMap<>();
+
+    private GrantedAuthorities() {
+    }
+
+    public static Set<GrantedAuthority> of(Collection<String> roleNames) {
+        Set<String> key = roleNames instanceof Set<String> set ? set : Set.copyOf(roleNames);
+        Set<GrantedAuthority> authorities = INTERNED.get(key);
+        if (authorities != null) {
+            return authorities;
+        }
+        authorities = key.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableSet());
+        if (INTERNED.size() >= MAX_COMBINATIONS) {
+            return authorities;
+        }
+        Set<GrantedAuthority> previous = INTERNED.putIfAbsent(Set.copyOf(key), authorities);
+        return previous != null ? previous : authorities;
+    }
+}
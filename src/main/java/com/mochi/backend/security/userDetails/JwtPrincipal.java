@@ -0,0 +1,32 @@
+package com.mochi.backend.security.userDetails;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Set;
+import java.util.UUID;
+
+// principal nhe duoc dung khi xac thuc bang access token, lay thang tu claims khong can query db
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JwtPrincipal implements UserDetails {
+    String username;
+    Set<GrantedAuthority> authorities;
+    UUID tokenId;
+    UUID userId;
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
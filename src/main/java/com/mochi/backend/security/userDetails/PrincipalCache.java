@@ -0,0 +1,80 @@
+package com.mochi.backend.security.userDetails;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mochi.backend.model.User;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+
+// cache principal theo chuoi dang nhap (username hoac email), ttl ngan
+// khi user doi mat khau/role/trang thai thi xoa o node hien tai va bao cac node khac qua redis pub/sub
+@Slf4j
+@Component
+public class PrincipalCache implements MessageListener {
+    private static final String CHANNEL = "principal-evict";
+
+    private final Cache<String, CustomUserDetails> cache;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public PrincipalCache(StringRedisTemplate redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:30s}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public CustomUserDetails get(String login, Function<String, CustomUserDetails> loader) {
+        return cache.get(login, loader);
+    }
+
+    public void evict(User user) {
+        invalidate(user.getUsername(), user.getEmail());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, user.getUsername() + "\n" + user.getEmail());
+        } catch (Exception e) {
+            log.warn("Could not publish principal eviction for {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('\n');
+        if (separator < 0) {
+            invalidate(body, null);
+        } else {
+            invalidate(body.substring(0, separator), body.substring(separator + 1));
+        }
+    }
+
+    private void invalidate(String username, String email) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+}
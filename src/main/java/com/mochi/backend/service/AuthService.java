@@ -3,19 +3,25 @@ package com.mochi.backend.service;
 import com.mochi.backend.dto.auth.*;
 import com.mochi.backend.enums.ErrorCode;
 import com.mochi.backend.enums.Provider;
+import com.mochi.backend.enums.RateLimitPolicy;
+import com.mochi.backend.enums.RedisNamespace;
 import com.mochi.backend.enums.RoleType;
 import com.mochi.backend.exception.AppException;
 import com.mochi.backend.mapper.UserMapper;
-import com.mochi.backend.model.RevokedToken;
 import com.mochi.backend.model.User;
 import com.mochi.backend.security.email.EmailService;
 import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.ParsedToken;
+import com.mochi.backend.security.ratelimit.LoginLockoutService;
+import com.mochi.backend.security.ratelimit.RateLimiter;
 import com.mochi.backend.security.userDetails.CustomUserDetails;
 import com.mochi.backend.security.userDetails.CustomUserDetailsService;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
 import com.mochi.backend.utils.CookieUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -23,10 +29,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -43,7 +48,10 @@ public class AuthService {
     private final RevokedTokenService revokedTokenService;
     private final OtpService otpService;
     private final RedisService redisService;
-    private final PasswordEncoder passwordEncoder;
+    private final RateLimiter rateLimiter;
+    private final LoginLockoutService loginLockoutService;
+    private final RefreshTokenService refreshTokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public void register(RegisterRequest request) {
 
@@ -58,28 +66,28 @@ public class AuthService {
                         .trim())
                 .email(request.getEmail()
                         .trim())
-                .password(passwordEncoder.encode(request.getPassword()
-                        .trim()))
                 .firstname(request.getFirstname()
                         .trim())
                 .lastname(request.getLastname()
                         .trim())
-                .roles(
-                        Set.of(roleService.findByName(RoleType.ROLE_USER.name())
-                                .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_FOUND)))
-                )
+                .roleMask(roleService.getRoleMask(RoleType.ROLE_USER.name()))
                 .provider(Provider.LOCAL.name())
                 .build();
+        user.setRawPassword(request.getPassword()
+                .trim());
 
         try {
             userService.saveUser(user);
             emailService.sendVerificationEmail(user.getEmail(), otpService.generateCode(user.getEmail()));
+        } catch (AppException e) {
+            throw e;
         } catch (Exception e) {
             throw new AppException(ErrorCode.INTERNAL_SERVER, List.of(e.getMessage()));
         }
     }
 
     public void verifyEmail(VerifyEmailRequest request) {
+        rateLimiter.checkAccount(RateLimitPolicy.VERIFY_EMAIL, request.getEmail());
         Optional<User> optionalUser = userService.findByEmail(request.getEmail());
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
@@ -94,14 +102,16 @@ public class AuthService {
     }
 
     public VerifyOtpResponse verifyOtp(@Valid VerifyEmailRequest request) {
+        rateLimiter.checkAccount(RateLimitPolicy.VERIFY_OTP, request.getEmail());
         Optional<User> optionalUser = userService.findByEmail(request.getEmail());
         if (optionalUser.isPresent()) {
             otpService.verifyOtp(optionalUser.get()
                     .getEmail(), request.getVerificationCode());
             String resetToken = UUID.randomUUID()
                     .toString();
-            redisService.saveValue("resetToken:" + resetToken, optionalUser.get()
-                    .getEmail());
+            redisService.store(RedisNamespace.RESET_TOKEN, RedisCodec.STRING)
+                    .set(resetToken, optionalUser.get()
+                            .getEmail());
             return VerifyOtpResponse.builder()
                     .resetToken(resetToken)
                     .build();
@@ -111,6 +121,7 @@ public class AuthService {
     }
 
     public void reSendVerificationCode(SendVerificationCodeRequest request) {
+        rateLimiter.checkAccount(RateLimitPolicy.RESEND_CODE, request.getEmail());
         Optional<User> optionalUser = userService.findByEmail(request.getEmail());
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
@@ -125,6 +136,10 @@ public class AuthService {
 
 
     public AuthResponse login(LoginRequest request) {
+        String login = RateLimiter.normalize(request.getUsernameOrEmail());
+        rateLimiter.checkAccount(RateLimitPolicy.LOGIN, login);
+        String account = lockoutAccount(request.getUsernameOrEmail(), login);
+        loginLockoutService.ensureNotLocked(account);
         try {
             Authentication auth = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -132,23 +147,22 @@ public class AuthService {
                             request.getPassword()
                     )
             );
+            loginLockoutService.recordSuccess(account);
             SecurityContextHolder.getContext()
                     .setAuthentication(auth);
             CustomUserDetails userDetails = (CustomUserDetails) auth.getPrincipal();
             User user = userDetails.getUser();
-            System.out.println(SecurityContextHolder.getContext()
-                    .getAuthentication()
-                    .getAuthorities());
             return AuthResponse.builder()
                     .accessToken(jwtService.generateAccessToken(userDetails))
                     .expiresInMS(jwtService.getAccessTokenExpiry())
-                    .refreshToken(jwtService.generateRefreshToken(userDetails))
+                    .refreshToken(refreshTokenService.issue(userDetails))
                     .user(
                             userMapper.toDto(user)
                     )
 
                     .build();
         } catch (BadCredentialsException e) {
+            loginLockoutService.recordFailure(account);
             throw new AppException(ErrorCode.LOGIN_FAIL);
 
         } catch (DisabledException e) {
@@ -157,14 +171,32 @@ public class AuthService {
     }
 
 
+    //    username va email cua cung mot tai khoan phai dung chung mot bo dem khoa nen dem theo id,
+    //    chuoi dang nhap chi dung cho tai khoan khong ton tai. principal vua nap nam trong PrincipalCache
+    //    nen authenticate ngay sau do khong hoi lai db
+    private String lockoutAccount(String usernameOrEmail, String login) {
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(usernameOrEmail);
+            if (userDetails instanceof CustomUserDetails customUserDetails) {
+                return "id:" + customUserDetails.getUser()
+                        .getId();
+            }
+        } catch (UsernameNotFoundException ignored) {
+        }
+        return "login:" + login;
+    }
+
     public RefreshTokenResponse refreshToken(String token) {
         if (!jwtService.isRefreshTokenValid(token)) {
             throw new AppException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
-        String username = jwtService.extractUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        ParsedToken parsed = jwtService.parseToken(token);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(parsed.getSubject());
+        // refresh token cu het hieu luc ngay khi token moi duoc cap
+        String refreshToken = refreshTokenService.rotate(parsed, userDetails);
         return RefreshTokenResponse.builder()
                 .accessToken(jwtService.generateAccessToken(userDetails))
+                .refreshToken(refreshToken)
                 .expiresInMS(jwtService.getAccessTokenExpiry())
                 .build();
     }
@@ -175,44 +207,67 @@ public class AuthService {
             throw new AppException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
 
-        UUID jti = jwtService.extractJti(refreshToken);
-        Date expiryDate = jwtService.extractExpiration(refreshToken);
-        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiryDate.toInstant(), TimeZone.getDefault()
-                .toZoneId());
-        if (revokedTokenService.existsByJti(jti)) {
-            throw new AppException(ErrorCode.TOKEN_EXISTS);
-        }
-        revokedTokenService.save(
-                RevokedToken.builder()
-                        .jti(jti)
-                        .expiresAt(expiresAt)
-                        .revokedAt(LocalDateTime.now())
-                        .build()
-        );
+        refreshTokenService.revoke(jwtService.parseToken(refreshToken));
+        revokeAccessToken(request);
         SecurityContextHolder.clearContext();
     }
 
+    // dang xuat moi phien cua user hien tai: moi refresh token da cap deu khong xoay duoc nua
+    public void logoutAll(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext()
+                .getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        refreshTokenService.revokeAll(authentication.getName());
+        revokeAccessToken(request);
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            eventPublisher.publishEvent(new UserSessionsRevokedEvent(principal.getUserId()));
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private void revokeAccessToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                ParsedToken accessToken = jwtService.parseToken(authHeader.substring(7)
+                        .trim());
+                if (jwtService.isAccessTokenValid(accessToken)) {
+                    revokedTokenService.revoke(accessToken.getJti(), accessToken.getExpiration());
+                }
+            } catch (AppException e) {
+                // access token da het han hoac khong hop le thi khong can thu hoi
+            }
+        }
+    }
+
     public void forgotPassword(SendVerificationCodeRequest request) {
+        rateLimiter.checkAccount(RateLimitPolicy.FORGOT_PASSWORD, request.getEmail());
         Optional<User> optionalUser = userService.findByEmail(request.getEmail());
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
-            emailService.sendVerificationEmail(user.getEmail(), otpService.generateCode(user.getEmail()));
+            emailService.sendPasswordResetEmail(user.getEmail(), otpService.generateCode(user.getEmail()));
         } else {
             throw new AppException(ErrorCode.EMAIL_NOT_REGISTERED);
         }
     }
 
     public void resetPassword(@Valid ResetPasswordRequest request) {
-        String storedEmail = redisService.getValue("resetToken:" + request.getResetToken());
+        // reset token chi dung mot lan: GETDEL tranh hai request cung dung mot token
+        String storedEmail = redisService.store(RedisNamespace.RESET_TOKEN, RedisCodec.STRING)
+                .getAndDelete(request.getResetToken());
         if (storedEmail == null) {
             throw new AppException(ErrorCode.INVALID_RESET_TOKEN);
         }
         Optional<User> optionalUser = userService.findByEmail(storedEmail);
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
-            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+            user.setRawPassword(request.getNewPassword());
             userService.saveUser(user);
-            redisService.deleteValue("resetToken:" + request.getResetToken());
+            // mat khau da doi qua email: cac phien dang mo co the cua nguoi khac
+            refreshTokenService.revokeAll(user.getUsername());
+            eventPublisher.publishEvent(new UserSessionsRevokedEvent(user.getId()));
         } else {
             throw new AppException(ErrorCode.EMAIL_NOT_REGISTERED);
         }
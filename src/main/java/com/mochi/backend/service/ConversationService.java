@@ -0,0 +1,188 @@
+package com.mochi.backend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.mochi.backend.dto.chat.ConversationDto;
+import com.mochi.backend.dto.chat.ConversationPageResponse;
+import com.mochi.backend.dto.chat.CreateConversationRequest;
+import com.mochi.backend.enums.ConversationType;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.mapper.ChatMapper;
+import com.mochi.backend.model.Conversation;
+import com.mochi.backend.model.Participant;
+import com.mochi.backend.repository.ConversationRepository;
+import com.mochi.backend.repository.ParticipantRepository;
+import com.mochi.backend.repository.UserRepository;
+import com.mochi.backend.utils.CursorUtils;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+// thanh vien cua conversation duoc cache ngan han: moi tin nhan/typing deu can danh sach nguoi nhan
+@Service
+public class ConversationService {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ConversationRepository conversationRepository;
+    private final ParticipantRepository participantRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ChatMapper chatMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final LoadingCache<Long, List<UUID>> members;
+
+    public ConversationService(ConversationRepository conversationRepository,
+                               ParticipantRepository participantRepository,
+                               UserRepository userRepository,
+                               UserService userService,
+                               SnowflakeIdGenerator idGenerator,
+                               ChatMapper chatMapper,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${chat.members-cache.max-size:100000}") long membersCacheSize,
+                               @Value("${chat.members-cache.ttl:1m}") Duration membersCacheTtl) {
+        this.conversationRepository = conversationRepository;
+        this.participantRepository = participantRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.idGenerator = idGenerator;
+        this.chatMapper = chatMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.members = Caffeine.newBuilder()
+                .maximumSize(membersCacheSize)
+                .expireAfterWrite(membersCacheTtl)
+                .build(participantRepository::findUserIdsByConversationId);
+    }
+
+    public ConversationDto createConversation(Authentication authentication, CreateConversationRequest request) {
+        UUID creator = userService.getCurrentUserId(authentication);
+        Set<UUID> memberIds = new LinkedHashSet<>(request.getMemberIds());
+        memberIds.remove(creator);
+        if (memberIds.isEmpty() || (request.getType() == ConversationType.DIRECT && memberIds.size() != 1)
+                || userRepository.countByIdIn(memberIds) != memberIds.size()) {
+            throw new AppException(ErrorCode.CONVERSATION_MEMBERS_INVALID);
+        }
+        memberIds.add(creator);
+        Conversation conversation = request.getType() == ConversationType.DIRECT
+                ? findOrCreateDirect(creator, memberIds)
+                : create(Conversation.builder()
+                .id(idGenerator.nextId())
+                .type(ConversationType.GROUP)
+                .name(request.getName() == null ? null : request.getName()
+                        .trim())
+                .createdBy(creator)
+                .build(), memberIds);
+        ConversationDto dto = chatMapper.toDto(conversation);
+        dto.setMemberIds(List.copyOf(memberIds));
+        return dto;
+    }
+
+    public ConversationPageResponse getConversations(Authentication authentication, Integer limit, String cursor) {
+        UUID userId = userService.getCurrentUserId(authentication);
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // lay them mot dong de biet con trang sau hay khong
+        List<Participant> rows = cursor == null || cursor.isEmpty()
+                ? participantRepository.findByUserIdOrderByConversationIdDesc(userId, Limit.of(size + 1))
+                : participantRepository.findByUserIdAndConversationIdLessThanOrderByConversationIdDesc(userId,
+                CursorUtils.decodeId(cursor), Limit.of(size + 1));
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = String.valueOf(rows.get(size - 1)
+                    .getConversationId());
+        }
+        Map<Long, Conversation> conversations = new HashMap<>();
+        conversationRepository.findAllById(rows.stream()
+                        .map(Participant::getConversationId)
+                        .toList())
+                .forEach(conversation -> conversations.put(conversation.getId(), conversation));
+        List<ConversationDto> items = new ArrayList<>(rows.size());
+        for (Participant row : rows) {
+            Conversation conversation = conversations.get(row.getConversationId());
+            if (conversation != null) {
+                ConversationDto dto = chatMapper.toDto(conversation);
+                dto.setLastReadMessageId(row.getLastReadMessageId());
+                items.add(dto);
+            }
+        }
+        return ConversationPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public List<UUID> getMemberIds(Long conversationId) {
+        return members.get(conversationId);
+    }
+
+    //    kiem tra bang danh sach thanh vien da cache, khong query moi lan
+    public List<UUID> requireMember(Long conversationId, UUID userId) {
+        if (conversationId == null) {
+            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
+        }
+        List<UUID> memberIds = members.get(conversationId);
+        if (memberIds.isEmpty()) {
+            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
+        }
+        if (!memberIds.contains(userId)) {
+            throw new AppException(ErrorCode.CONVERSATION_FORBIDDEN);
+        }
+        return memberIds;
+    }
+
+    public void markRead(Long conversationId, UUID userId, Long messageId) {
+        requireMember(conversationId, userId);
+        participantRepository.advanceLastRead(conversationId, userId, messageId);
+    }
+
+    //    hai user cung tao 1:1 mot luc: unique direct_key chi cho mot ban ghi, ben thua doc lai ban ghi do
+    private Conversation findOrCreateDirect(UUID creator, Set<UUID> memberIds) {
+        String directKey = directKey(memberIds);
+        Optional<Conversation> existing = conversationRepository.findByDirectKey(directKey);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            return create(Conversation.builder()
+                    .id(idGenerator.nextId())
+                    .type(ConversationType.DIRECT)
+                    .directKey(directKey)
+                    .createdBy(creator)
+                    .build(), memberIds);
+        } catch (DataIntegrityViolationException e) {
+            return conversationRepository.findByDirectKey(directKey)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Conversation create(Conversation conversation, Set<UUID> memberIds) {
+        Conversation saved = transactionTemplate.execute(status -> {
+            Conversation created = conversationRepository.save(conversation);
+            participantRepository.saveAll(memberIds.stream()
+                    .map(userId -> Participant.builder()
+                            .conversationId(created.getId())
+                            .userId(userId)
+                            .build())
+                    .toList());
+            return created;
+        });
+        members.invalidate(conversation.getId());
+        return saved;
+    }
+
+    private static String directKey(Set<UUID> memberIds) {
+        Iterator<UUID> iterator = memberIds.iterator();
+        UUID first = iterator.next();
+        UUID second = iterator.next();
+        return first.compareTo(second) < 0 ? first + ":" + second : second + ":" + first;
+    }
+}
@@ -0,0 +1,377 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.model.Message;
+import com.mochi.backend.repository.MessageWriteRepository;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// ghi tin nhan kieu write-behind: send chi XADD vao stream cua shard (msg:stream:{shard}) roi tra ACK ngay
+// moi shard chi mot node flush tai mot thoi diem (lease trong redis): doc theo thu tu stream, INSERT batch trong mot transaction, roi XDEL
+// mot conversation luon thuoc mot shard nen tin nhan cua no ghi dung thu tu; flush lai sau loi thi ON CONFLICT bo qua dong da co
+// dong bi postgres tu choi vi du lieu (khong phai loi ket noi) duoc chuyen sang msg:dead:{shard} de shard khong ket mai o dau stream
+// stream dai qua chat.ingest.max-backlog (postgres khong theo kip/sap) thi SEND bi tu choi (CHAT_BUSY) thay vi day redis toi OOM
+// do ben cua buffer bang cau hinh persistence cua redis (appendonly); redis loi thi send ghi thang xuong postgres
+@Slf4j
+@Service
+public class MessageIngestService {
+    private static final byte[] NO_CLIENT_MESSAGE_ID = new byte[0];
+    private static final byte[] MESSAGE_FIELD = "m".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_FIELD = "error".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final RedisService redisService;
+    private final MessageWriteRepository messageWriteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisScript<byte[]> appendScript;
+    private final RedisScript<Long> leaseScript;
+    private final byte[] nodeId;
+    private final long dedupTtl;
+    private final byte[] maxBacklog;
+    private final byte[] leaseMs;
+    private final int shards;
+    private final ExecutorService workers;
+    private volatile boolean running;
+
+    private final Counter appendedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+    private final Counter flushedCounter;
+    private final Counter flushFailureCounter;
+    private final Counter deadCounter;
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+
+    @Value("${chat.ingest.batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${chat.ingest.max-delay-ms:100}")
+    private long maxDelayMs;
+
+    @Value("${chat.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    public MessageIngestService(RedisService redisService,
+                                MessageWriteRepository messageWriteRepository,
+                                TransactionTemplate transactionTemplate,
+                                SnowflakeIdGenerator idGenerator,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.ingest.shards:16}") int shards,
+                                @Value("${chat.ingest.max-backlog:100000}") long maxBacklog) {
+        this.redisService = redisService;
+        this.messageWriteRepository = messageWriteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.appendScript = RedisScript.of(new ClassPathResource("redis/message_append.lua"), byte[].class);
+        this.leaseScript = RedisScript.of(new ClassPathResource("redis/shard_lease.lua"), Long.class);
+        this.nodeId = bytes(idGenerator.getNodeId());
+        this.dedupTtl = redisService.ttl(RedisNamespace.MESSAGE_DEDUP)
+                .toMillis();
+        this.leaseMs = bytes(redisService.ttl(RedisNamespace.MESSAGE_LEASE)
+                .toMillis());
+        this.shards = shards;
+        this.maxBacklog = bytes(maxBacklog);
+        this.workers = Executors.newFixedThreadPool(shards, Thread.ofPlatform()
+                .name("message-flush-", 0)
+                .daemon()
+                .factory());
+
+        this.appendedCounter = Counter.builder("message.ingest.appended")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("message.ingest.duplicates")
+                .description("Sends answered with an earlier message of the same clientMessageId")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("message.ingest.rejected")
+                .description("Sends refused because the shard stream passed chat.ingest.max-backlog")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("message.flush.rows")
+                .register(meterRegistry);
+        this.flushFailureCounter = Counter.builder("message.flush.failures")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("message.flush.dead")
+                .description("Messages PostgreSQL rejected, moved to the dead-letter stream")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("message.flush.batch")
+                .description("Messages inserted in one transaction")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("message.flush.latency")
+                .description("Time to insert one batch into PostgreSQL")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("message.flush.lag")
+                .description("Age of the oldest message in a batch when it is committed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int shard = 0; shard < shards; shard++) {
+            int owned = shard;
+            workers.submit(() -> runShard(owned));
+        }
+    }
+
+    //    lease khong tra lai khi tat, node khac nhan shard sau khi lease het han
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    //    tra ve tin nhan duoc luu: chinh message, hoac tin gui truoc do cung clientMessageId
+    public Message append(Message message) {
+        String shard = Integer.toString(shardOf(message.getConversationId()));
+        List<byte[]> keys = new ArrayList<>(2);
+        keys.add(RedisNamespace.MESSAGE_STREAM.key(shard));
+        if (message.getClientMessageId() != null) {
+            keys.add(dedupKey(shard, message));
+        }
+        byte[] existing = redisService.execute(appendScript, keys, encode(message), maxBacklog);
+        if (existing != null && existing.length == 0) {
+            rejectedCounter.increment();
+            throw new AppException(ErrorCode.CHAT_BUSY);
+        }
+        if (existing != null) {
+            duplicateCounter.increment();
+            return decode(existing);
+        }
+        appendedCounter.increment();
+        return message;
+    }
+
+    //    id snowflake cua conversation co cac bit thap gan nhu luon bang 0, tron truoc khi chia shard
+    private int shardOf(long conversationId) {
+        return (int) Math.floorMod((conversationId * 0x9E3779B97F4A7C15L) >>> 32, (long) shards);
+    }
+
+    //    cung pham vi voi uk_messages_conversation_sender_client_message_id: trung o conversation khac la tin moi
+    private static byte[] dedupKey(String shard, Message message) {
+        return RedisNamespace.MESSAGE_DEDUP.key(shard,
+                message.getConversationId() + ":" + message.getSenderId() + ":" + message.getClientMessageId());
+    }
+
+    private void runShard(int shard) {
+        byte[] leaseKey = RedisNamespace.MESSAGE_LEASE.key(Integer.toString(shard));
+        long leaseRetryMs = redisService.ttl(RedisNamespace.MESSAGE_LEASE)
+                .toMillis() / 2;
+        while (running) {
+            try {
+                Long leased = redisService.execute(leaseScript, List.of(leaseKey), nodeId, leaseMs);
+                if (leased == null || leased != 1) {
+                    Thread.sleep(leaseRetryMs);
+                    continue;
+                }
+                Thread.sleep(flushOnce(Integer.toString(shard)));
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                return;
+            } catch (Exception e) {
+                flushFailureCounter.increment();
+                log.warn("Flushing message shard {} failed: {}", shard, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread()
+                            .interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    //    flush khi du batch-size hoac tin cu nhat da cho max-delay-ms; tra ve thoi gian nghi truoc lan doc sau
+    long flushOnce(String shard) {
+        byte[] streamKey = RedisNamespace.MESSAGE_STREAM.key(shard);
+        List<ByteRecord> records = read(streamKey);
+        if (records.isEmpty()) {
+            return maxDelayMs;
+        }
+        long oldest = records.getFirst()
+                .getId()
+                .getTimestamp();
+        long waited = System.currentTimeMillis() - oldest;
+        if (records.size() < maxBatchSize && running && waited < maxDelayMs) {
+            return maxDelayMs - waited;
+        }
+        List<Message> messages = new ArrayList<>(records.size());
+        byte[][] bodies = new byte[records.size()][];
+        RecordId[] ids = new RecordId[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            ByteRecord record = records.get(i);
+            ids[i] = record.getId();
+            bodies[i] = record.getValue()
+                    .values()
+                    .iterator()
+                    .next();
+            messages.add(decode(bodies[i]));
+        }
+        Timer.Sample sample = Timer.start();
+        Map<Integer, String> rejected = insert(messages);
+        sample.stop(flushTimer);
+        //    chet giua insert va XDEL thi lan sau insert lai, ON CONFLICT (khoa chinh) bo qua
+        //    key chong trung khong co ttl khi con trong buffer, ttl chi bat dau tinh tu luc tin da ghi (hoac vao msg:dead)
+        byte[] deadKey = RedisNamespace.MESSAGE_DEAD.key(shard);
+        redisService.pipelined((RedisCallback<Object>) connection -> {
+            rejected.forEach((index, error) -> connection.streamCommands()
+                    .xAdd(deadKey, Map.of(MESSAGE_FIELD, bodies[index], ERROR_FIELD, error.getBytes(StandardCharsets.UTF_8))));
+            connection.streamCommands()
+                    .xDel(streamKey, ids);
+            for (Message message : messages) {
+                if (message.getClientMessageId() != null) {
+                    connection.keyCommands()
+                            .pExpire(dedupKey(shard, message), dedupTtl);
+                }
+            }
+            return null;
+        });
+        if (!rejected.isEmpty()) {
+            deadCounter.increment(rejected.size());
+            log.error("Moved {} messages of shard {} to the dead-letter stream: {}", rejected.size(), shard, rejected.values());
+        }
+        flushedCounter.increment(messages.size() - rejected.size());
+        batchSize.record(messages.size());
+        lagTimer.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - oldest)));
+        return records.size() == maxBatchSize ? 0 : maxDelayMs;
+    }
+
+    //    tra ve vi tri -> loi cua cac dong postgres tu choi vi du lieu (vd ky tu NUL trong content)
+    //    ca batch bi tu choi thi ghi lai tung dong de chi dong hong bi loai; loi ket noi/tam thoi nem ra, shard thu lai ca batch
+    private Map<Integer, String> insert(List<Message> messages) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> messageWriteRepository.insertBatch(messages));
+            return Map.of();
+        } catch (RuntimeException e) {
+            if (!isRejected(e)) {
+                throw e;
+            }
+            log.warn("Batch of {} messages rejected, retrying row by row: {}", messages.size(), e.getMessage());
+        }
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            List<Message> row = List.of(messages.get(i));
+            try {
+                transactionTemplate.executeWithoutResult(status -> messageWriteRepository.insertBatch(row));
+            } catch (RuntimeException e) {
+                if (!isRejected(e)) {
+                    throw e;
+                }
+                rejected.put(i, errorOf((DataAccessException) e));
+            }
+        }
+        return rejected;
+    }
+
+    //    loi do du lieu; mat ket noi (CannotGetJdbcConnectionException...) la NonTransientDataAccessResourceException, khong tinh
+    private static boolean isRejected(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    private static String errorOf(DataAccessException e) {
+        String error = String.valueOf(e.getMostSpecificCause()
+                .getMessage());
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private List<ByteRecord> read(byte[] streamKey) {
+        List<Object> result = redisService.pipelined((RedisCallback<Object>) connection -> {
+            connection.streamCommands()
+                    .xRange(streamKey, Range.unbounded(), Limit.limit()
+                            .count(maxBatchSize));
+            return null;
+        });
+        @SuppressWarnings("unchecked")
+        List<ByteRecord> records = result.isEmpty() || result.getFirst() == null
+                ? List.of()
+                : (List<ByteRecord>) result.getFirst();
+        return records;
+    }
+
+    //    conversationId | id | senderId | do dai clientMessageId (-1 = null) | clientMessageId | content (utf-8)
+    //    createdAt suy ra tu id snowflake nen khong luu
+    private static byte[] encode(Message message) {
+        byte[] clientMessageId = message.getClientMessageId() == null
+                ? NO_CLIENT_MESSAGE_ID
+                : message.getClientMessageId()
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] content = message.getContent()
+                .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Long.BYTES + Integer.BYTES + clientMessageId.length + content.length);
+        buffer.putLong(message.getConversationId());
+        buffer.putLong(message.getId());
+        buffer.putLong(message.getSenderId()
+                .getMostSignificantBits());
+        buffer.putLong(message.getSenderId()
+                .getLeastSignificantBits());
+        buffer.putInt(message.getClientMessageId() == null ? -1 : clientMessageId.length);
+        buffer.put(clientMessageId);
+        buffer.put(content);
+        return buffer.array();
+    }
+
+    private static Message decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long conversationId = buffer.getLong();
+        long id = buffer.getLong();
+        UUID senderId = new UUID(buffer.getLong(), buffer.getLong());
+        int clientMessageIdLength = buffer.getInt();
+        String clientMessageId = null;
+        if (clientMessageIdLength >= 0) {
+            clientMessageId = new String(bytes, buffer.position(), clientMessageIdLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + clientMessageIdLength);
+        }
+        return Message.builder()
+                .conversationId(conversationId)
+                .id(id)
+                .senderId(senderId)
+                .clientMessageId(clientMessageId)
+                .content(new String(bytes, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8))
+                .createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(SnowflakeIdGenerator.timestampOf(id)),
+                        ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value)
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.chat.MessageDto;
+import com.mochi.backend.dto.chat.MessagePageResponse;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.mapper.ChatMapper;
+import com.mochi.backend.model.Message;
+import com.mochi.backend.repository.MessageRepository;
+import com.mochi.backend.repository.MessageWriteRepository;
+import com.mochi.backend.utils.CursorUtils;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageService {
+    public static final int MAX_CONTENT_LENGTH = 4000;
+    private static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final MessageRepository messageRepository;
+    private final MessageWriteRepository messageWriteRepository;
+    private final MessageIngestService messageIngestService;
+    private final ConversationService conversationService;
+    private final UserService userService;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ChatMapper chatMapper;
+
+    //    gui lai cung clientMessageId (client retry) thi tra ve tin nhan da luu, khong tao ban moi
+    //    tin nhan vao buffer redis roi moi xuong postgres (MessageIngestService), lich su co the tre toi chat.ingest.max-delay-ms
+    public MessageDto send(UUID senderId, Long conversationId, String clientMessageId, String content) {
+        conversationService.requireMember(conversationId, senderId);
+        if (content == null || content.isBlank() || content.length() > MAX_CONTENT_LENGTH
+                || (clientMessageId != null && clientMessageId.length() > MAX_CLIENT_MESSAGE_ID_LENGTH)) {
+            throw new AppException(ErrorCode.MESSAGE_INVALID);
+        }
+        long id = idGenerator.nextId();
+        Message message = Message.builder()
+                .conversationId(conversationId)
+                .id(id)
+                .senderId(senderId)
+                .clientMessageId(clientMessageId)
+                .content(content)
+                .createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(SnowflakeIdGenerator.timestampOf(id)), ZoneId.systemDefault()))
+                .build();
+        try {
+            return chatMapper.toDto(messageIngestService.append(message));
+        } catch (AppException e) {
+            //    buffer day (postgres dang cham): ghi thang xuong postgres chi lam no cham them
+            throw e;
+        } catch (Exception e) {
+            log.warn("Message buffer unavailable, writing message {} directly: {}", id, e.getMessage());
+        }
+        if (messageWriteRepository.insert(message) || clientMessageId == null) {
+            return chatMapper.toDto(message);
+        }
+        return messageRepository.findByConversationIdAndSenderIdAndClientMessageId(conversationId, senderId, clientMessageId)
+                .map(chatMapper::toDto)
+                .orElseThrow(() -> new AppException(ErrorCode.INTERNAL_SERVER));
+    }
+
+    //    trang moi nhat: before = null; trang cu hon: before = nextCursor cua trang truoc
+    public MessagePageResponse getHistory(Authentication authentication, Long conversationId, String before, Integer limit) {
+        conversationService.requireMember(conversationId, userService.getCurrentUserId(authentication));
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // lay them mot dong de biet con trang truoc hay khong
+        List<Message> rows = before == null || before.isEmpty()
+                ? messageRepository.findByConversationIdOrderByIdDesc(conversationId, Limit.of(size + 1))
+                : messageRepository.findByConversationIdAndIdLessThanOrderByIdDesc(conversationId,
+                CursorUtils.decodeId(before), Limit.of(size + 1));
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = String.valueOf(rows.get(size - 1)
+                    .getId());
+        }
+        return MessagePageResponse.builder()
+                .items(rows.stream()
+                        .map(chatMapper::toDto)
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
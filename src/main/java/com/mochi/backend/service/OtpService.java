@@ -1,38 +1,94 @@
 package com.mochi.backend.service;
 
 import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
 import com.mochi.backend.exception.AppException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.List;
 
+// ma otp luu trong redis, kiem tra/xoa/dem so lan sai/khoa deu chay trong mot lua script (mot round trip, khong race)
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OtpService {
-    private final StringRedisTemplate redisTemplate;
-    private final Duration ttl = Duration.ofMinutes(5);
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int CODE_LENGTH = 6;
+    private static final int CODE_BOUND = 1_000_000;
+
+    private static final long VERIFIED = 1;
+    private static final long MISMATCH = 0;
+    private static final long MISSING = -1;
+    private static final long LOCKED = -2;
+
     private final RedisService redisService;
+    private final RedisScript<Long> issueScript;
+    private final RedisScript<Long> verifyScript;
+    private final byte[] ttlSeconds;
+    private final byte[] maxAttempts;
+    private final byte[] lockoutSeconds;
+
+    public OtpService(RedisService redisService,
+                      @Value("${otp.max-attempts:5}") int maxAttempts) {
+        this.redisService = redisService;
+        this.issueScript = RedisScript.of(new ClassPathResource("redis/otp_issue.lua"), Long.class);
+        this.verifyScript = RedisScript.of(new ClassPathResource("redis/otp_verify.lua"), Long.class);
+        this.ttlSeconds = bytes(redisService.ttl(RedisNamespace.OTP)
+                .toSeconds());
+        this.maxAttempts = bytes(maxAttempts);
+        this.lockoutSeconds = bytes(redisService.ttl(RedisNamespace.OTP_LOCK)
+                .toSeconds());
+    }
 
     public String generateCode(String email) {
-        String code = String.valueOf(new Random().nextInt(999999));
-        redisService.saveValue(email, code);
+        String code = nextCode();
+        Long result = redisService.execute(issueScript, keys(email), bytes(code), ttlSeconds);
+        if (result == null || result == LOCKED) {
+            throw new AppException(ErrorCode.VERIFICATION_CODE_LOCKED);
+        }
         return code;
     }
 
     public boolean verifyOtp(String email, String code) {
-        String storedCode = redisService.getValue(email);
-        if (storedCode == null) {
+        Long result = redisService.execute(verifyScript, keys(email), bytes(code), maxAttempts, lockoutSeconds);
+        if (result == null || result == MISSING) {
             throw new AppException(ErrorCode.VERIFICATION_CODE_EXPIRED);
         }
-        if (code.equals(storedCode)) {
-            redisService.deleteValue(email);
+        if (result == VERIFIED) {
             return true;
         }
-        throw new AppException(ErrorCode.VERIFICATION_CODE_INVALID);
+        if (result == LOCKED) {
+            log.warn("OTP verification locked for {}", email);
+            throw new AppException(ErrorCode.VERIFICATION_CODE_LOCKED);
+        }
+        if (result == MISMATCH) {
+            throw new AppException(ErrorCode.VERIFICATION_CODE_INVALID);
+        }
+        throw new AppException(ErrorCode.INTERNAL_SERVER);
+    }
+
+    //    otp:{email} va otp:lock:{email} cung hash tag nen nam cung slot khi chay redis cluster
+    private static List<byte[]> keys(String email) {
+        return List.of(RedisNamespace.OTP.key(email), RedisNamespace.OTP_LOCK.key(email));
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String nextCode() {
+        int value = RANDOM.nextInt(CODE_BOUND);
+        char[] digits = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
     }
 }
@@ -0,0 +1,346 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.user.PresenceDto;
+import com.mochi.backend.enums.PresenceStatus;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.repository.UserPresenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.DefaultTuple;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// presence cua user ket noi toi node nay nam trong bo nho, heartbeat chi cap nhat bo nho
+// moi flush-interval chi day len redis cac lan doi trang thai va cac entry sap het han, gom vao mot pipeline
+// redis: presence:{online}/presence:{away} la sorted set userId -> thoi diem het han (ms), node chet thi entry tu het han
+// presence:{last-seen} giu thoi diem offline gan nhat; users.last_seen_at ghi cham theo batch gioi han
+// node ZREM mot user thi PUBLISH presence-left, node nao con ket noi cua user do ghi lai entry o lan flush ke tiep
+@Slf4j
+@Service
+public class PresenceService implements MessageListener {
+    public static final String CHANNEL = "presence-left";
+    private static final byte[] CHANNEL_BYTES = CHANNEL.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ONLINE_KEY = RedisNamespace.PRESENCE.key("online");
+    private static final byte[] AWAY_KEY = RedisNamespace.PRESENCE.key("away");
+    private static final byte[] LAST_SEEN_KEY = RedisNamespace.PRESENCE.key("last-seen");
+
+    private final RedisService redisService;
+    private final UserPresenceRepository userPresenceRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ConcurrentHashMap<UUID, LocalPresence> local = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> pendingLastSeen = new ConcurrentHashMap<>();
+    //    user local bi node khac ZREM, flush sau ghi lai du entry chua toi nua ttl
+    private final Set<UUID> evicted = ConcurrentHashMap.newKeySet();
+    private final long ttlMs;
+
+    private final Counter heartbeatCounter;
+    private final Counter transitionCounter;
+    private final Counter lastSeenWriteCounter;
+    private final DistributionSummary flushSize;
+
+    @Value("${presence.heartbeat-timeout-ms:60000}")
+    private long heartbeatTimeoutMs;
+
+    @Value("${presence.last-seen.batch-size:500}")
+    private int lastSeenBatchSize;
+
+    @Value("${presence.last-seen.retention-days:30}")
+    private int lastSeenRetentionDays;
+
+    public PresenceService(RedisService redisService,
+                           UserPresenceRepository userPresenceRepository,
+                           RedisMessageListenerContainer listenerContainer,
+                           MeterRegistry meterRegistry) {
+        this.redisService = redisService;
+        this.userPresenceRepository = userPresenceRepository;
+        this.listenerContainer = listenerContainer;
+        this.ttlMs = redisService.ttl(RedisNamespace.PRESENCE)
+                .toMillis();
+
+        Gauge.builder("presence.local", local, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("presence.last_seen.pending", pendingLastSeen, Map::size)
+                .register(meterRegistry);
+        this.heartbeatCounter = Counter.builder("presence.heartbeats")
+                .register(meterRegistry);
+        this.transitionCounter = Counter.builder("presence.transitions")
+                .register(meterRegistry);
+        this.lastSeenWriteCounter = Counter.builder("presence.last_seen.writes")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("presence.flush.size")
+                .description("Presence entries written to Redis in one flush")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void connected(UUID userId) {
+        heartbeat(userId, PresenceStatus.ONLINE);
+    }
+
+    //    chi ghi vao bo nho, redis biet khi flush neu trang thai doi
+    public void heartbeat(UUID userId, PresenceStatus status) {
+        long now = System.currentTimeMillis();
+        local.compute(userId, (id, presence) -> {
+            LocalPresence current = presence == null ? new LocalPresence() : presence;
+            current.status = status;
+            current.lastHeartbeat = now;
+            return current;
+        });
+        heartbeatCounter.increment();
+    }
+
+    //    goi khi session cuoi cua user tren node nay dong
+    public void disconnected(UUID userId) {
+        local.computeIfPresent(userId, (id, presence) -> {
+            presence.status = PresenceStatus.OFFLINE;
+            return presence;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        Set<Tuple> online = new HashSet<>();
+        Set<Tuple> away = new HashSet<>();
+        Set<Tuple> lastSeen = new HashSet<>();
+        List<byte[]> leftOnline = new ArrayList<>();
+        List<byte[]> leftAway = new ArrayList<>();
+        Map<LocalPresence, PresenceStatus> written = new IdentityHashMap<>();
+        List<UUID> offline = new ArrayList<>();
+        List<UUID> refreshed = new ArrayList<>();
+
+        local.forEach((userId, presence) -> {
+            PresenceStatus status = presence.status;
+            //    van ket noi nhung khong con heartbeat (tab an, may ngu)
+            if (status == PresenceStatus.ONLINE && now - presence.lastHeartbeat > heartbeatTimeoutMs) {
+                status = PresenceStatus.AWAY;
+            }
+            boolean changed = status != presence.published;
+            boolean refresh = evicted.remove(userId);
+            if (refresh) {
+                refreshed.add(userId);
+            }
+            if (!changed && (status == PresenceStatus.OFFLINE || !refresh && presence.expiresAt - now > ttlMs / 2)) {
+                return;
+            }
+            byte[] member = member(userId);
+            switch (status) {
+                case ONLINE -> online.add(new DefaultTuple(member, (double) (now + ttlMs)));
+                case AWAY -> away.add(new DefaultTuple(member, (double) (now + ttlMs)));
+                case OFFLINE -> {
+                    lastSeen.add(new DefaultTuple(member, (double) now));
+                    offline.add(userId);
+                }
+            }
+            if (presence.published == PresenceStatus.ONLINE && status != PresenceStatus.ONLINE) {
+                leftOnline.add(member);
+            } else if (presence.published == PresenceStatus.AWAY && status != PresenceStatus.AWAY) {
+                leftAway.add(member);
+            }
+            if (changed) {
+                transitionCounter.increment();
+            }
+            written.put(presence, status);
+        });
+
+        try {
+            redisService.pipelined((RedisCallback<Object>) connection -> {
+                RedisZSetCommands commands = connection.zSetCommands();
+                if (!online.isEmpty()) {
+                    commands.zAdd(ONLINE_KEY, online);
+                }
+                if (!away.isEmpty()) {
+                    commands.zAdd(AWAY_KEY, away);
+                }
+                if (!leftOnline.isEmpty()) {
+                    commands.zRem(ONLINE_KEY, leftOnline.toArray(byte[][]::new));
+                }
+                if (!leftAway.isEmpty()) {
+                    commands.zRem(AWAY_KEY, leftAway.toArray(byte[][]::new));
+                }
+                if (!lastSeen.isEmpty()) {
+                    commands.zAdd(LAST_SEEN_KEY, lastSeen);
+                }
+                //    cung pipeline voi ZREM, node con ket noi cua user ghi lai entry sau mot flush-interval
+                if (!leftOnline.isEmpty() || !leftAway.isEmpty()) {
+                    connection.publish(CHANNEL_BYTES, left(leftOnline, leftAway));
+                }
+                //    don entry cua node da chet
+                commands.zRemRangeByScore(ONLINE_KEY, Double.NEGATIVE_INFINITY, now);
+                commands.zRemRangeByScore(AWAY_KEY, Double.NEGATIVE_INFINITY, now);
+                return null;
+            });
+        } catch (Exception e) {
+            //    published giu nguyen nen lan flush sau ghi lai
+            log.warn("Could not flush {} presence changes: {}", written.size(), e.getMessage());
+            evicted.addAll(refreshed);
+            return;
+        }
+        flushSize.record(written.size());
+        written.forEach((presence, status) -> {
+            presence.published = status;
+            presence.expiresAt = now + ttlMs;
+        });
+        for (UUID userId : offline) {
+            local.computeIfPresent(userId, (id, presence) -> presence.status == PresenceStatus.OFFLINE ? null : presence);
+            pendingLastSeen.put(userId, now);
+        }
+        evicted.removeIf(userId -> !local.containsKey(userId));
+    }
+
+    //    thong bao tu node khac (ca chinh node nay): chi giu user dang ket noi o day
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        for (String userId : new String(message.getBody(), StandardCharsets.US_ASCII).split(",")) {
+            try {
+                UUID id = UUID.fromString(userId);
+                if (local.containsKey(id)) {
+                    evicted.add(id);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring malformed presence-left member: {}", userId);
+            }
+        }
+    }
+
+    //    toi da batch-size dong moi chu ky, con lai de lan sau
+    @Scheduled(fixedDelayString = "${presence.last-seen.flush-interval-ms:60000}")
+    public void flushLastSeen() {
+        Map<UUID, LocalDateTime> batch = new HashMap<>();
+        Map<UUID, Long> taken = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : pendingLastSeen.entrySet()) {
+            if (batch.size() == lastSeenBatchSize) {
+                break;
+            }
+            if (pendingLastSeen.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), toLocalDateTime(entry.getValue()));
+                taken.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            userPresenceRepository.updateLastSeen(batch);
+            lastSeenWriteCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.warn("Could not persist last seen of {} users: {}", batch.size(), e.getMessage());
+            taken.forEach((userId, seenAt) -> pendingLastSeen.merge(userId, seenAt, Math::max));
+        }
+    }
+
+    @Scheduled(cron = "${presence.last-seen.trim-cron:0 30 3 * * *}")
+    public void trimLastSeen() {
+        long cutoff = System.currentTimeMillis() - lastSeenRetentionDays * 86_400_000L;
+        redisService.pipelined((RedisCallback<Object>) connection -> {
+            connection.zSetCommands()
+                    .zRemRangeByScore(LAST_SEEN_KEY, Double.NEGATIVE_INFINITY, cutoff);
+            return null;
+        });
+    }
+
+    //    ba ZMSCORE trong mot pipeline cho ca danh sach; last seen khong con tren redis thi doc users.last_seen_at
+    public List<PresenceDto> getPresence(List<UUID> userIds) {
+        long now = System.currentTimeMillis();
+        byte[][] members = userIds.stream()
+                .map(PresenceService::member)
+                .toArray(byte[][]::new);
+        List<Object> scores;
+        try {
+            scores = redisService.pipelined((RedisCallback<Object>) connection -> {
+                RedisZSetCommands commands = connection.zSetCommands();
+                commands.zMScore(ONLINE_KEY, members);
+                commands.zMScore(AWAY_KEY, members);
+                commands.zMScore(LAST_SEEN_KEY, members);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Could not read presence: {}", e.getMessage());
+            scores = List.of(List.of(), List.of(), List.of());
+        }
+        List<?> onlineScores = (List<?>) scores.get(0);
+        List<?> awayScores = (List<?>) scores.get(1);
+        List<?> lastSeenScores = (List<?>) scores.get(2);
+
+        List<PresenceDto> result = new ArrayList<>(userIds.size());
+        List<UUID> unknownLastSeen = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            PresenceDto presence = PresenceDto.builder()
+                    .userId(userIds.get(i))
+                    .status(PresenceStatus.OFFLINE)
+                    .build();
+            if (score(onlineScores, i) > now) {
+                presence.setStatus(PresenceStatus.ONLINE);
+            } else if (score(awayScores, i) > now) {
+                presence.setStatus(PresenceStatus.AWAY);
+            } else if (score(lastSeenScores, i) > 0) {
+                presence.setLastSeenAt(toLocalDateTime((long) score(lastSeenScores, i)));
+            } else {
+                unknownLastSeen.add(userIds.get(i));
+            }
+            result.add(presence);
+        }
+        if (!unknownLastSeen.isEmpty()) {
+            Map<UUID, LocalDateTime> stored = userPresenceRepository.findLastSeen(unknownLastSeen);
+            for (PresenceDto presence : result) {
+                if (presence.getStatus() == PresenceStatus.OFFLINE && presence.getLastSeenAt() == null) {
+                    presence.setLastSeenAt(stored.get(presence.getUserId()));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static double score(List<?> scores, int index) {
+        return index < scores.size() && scores.get(index) instanceof Double score ? score : 0;
+    }
+
+    private static byte[] left(List<byte[]> leftOnline, List<byte[]> leftAway) {
+        StringJoiner joiner = new StringJoiner(",");
+        leftOnline.forEach(member -> joiner.add(new String(member, StandardCharsets.US_ASCII)));
+        leftAway.forEach(member -> joiner.add(new String(member, StandardCharsets.US_ASCII)));
+        return joiner.toString()
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] member(UUID userId) {
+        return userId.toString()
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    //    status/lastHeartbeat do thread websocket ghi, published/expiresAt chi thread flush dung
+    private static final class LocalPresence {
+        volatile PresenceStatus status = PresenceStatus.ONLINE;
+        volatile long lastHeartbeat;
+        //    null: chua ghi lan nao, ke ca ket noi roi ngat truoc lan flush dau van ghi last seen
+        PresenceStatus published;
+        long expiresAt;
+    }
+}
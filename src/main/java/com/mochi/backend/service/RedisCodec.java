@@ -0,0 +1,35 @@
+package com.mochi.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+public interface RedisCodec<T> {
+    RedisCodec<String> STRING = new RedisCodec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    RedisCodec<UUID> UUID_STRING = new RedisCodec<>() {
+        @Override
+        public byte[] encode(UUID value) {
+            return value.toString()
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public UUID decode(byte[] bytes) {
+            return UUID.fromString(new String(bytes, StandardCharsets.US_ASCII));
+        }
+    };
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
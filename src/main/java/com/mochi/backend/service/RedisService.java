@@ -1,29 +1,65 @@
 package com.mochi.backend.service;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import com.mochi.backend.enums.RedisNamespace;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.*;
 
+// ttl cua tung namespace lay tu redis.ttl.<ten-namespace>, khong khai bao thi dung ttl mac dinh cua enum
 @Service
-@RequiredArgsConstructor
 public class RedisService {
-    private final StringRedisTemplate redisTemplate;
-    private final Duration ttl = Duration.ofMinutes(5);
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final RedisTemplate<byte[], byte[]> replicaTemplate;
+    private final Map<RedisNamespace, Duration> ttls = new EnumMap<>(RedisNamespace.class);
+    private final Set<RedisNamespace> replicaReads = EnumSet.noneOf(RedisNamespace.class);
 
-    public void saveValue(String key, String value) {
-        redisTemplate.opsForValue()
-                .set(key, value, ttl);
+    public RedisService(@Qualifier("binaryRedisTemplate") RedisTemplate<byte[], byte[]> redisTemplate,
+                        @Qualifier("replicaRedisTemplate") RedisTemplate<byte[], byte[]> replicaTemplate,
+                        @Value("${redis.replica-reads:}") List<String> replicaReads,
+                        Environment environment) {
+        this.redisTemplate = redisTemplate;
+        this.replicaTemplate = replicaTemplate;
+        for (RedisNamespace namespace : RedisNamespace.values()) {
+            ttls.put(namespace, environment.getProperty("redis.ttl." + namespace.getPropertyName(),
+                    Duration.class, namespace.getDefaultTtl()));
+            if (replicaReads.contains(namespace.getPropertyName())) {
+                this.replicaReads.add(namespace);
+            }
+        }
     }
 
-    public String getValue(String key) {
-        return redisTemplate.opsForValue()
-                .get(key);
+    public Duration ttl(RedisNamespace namespace) {
+        return ttls.get(namespace);
     }
 
-    public void deleteValue(String key) {
-        redisTemplate.delete(key);
+    public <T> RedisStore<T> store(RedisNamespace namespace, RedisCodec<T> codec) {
+        RedisTemplate<byte[], byte[]> readTemplate = replicaReads.contains(namespace) ? replicaTemplate : redisTemplate;
+        return new RedisStore<>(redisTemplate, readTemplate, namespace, codec, ttl(namespace));
     }
 
+    //    chay script bang EVALSHA, tu dong gui lai ca script khi server chua cache
+    //    template khong co serializer nen ket qua byte[] (bulk string) phai chi ro serializer, neu khong se NPE
+    @SuppressWarnings("unchecked")
+    public <T> T execute(RedisScript<T> script, List<byte[]> keys, byte[]... args) {
+        return redisTemplate.execute(script, RedisSerializer.byteArray(), (RedisSerializer<T>) RedisSerializer.byteArray(), keys,
+                (Object[]) args);
+    }
+
+    public boolean delete(byte[] key) {
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands()
+                .del(key));
+        return deleted != null && deleted > 0;
+    }
+
+    public List<Object> pipelined(RedisCallback<?> action) {
+        return redisTemplate.executePipelined(action);
+    }
 }
@@ -0,0 +1,127 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.RedisNamespace;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.time.Duration;
+import java.util.*;
+
+// kho key-value theo namespace: key, codec va ttl co dinh, lam viec truc tiep voi byte[]
+// get/multiGet di qua readTemplate (replica neu namespace nam trong redis.replica-reads)
+public final class RedisStore<T> {
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final RedisTemplate<byte[], byte[]> readTemplate;
+    private final RedisNamespace namespace;
+    private final RedisCodec<T> codec;
+    private final Expiration expiration;
+
+    RedisStore(RedisTemplate<byte[], byte[]> redisTemplate, RedisTemplate<byte[], byte[]> readTemplate,
+               RedisNamespace namespace, RedisCodec<T> codec, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.readTemplate = readTemplate;
+        this.namespace = namespace;
+        this.codec = codec;
+        this.expiration = Expiration.from(ttl);
+    }
+
+    public T get(CharSequence id) {
+        byte[] key = namespace.key(id);
+        return decode(readTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands()
+                .get(key)));
+    }
+
+    //    doc va xoa trong mot lenh GETDEL, dung cho token dung mot lan
+    public T getAndDelete(CharSequence id) {
+        byte[] key = namespace.key(id);
+        return decode(redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands()
+                .getDel(key)));
+    }
+
+    public void set(CharSequence id, T value) {
+        set(id, value, expiration);
+    }
+
+    public void set(CharSequence id, T value, Duration ttl) {
+        set(id, value, Expiration.from(ttl));
+    }
+
+    //    thoi gian song con lai, null neu key khong ton tai hoac khong co ttl
+    public Duration remainingTtl(CharSequence id) {
+        byte[] key = namespace.key(id);
+        Long millis = readTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands()
+                .pTtl(key));
+        return millis == null || millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    public boolean delete(CharSequence id) {
+        byte[] key = namespace.key(id);
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands()
+                .del(key));
+        return deleted != null && deleted > 0;
+    }
+
+    //    ket qua cung thu tu voi ids, key khong ton tai tra ve null
+    public List<T> multiGet(List<? extends CharSequence> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        byte[][] keys = keys(ids);
+        List<byte[]> values = readTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands()
+                .mGet(keys));
+        List<T> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(values == null ? null : decode(values.get(i)));
+        }
+        return result;
+    }
+
+    //    MSET khong ho tro ttl nen gui SET EX cho tung key trong cung mot pipeline
+    public void multiSet(Map<? extends CharSequence, T> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisStringCommands commands = connection.stringCommands();
+            values.forEach((id, value) -> commands.set(namespace.key(id), codec.encode(value),
+                    expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+    }
+
+    public long multiDelete(Collection<? extends CharSequence> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        byte[][] keys = keys(ids);
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands()
+                .del(keys));
+        return deleted == null ? 0 : deleted;
+    }
+
+    public byte[] key(CharSequence id) {
+        return namespace.key(id);
+    }
+
+    private void set(CharSequence id, T value, Expiration ttl) {
+        byte[] key = namespace.key(id);
+        byte[] bytes = codec.encode(value);
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                .set(key, bytes, ttl, RedisStringCommands.SetOption.upsert()));
+    }
+
+    private byte[][] keys(Collection<? extends CharSequence> ids) {
+        byte[][] keys = new byte[ids.size()][];
+        int i = 0;
+        for (CharSequence id : ids) {
+            keys[i++] = namespace.key(id);
+        }
+        return keys;
+    }
+
+    private T decode(byte[] bytes) {
+        return bytes == null ? null : codec.decode(bytes);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.ParsedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+// moi lan dang nhap tao mot family, moi lan refresh thay jti hien tai cua family bang jti moi
+// dung lai refresh token da bi thay la dau hieu token bi lo: huy ca family
+// rt:{username}:fam:<fid> giu jti hien tai, rt:{username}:gen tang len khi dang xuat moi phien
+@Slf4j
+@Service
+public class RefreshTokenService {
+    private static final long ROTATED = 1;
+    private static final long CONCURRENT = 0;
+    private static final long MISSING = -1;
+    private static final long REUSED = -2;
+
+    private final RedisService redisService;
+    private final JwtService jwtService;
+    private final RevokedTokenService revokedTokenService;
+    private final RedisScript<Long> issueScript;
+    private final RedisScript<Long> rotateScript;
+    private final RedisScript<Long> revokeAllScript;
+    private final byte[] ttlMs;
+    private final byte[] reuseGraceMs;
+    private final Counter reuseCounter;
+
+    public RefreshTokenService(RedisService redisService,
+                               JwtService jwtService,
+                               RevokedTokenService revokedTokenService,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.jwt.refresh.reuse-grace:5s}") Duration reuseGrace) {
+        this.redisService = redisService;
+        this.jwtService = jwtService;
+        this.revokedTokenService = revokedTokenService;
+        this.issueScript = RedisScript.of(new ClassPathResource("redis/refresh_issue.lua"), Long.class);
+        this.rotateScript = RedisScript.of(new ClassPathResource("redis/refresh_rotate.lua"), Long.class);
+        this.revokeAllScript = RedisScript.of(new ClassPathResource("redis/refresh_revoke_all.lua"), Long.class);
+        this.ttlMs = bytes(jwtService.getRefreshTokenExpiry());
+        this.reuseGraceMs = bytes(reuseGrace.toMillis());
+        this.reuseCounter = Counter.builder("refresh.token.reuse")
+                .description("Rotated refresh tokens presented again, family revoked")
+                .register(meterRegistry);
+    }
+
+    public String issue(UserDetails userDetails) {
+        UUID familyId = UUID.randomUUID();
+        UUID jti = UUID.randomUUID();
+        redisService.execute(issueScript, List.of(familyKey(userDetails.getUsername(), familyId), generationKey(userDetails.getUsername())),
+                bytes(jti), ttlMs);
+        return jwtService.generateRefreshToken(userDetails, familyId, jti);
+    }
+
+    //    token da qua isRefreshTokenValid, tra ve refresh token moi cung family
+    public String rotate(ParsedToken token, UserDetails userDetails) {
+        if (token.getFamilyId() == null) {
+            //    token phat ra truoc khi co rotation: thu hoi jti cu va chuyen sang family moi
+            revokedTokenService.revoke(token.getJti(), token.getExpiration());
+            return issue(userDetails);
+        }
+        UUID jti = UUID.randomUUID();
+        Long result = redisService.execute(rotateScript, keys(token), bytes(token.getJti()), bytes(jti), ttlMs, reuseGraceMs);
+        if (result != null && result == ROTATED) {
+            return jwtService.generateRefreshToken(userDetails, token.getFamilyId(), jti);
+        }
+        if (result != null && result == REUSED) {
+            reuseCounter.increment();
+            log.warn("Refresh token reuse detected, family revoked: user={}, fid={}", token.getSubject(), token.getFamilyId());
+        } else if (result == null || (result != CONCURRENT && result != MISSING)) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER);
+        }
+        throw new AppException(ErrorCode.REFRESH_TOKEN_INVALID);
+    }
+
+    public void revoke(ParsedToken token) {
+        if (token.getFamilyId() == null) {
+            revokedTokenService.revoke(token.getJti(), token.getExpiration());
+            return;
+        }
+        redisService.delete(familyKey(token.getSubject(), token.getFamilyId()));
+    }
+
+    //    O(1): chi tang generation, family cu tu het hieu luc o lan refresh ke tiep va het han theo ttl
+    public void revokeAll(String username) {
+        redisService.execute(revokeAllScript, List.of(generationKey(username)), ttlMs);
+    }
+
+    private static List<byte[]> keys(ParsedToken token) {
+        return List.of(familyKey(token.getSubject(), token.getFamilyId()), generationKey(token.getSubject()));
+    }
+
+    private static byte[] familyKey(String username, UUID familyId) {
+        return RedisNamespace.REFRESH_TOKEN.key(username, "fam:" + familyId);
+    }
+
+    private static byte[] generationKey(String username) {
+        return RedisNamespace.REFRESH_TOKEN.key(username, "gen");
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value)
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,107 @@
+package com.mochi.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// quan ly partition theo ngay cua bang revoked_token (PostgreSQL declarative partitioning, xem db/revoked_token_partitioned.sql)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevokedTokenPartitionManager {
+    private static final String TABLE = "revoked_token";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relname = ? AND n.nspname = current_schema()",
+                String.class, TABLE);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    public void ensurePartitions(LocalDate from, int daysAhead) {
+        boolean hasDefault = exists(DEFAULT_PARTITION);
+        for (int i = 0; i <= daysAhead; i++) {
+            LocalDate day = from.plusDays(i);
+            String partition = partitionName(day);
+            if (exists(partition)) {
+                continue;
+            }
+            if (hasDefault) {
+                transactionTemplate.executeWithoutResult(status -> moveOutOfDefault(partition, day));
+            } else {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition
+                        + " PARTITION OF " + TABLE + bounds(day));
+            }
+        }
+    }
+
+    //    token het han ngoai khoang partition da tao nam o partition default; CREATE ... PARTITION OF loi neu default con row thuoc khoang moi
+    //    nen tao bang rieng, chuyen row tu default sang roi ATTACH, tat ca trong mot transaction
+    private void moveOutOfDefault(String partition, LocalDate day) {
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE expires_at >= ? AND expires_at < ? RETURNING *) "
+                        + "INSERT INTO " + partition + " SELECT * FROM moved",
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1)
+                        .atStartOfDay()));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition + bounds(day));
+        if (moved > 0) {
+            log.info("Moved {} revoked tokens from {} to {}", moved, DEFAULT_PARTITION, partition);
+        }
+    }
+
+    //    partition ngay D chi chua token het han truoc D+1, nen drop ca bang khi D+1 <= hom nay
+    public int dropExpiredPartitions(LocalDate today) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ?",
+                String.class, TABLE);
+        int dropped = 0;
+        for (String partition : partitions) {
+            if (!partition.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            LocalDate day;
+            try {
+                day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!day.plusDays(1)
+                    .isAfter(today)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped expired revoked token partition {}", partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private boolean exists(String relation) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, relation));
+    }
+
+    private static String bounds(LocalDate day) {
+        return " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')";
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(SUFFIX_FORMAT);
+    }
+}
@@ -0,0 +1,160 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// xoa dan cac jti da het han theo tung batch nho de khong khoa bang qua lau
+// moi node deu lap lich job nhung chi node giu lease job:lease:{revoked-token-purge} chay (DDL partition khong duoc chay song song)
+@Slf4j
+@Service
+public class RevokedTokenPurgeService {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final RevokedTokenPartitionManager partitionManager;
+    private final RedisService redisService;
+    private final RedisScript<Long> leaseScript;
+    private final List<byte[]> leaseKey = List.of(RedisNamespace.JOB_LEASE.key("revoked-token-purge"));
+    //    moi instance mot id ngau nhien, khong phu thuoc cau hinh node
+    private final byte[] instanceId = UUID.randomUUID()
+            .toString()
+            .getBytes(StandardCharsets.US_ASCII);
+    private final byte[] leaseMs;
+    private final Counter purgedRows;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${security.jwt.revocation.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.jwt.revocation.purge.strategy:delete}")
+    private String strategy;
+
+    @Value("${security.jwt.revocation.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${security.jwt.revocation.purge.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${security.jwt.revocation.purge.max-rows-per-run:100000}")
+    private int maxRowsPerRun;
+
+    @Value("${security.jwt.revocation.purge.partition-days-ahead:8}")
+    private int partitionDaysAhead;
+
+    @Value("${security.jwt.expiration-ms.refresh}")
+    private long refreshExpirationMs;
+
+    public RevokedTokenPurgeService(RevokedTokenRepository revokedTokenRepository,
+                                    RevokedTokenPartitionManager partitionManager,
+                                    RedisService redisService,
+                                    MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.partitionManager = partitionManager;
+        this.redisService = redisService;
+        this.leaseScript = RedisScript.of(new ClassPathResource("redis/job_lease.lua"), Long.class);
+        this.leaseMs = Long.toString(redisService.ttl(RedisNamespace.JOB_LEASE)
+                        .toMillis())
+                .getBytes(StandardCharsets.US_ASCII);
+        this.purgedRows = Counter.builder("revoked_token.purge.rows")
+                .description("Expired revoked token rows deleted by the purge job")
+                .register(meterRegistry);
+        Gauge.builder("revoked_token.purge.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest expired revoked token still stored")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.purge.interval-ms:300000}",
+            initialDelayString = "${security.jwt.revocation.purge.initial-delay-ms:60000}")
+    public void purgeExpired() {
+        if (!enabled || !holdsLease()) {
+            return;
+        }
+        //    moi buoc mot try rieng: loi DDL partition khong duoc chan batched delete va gauge lag
+        if ("partition".equalsIgnoreCase(strategy)) {
+            try {
+                purgePartitions();
+            } catch (Exception e) {
+                log.warn("Revoked token partition maintenance failed: {}", e.getMessage());
+            }
+        }
+        try {
+            int purged = purgeInBatches();
+            if (purged > 0) {
+                log.info("Purged {} expired revoked tokens", purged);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            return;
+        } catch (Exception e) {
+            log.warn("Revoked token purge failed: {}", e.getMessage());
+        }
+        try {
+            updateLag();
+        } catch (Exception e) {
+            log.warn("Could not measure revoked token purge lag: {}", e.getMessage());
+        }
+    }
+
+    //    lease gia han moi lan chay nen node dang giu tiep tuc giu; redis loi thi bo qua lan nay thay vi chay trung DDL
+    private boolean holdsLease() {
+        try {
+            Long leased = redisService.execute(leaseScript, leaseKey, instanceId, leaseMs);
+            return leased != null && leased == 1;
+        } catch (Exception e) {
+            log.warn("Could not acquire revoked token purge lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void purgePartitions() {
+        if (!partitionManager.isPartitioned()) {
+            log.warn("security.jwt.revocation.purge.strategy=partition but revoked_token is not partitioned, using batched delete");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        //    refresh token song lau hon partition-days-ahead thi jti cua no roi vao partition default
+        int refreshDays = (int) Math.ceil(refreshExpirationMs / (double) Duration.ofDays(1)
+                .toMillis());
+        partitionManager.ensurePartitions(today, Math.max(partitionDaysAhead, refreshDays + 1));
+        partitionManager.dropExpiredPartitions(today);
+    }
+
+    private int purgeInBatches() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        while (purged < maxRowsPerRun) {
+            int deleted = revokedTokenRepository.deleteExpiredBatch(now, Math.min(batchSize, maxRowsPerRun - purged));
+            purged += deleted;
+            purgedRows.increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return purged;
+    }
+
+    private void updateLag() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldest = revokedTokenRepository.findOldestExpiresAtBefore(now);
+        lagSeconds.set(oldest == null ? 0 : Duration.between(oldest, now)
+                .toSeconds());
+    }
+}
@@ -1,29 +1,135 @@
 package com.mochi.backend.service;
 
-import com.mochi.backend.model.RevokedToken;
 import com.mochi.backend.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+// danh sach jti da thu hoi duoc giu trong bo nho, db dung de luu, nap lai khi khoi dong va nap bu dinh ky
+// pub/sub chi la duong nhanh: tin bi mat (redis mat ket noi, node dang khoi dong) duoc nap bu o lan reload sau
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
-public class RevokedTokenService {
+public class RevokedTokenService implements MessageListener {
+    public static final String CHANNEL = "revoked-tokens";
+
     RevokedTokenRepository revokedTokenRepository;
+    StringRedisTemplate redisTemplate;
+    RedisMessageListenerContainer listenerContainer;
+    PlatformTransactionManager transactionManager;
+
+    //    jti -> thoi diem het han (epoch ms)
+    Map<UUID, Long> revokedJtis = new ConcurrentHashMap<>();
+
+    //    moc revoked_at cua lan nap truoc, lan sau doc tu (lastSync - overlap)
+    @NonFinal
+    volatile LocalDateTime lastSync;
+
+    @NonFinal
+    @Value("${security.jwt.revocation.reload-overlap:10s}")
+    Duration reloadOverlap;
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        lastSync = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var tokens = revokedTokenRepository.streamByExpiresAtAfter(LocalDateTime.now())) {
+                tokens.forEach(token -> revokedJtis.put(token.getJti(), toEpochMilli(token.getExpiresAt())));
+            }
+        });
+        log.info("Loaded {} revoked token ids", revokedJtis.size());
+    }
+
+    public boolean isRevoked(UUID jti) {
+        if (jti == null) {
+            return false;
+        }
+        Long expiresAt = revokedJtis.get(jti);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            revokedJtis.remove(jti, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void revoke(UUID jti, Instant expiresAt) {
+        long expiresAtMs = expiresAt.toEpochMilli();
+        revokedJtis.put(jti, expiresAtMs);
+        revokedTokenRepository.insertIfAbsent(
+                jti,
+                LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()),
+                LocalDateTime.now()
+        );
+        try {
+            redisTemplate.convertAndSend(CHANNEL, jti + ":" + expiresAtMs);
+        } catch (Exception e) {
+            log.warn("Could not broadcast revoked token jti={}: {}", jti, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            revokedJtis.put(UUID.fromString(body.substring(0, separator)), Long.parseLong(body.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed revoked token message: {}", body);
+        }
+    }
 
-    public Optional<RevokedToken> findByJti(UUID jti) {
-        return revokedTokenRepository.findByJti(jti);
+    //    revoked_at lay tu dong ho node thu hoi va ghi truoc khi tx commit nen doc lui them reloadOverlap
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.reload-interval-ms:30000}",
+            initialDelayString = "${security.jwt.revocation.reload-interval-ms:30000}")
+    void reloadRecent() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            var tokens = revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(lastSync.minus(reloadOverlap), now);
+            tokens.forEach(token -> revokedJtis.put(token.getJti(), toEpochMilli(token.getExpiresAt())));
+            lastSync = now;
+        } catch (Exception e) {
+            log.warn("Could not reload revoked token ids: {}", e.getMessage());
+        }
     }
 
-    public boolean existsByJti(UUID jti) {
-        return revokedTokenRepository.existsByJti(jti);
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.prune-interval-ms:60000}")
+    void pruneExpired() {
+        long now = System.currentTimeMillis();
+        revokedJtis.values()
+                .removeIf(expiresAt -> expiresAt <= now);
     }
 
-    public void save(RevokedToken revokedToken) {
-        revokedTokenRepository.save(revokedToken);
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
     }
 }
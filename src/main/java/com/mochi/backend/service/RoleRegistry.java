@@ -0,0 +1,120 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.model.Role;
+import com.mochi.backend.repository.RoleRepository;
+import com.mochi.backend.security.userDetails.GrantedAuthorities;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// danh sach role nap mot lan vao bo nho, nap lai khi co node bao "roles-changed" qua redis
+// quyen cua user luu dang bitmask (User.roleMask), moi mask chi tao mot Set<GrantedAuthority>
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry implements MessageListener {
+    private static final String CHANNEL = "roles-changed";
+
+    private final RoleRepository roleRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<Long, Set<GrantedAuthority>> authoritiesByMask = new ConcurrentHashMap<>();
+    private volatile Map<String, Role> rolesByName = Map.of();
+    private volatile Role[] rolesByBit = new Role[Long.SIZE];
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        reload();
+    }
+
+    public void reload() {
+        Map<String, Role> byName = new HashMap<>();
+        Role[] byBit = new Role[Long.SIZE];
+        for (Role role : roleRepository.findAll()) {
+            byName.put(role.getName(), role);
+            byBit[role.getBit()] = role;
+        }
+        rolesByName = Map.copyOf(byName);
+        rolesByBit = byBit;
+        authoritiesByMask.clear();
+        log.info("Loaded {} roles", byName.size());
+    }
+
+    //    goi sau khi them/sua role: nap lai o node nay va bao cac node khac
+    public void publishChange() {
+        reload();
+        try {
+            redisTemplate.convertAndSend(CHANNEL, "reload");
+        } catch (Exception e) {
+            log.warn("Could not publish role change: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        reload();
+    }
+
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(rolesByName.get(name));
+    }
+
+    //    ten khong ton tai thi bo qua, giong findByNameIn truoc day
+    public Set<Role> getByNames(Collection<String> names) {
+        Set<Role> roles = new HashSet<>();
+        if (names != null) {
+            Map<String, Role> byName = rolesByName;
+            for (String name : names) {
+                Role role = byName.get(name);
+                if (role != null) {
+                    roles.add(role);
+                }
+            }
+        }
+        return roles;
+    }
+
+    public long maskOf(Collection<String> names) {
+        long mask = 0;
+        for (Role role : getByNames(names)) {
+            mask |= 1L << role.getBit();
+        }
+        return mask;
+    }
+
+    public long requireMask(String name) {
+        return findByName(name)
+                .map(role -> 1L << role.getBit())
+                .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_FOUND));
+    }
+
+    public Set<String> namesOf(long mask) {
+        Role[] byBit = rolesByBit;
+        Set<String> names = new HashSet<>(Long.bitCount(mask) * 2);
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            Role role = byBit[Long.numberOfTrailingZeros(remaining)];
+            if (role != null) {
+                names.add(role.getName());
+            }
+        }
+        return names;
+    }
+
+    public Set<GrantedAuthority> authoritiesOf(long mask) {
+        return authoritiesByMask.computeIfAbsent(mask, m -> GrantedAuthorities.of(namesOf(m)));
+    }
+}
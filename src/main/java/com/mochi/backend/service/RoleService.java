@@ -1,7 +1,6 @@
 package com.mochi.backend.service;
 
 import com.mochi.backend.model.Role;
-import com.mochi.backend.repository.RoleRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -13,13 +12,21 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class RoleService {
 
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
 
     public Set<Role> getRolesByNames(List<String> roleNames) {
-        return roleRepository.findByNameIn(roleNames);
+        return roleRegistry.getByNames(roleNames);
     }
 
     public Optional<Role> findByName(String name) {
-        return roleRepository.findByName(name);
+        return roleRegistry.findByName(name);
+    }
+
+    public long getRoleMask(List<String> roleNames) {
+        return roleRegistry.maskOf(roleNames);
+    }
+
+    public long getRoleMask(String roleName) {
+        return roleRegistry.requireMask(roleName);
     }
 }
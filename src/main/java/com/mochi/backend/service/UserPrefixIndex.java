@@ -0,0 +1,135 @@
+package com.mochi.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mochi.backend.repository.UserSearchRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// cac nut cua trie tien to ngan (<= max-prefix-length ky tu), moi nut giu top-N ket qua da xep hang
+// nut duoc nap lazily tu db; khi user thay doi chi xoa cac nut lien quan, nut khong lien quan van giu nguyen
+// node sua user bao cac node khac qua redis pub/sub (giong PrincipalCache)
+@Slf4j
+@Component
+public class UserPrefixIndex implements MessageListener {
+    private static final String CHANNEL = "user-prefix-evict";
+
+    private final Cache<String, List<UserSearchRepository.Result>> nodes;
+    //    userId -> cac tien to co nut dang chua user, de khong phai duyet moi nut khi user thay doi
+    //    song it nhat bang nut nap sau cung chua user (ghi lai moi lan nap); tien to thua chi lam xoa them mot nut
+    private final Cache<UUID, Set<String>> prefixesByUser;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final int maxPrefixLength;
+    private final int topN;
+
+    public UserPrefixIndex(StringRedisTemplate redisTemplate,
+                           RedisMessageListenerContainer listenerContainer,
+                           @Value("${users.search.trie.max-prefix-length:3}") int maxPrefixLength,
+                           @Value("${users.search.trie.top-n:20}") int topN,
+                           @Value("${users.search.trie.max-nodes:50000}") long maxNodes,
+                           @Value("${users.search.trie.node-ttl:10m}") Duration nodeTtl) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.maxPrefixLength = maxPrefixLength;
+        this.topN = topN;
+        this.nodes = Caffeine.newBuilder()
+                .maximumSize(maxNodes)
+                .expireAfterWrite(nodeTtl)
+                .build();
+        this.prefixesByUser = Caffeine.newBuilder()
+                .maximumSize(maxNodes * (topN + 1))
+                .expireAfterWrite(nodeTtl)
+                .build();
+    }
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public boolean covers(String prefix, int limit) {
+        return prefix.length() <= maxPrefixLength && limit <= topN;
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    public List<UserSearchRepository.Result> get(String prefix, Function<String, List<UserSearchRepository.Result>> loader) {
+        return nodes.get(prefix, key -> {
+            List<UserSearchRepository.Result> results = loader.apply(key);
+            for (UserSearchRepository.Result result : results) {
+                prefixesByUser.asMap()
+                        .compute(result.user()
+                                .getId(), (userId, prefixes) -> {
+                            Set<String> updated = prefixes != null ? prefixes : ConcurrentHashMap.newKeySet();
+                            updated.add(key);
+                            return updated;
+                        });
+            }
+            return results;
+        });
+    }
+
+    public void onUserSaved(UserSavedEvent event) {
+        invalidate(event.userId(), event.username(), event.email(), event.firstname(), event.lastname());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.join("\n", event.userId()
+                    .toString(), nullToEmpty(event.username()), nullToEmpty(event.email()), nullToEmpty(event.firstname()), nullToEmpty(event.lastname())));
+        } catch (Exception e) {
+            log.warn("Could not publish prefix index eviction for {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] fields = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", -1);
+        try {
+            invalidate(UUID.fromString(fields[0]), fields[1], fields[2], fields[3], fields[4]);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed prefix index eviction: {}", fields[0]);
+        }
+    }
+
+    //    xoa nut cua cac tien to moi (user co the vua xuat hien o do) va moi nut dang chua user (tien to cu)
+    private void invalidate(UUID userId, String... terms) {
+        for (String term : terms) {
+            invalidatePrefixes(term);
+        }
+        Set<String> prefixes = prefixesByUser.asMap()
+                .remove(userId);
+        if (prefixes != null) {
+            nodes.invalidateAll(prefixes);
+        }
+    }
+
+    private void invalidatePrefixes(String term) {
+        if (term == null || term.isEmpty()) {
+            return;
+        }
+        String lower = term.toLowerCase();
+        for (int length = 1; length <= Math.min(maxPrefixLength, lower.length()); length++) {
+            nodes.invalidate(lower.substring(0, length));
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mochi.backend.service;
+
+import java.util.UUID;
+
+// phat ra sau khi user duoc tao hoac cap nhat
+public record UserSavedEvent(UUID userId, String username, String email, String firstname, String lastname) {
+}
@@ -0,0 +1,91 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.user.UserPageResponse;
+import com.mochi.backend.repository.UserSearchRepository;
+import com.mochi.backend.utils.CursorUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserSearchService {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+    //    trigram cua chuoi qua ngan khong co y nghia, chi so khop tien to
+    private static final int FUZZY_MIN_LENGTH = 3;
+
+    private final UserSearchRepository userSearchRepository;
+    private final UserPrefixIndex prefixIndex;
+
+    @Value("${users.search.trie.enabled:true}")
+    private boolean trieEnabled;
+
+    private volatile boolean fuzzyAvailable;
+
+    //    CREATE INDEX CONCURRENTLY co the lau tren bang users lon, chay nen; truoc khi xong search chi khop tien to
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    void initIndexes() {
+        fuzzyAvailable = userSearchRepository.ensureIndexes();
+    }
+
+    //    sau commit: nut nap lai tu db thay ngay du lieu moi; chay nen nen khong keo dai request luu user
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    void onUserSaved(UserSavedEvent event) {
+        if (trieEnabled) {
+            prefixIndex.onUserSaved(event);
+        }
+    }
+
+    public UserPageResponse search(String query, Integer limit, String cursor) {
+        String normalized = query == null ? "" : query.strip()
+                .toLowerCase();
+        if (normalized.isEmpty()) {
+            return UserPageResponse.builder()
+                    .items(List.of())
+                    .build();
+        }
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            normalized = normalized.substring(0, MAX_QUERY_LENGTH);
+        }
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        CursorUtils.ScoredCursor after = cursor == null || cursor.isEmpty() ? null : CursorUtils.decodeScored(cursor);
+        boolean fuzzy = fuzzyAvailable && normalized.length() >= FUZZY_MIN_LENGTH;
+
+        List<UserSearchRepository.Result> results;
+        if (trieEnabled && after == null && prefixIndex.covers(normalized, pageSize)) {
+            // nut trie giu top-N, lay them mot dong de biet con trang sau
+            List<UserSearchRepository.Result> top = prefixIndex.get(normalized,
+                    prefix -> userSearchRepository.search(prefix, fuzzy, null, prefixIndex.getTopN() + 1));
+            results = top.subList(0, Math.min(top.size(), pageSize + 1));
+        } else {
+            results = userSearchRepository.search(normalized, fuzzy, after, pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (results.size() > pageSize) {
+            UserSearchRepository.Result last = results.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.score(), last.user()
+                    .getId());
+            results = results.subList(0, pageSize);
+        }
+        return UserPageResponse.builder()
+                .items(results.stream()
+                        .map(UserSearchRepository.Result::user)
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
@@ -3,25 +3,40 @@ package com.mochi.backend.service;
 import com.mochi.backend.dto.user.AddUserRequest;
 import com.mochi.backend.dto.user.ChangePasswordRequest;
 import com.mochi.backend.dto.user.UserDto;
+import com.mochi.backend.dto.user.UserPageRequest;
+import com.mochi.backend.dto.user.UserPageResponse;
 import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.PasswordState;
 import com.mochi.backend.enums.Provider;
 import com.mochi.backend.enums.RoleType;
 import com.mochi.backend.exception.AppException;
 import com.mochi.backend.mapper.UserMapper;
 import com.mochi.backend.model.User;
+import com.mochi.backend.repository.UserQueryRepository;
 import com.mochi.backend.repository.UserRepository;
 import com.mochi.backend.security.userDetails.CustomUserDetails;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import com.mochi.backend.security.userDetails.PrincipalCache;
+import com.mochi.backend.utils.CursorUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,10 +48,19 @@ import java.util.UUID;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class UserService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_OAUTH_INSERT_ATTEMPTS = 3;
+
     UserRepository userRepository;
+    UserQueryRepository userQueryRepository;
+    ObjectMapper objectMapper;
     UserMapper userMapper;
     RoleService roleService;
     PasswordEncoder passwordEncoder;
+    PrincipalCache principalCache;
+    ApplicationEventPublisher eventPublisher;
+    UsernameAllocator usernameAllocator;
 
     public UserDto addUser(
             @RequestPart("data") AddUserRequest addUserRequest,
@@ -53,29 +77,72 @@ public class UserService {
                         .trim())
                 .lastname(addUserRequest.getLastname()
                         .trim())
-                .password(addUserRequest.getPassword()
-                        .trim())
-                .roles(roleService.getRolesByNames(addUserRequest.getRoles()))
+                .roleMask(roleService.getRoleMask(addUserRequest.getRoles()))
                 .enabled(addUserRequest.isEnabled())
                 .provider(Provider.LOCAL.name())
                 .build();
+        user.setRawPassword(addUserRequest.getPassword()
+                .trim());
         return saveUser(user);
     }
 
     public UserDto saveUser(User user) {
-        if (!user.getPassword()
-                .matches("^\\$2[aby]\\$.*")) {
+        if (user.getPasswordState() == PasswordState.RAW) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
+            user.setPasswordState(PasswordState.HASHED);
+        }
+        User saved = userRepository.save(user);
+        // mat khau, role hoac trang thai co the vua doi
+        principalCache.evict(user);
+        publishSaved(saved);
+        return userMapper.toDto(saved);
+    }
 
+    public UserPageResponse getUsers(UserPageRequest request) {
+        int limit = request.getLimit() == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(request.getLimit(), MAX_PAGE_SIZE));
+        CursorUtils.Cursor after = request.getCursor() == null || request.getCursor()
+                .isEmpty() ? null : CursorUtils.decode(request.getCursor());
+        // lay them mot dong de biet con trang sau hay khong
+        List<UserQueryRepository.Row> rows = userQueryRepository.findPage(request, roleFilter(request), after, limit + 1);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            UserQueryRepository.Row last = rows.get(limit - 1);
+            nextCursor = CursorUtils.encode(last.createdAt(), last.user()
+                    .getId());
+            rows = rows.subList(0, limit);
         }
-        return userMapper.toDto(userRepository.save(user));
+        return UserPageResponse.builder()
+                .items(rows.stream()
+                        .map(UserQueryRepository.Row::user)
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    public List<UserDto> getUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(userMapper::toDto)
-                .toList();
+    //    ghi tung dong json ra output ngay khi doc tu cursor jdbc, khong giu danh sach trong bo nho
+    @Transactional(readOnly = true)
+    public void exportUsers(UserPageRequest request, OutputStream out) throws IOException {
+        CursorUtils.Cursor after = request.getCursor() == null || request.getCursor()
+                .isEmpty() ? null : CursorUtils.decode(request.getCursor());
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            userQueryRepository.stream(request, roleFilter(request), after, row -> {
+                try {
+                    generator.writeObject(row.user());
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    //    role khong ton tai thi bao loi thay vi tra ve danh sach rong
+    private long roleFilter(UserPageRequest request) {
+        return request.getRole() == null ? 0 : roleService.getRoleMask(request.getRole());
     }
 
     public Optional<User> findByUsername(String username) {
@@ -95,7 +162,7 @@ public class UserService {
     }
 
     public UserDto getMe(Authentication authentication) {
-        if (authentication.getPrincipal() instanceof CustomUserDetails) {
+        if (authentication.getPrincipal() instanceof UserDetails) {
 
             String currentUsername = getCurrentUser(authentication).getUsername();
             User user = findByUsername(currentUsername)
@@ -111,9 +178,26 @@ public class UserService {
         }
     }
 
-    public User getCurrentUser(Authentication authentication) {
-        CustomUserDetails customUserDetails = (CustomUserDetails) authentication.getPrincipal();
-        return customUserDetails.getUser();
+    //    principal co the la CustomUserDetails (login) hoac JwtPrincipal (access token), ca hai deu la UserDetails
+    public UserDetails getCurrentUser(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
+            return userDetails;
+        }
+        throw new AppException(ErrorCode.ACCOUNT_NOT_EXISTED);
+    }
+
+    //    access token moi co san uid, token cu thi tra theo username
+    public UUID getCurrentUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal && jwtPrincipal.getUserId() != null) {
+            return jwtPrincipal.getUserId();
+        }
+        if (authentication.getPrincipal() instanceof CustomUserDetails customUserDetails) {
+            return customUserDetails.getUser()
+                    .getId();
+        }
+        return findByUsername(getCurrentUser(authentication).getUsername())
+                .map(User::getId)
+                .orElseThrow(() -> new AppException(ErrorCode.ACCOUNT_NOT_EXISTED));
     }
 
     public void changePassword(Authentication authentication, ChangePasswordRequest request) {
@@ -121,52 +205,46 @@ public class UserService {
         User user = findByUsername(currentUsername)
                 .orElseThrow(() -> new AppException(ErrorCode.ACCOUNT_NOT_EXISTED));
         if (passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
-            user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-            userRepository.save(user);
+            user.setRawPassword(request.getNewPassword());
+            saveUser(user);
         } else {
             throw new AppException(ErrorCode.OLD_PASSWORD_INCORRECT);
         }
     }
 
+    //    user google da co (truong hop thuong gap): mot truy van theo provider/providerId (hoac email)
+    //    lan dang nhap dau tien: insert mot cau lenh tra ve luon dong moi, an toan khi nhieu request cung tao mot user
     public User findOrCreateGoogleUser(Map<String, Object> attributes) {
         String email = (String) attributes.get("email");
-        log.info("email: {}", email);
-        Optional<User> optionalUser = findByEmail(email);
-
-        if (optionalUser.isPresent()) {
-            return optionalUser.get();
-        } else {
-            String firstname = (String) attributes.get("given_name");
-            String lastname = (String) attributes.get("family_name");
-            String avatarUrl = (String) attributes.get("picture");
-            String id = (String) attributes.get("sub");
-
-            String username = generateUsernameFromEmail(email);
-            log.info(firstname, lastname, email, id, avatarUrl);
-            User newUser = User.builder()
-                    .email(email)
-                    .username(username)
-                    .firstname(firstname)
-                    .lastname(lastname)
-                    .roles(roleService.getRolesByNames(List.of(RoleType.ROLE_USER.name())))
-                    .enabled(true)
-                    .avatarUrl(avatarUrl)
-                    .provider(Provider.GOOGLE.name())
-                    .providerId(id)
-                    .build();
-            return userRepository.save(newUser);
+        String firstname = (String) attributes.get("given_name");
+        String lastname = (String) attributes.get("family_name");
+        String avatarUrl = (String) attributes.get("picture");
+        String providerId = (String) attributes.get("sub");
+
+        Optional<User> existing = userRepository.findByProviderOrEmail(Provider.GOOGLE.name(), providerId, email);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        for (int attempt = 0; attempt < MAX_OAUTH_INSERT_ATTEMPTS; attempt++) {
+            Optional<User> created = userRepository.insertOAuthUserIfAbsent(UUID.randomUUID(), usernameAllocator.allocate(email), email,
+                    firstname, lastname, avatarUrl, Provider.GOOGLE.name(), providerId, roleService.getRoleMask(RoleType.ROLE_USER.name()));
+            if (created.isPresent()) {
+                publishSaved(created.get());
+                return created.get();
+            }
+            // request khac vua tao cung user
+            existing = userRepository.findByProviderOrEmail(Provider.GOOGLE.name(), providerId, email);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            // xung dot o username (hiem), thu lai voi username khac
+            log.warn("OAuth sign-up for {} hit a username conflict, retrying", email);
         }
+        throw new AppException(ErrorCode.INTERNAL_SERVER);
     }
 
-    private String generateUsernameFromEmail(String email) {
-        String baseUsername = email.split("@")[0];
-        String username;
-        do {
-            String randomSuffix = UUID.randomUUID()
-                    .toString()
-                    .substring(0, 8);
-            username = baseUsername + "_" + randomSuffix;
-        } while (userRepository.existsByUsername(username));
-        return username;
+    private void publishSaved(User user) {
+        eventPublisher.publishEvent(new UserSavedEvent(user.getId(), user.getUsername(), user.getEmail(),
+                user.getFirstname(), user.getLastname()));
     }
 }
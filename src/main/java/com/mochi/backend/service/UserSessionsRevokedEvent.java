@@ -0,0 +1,7 @@
+package com.mochi.backend.service;
+
+import java.util.UUID;
+
+// phat ra khi moi phien cua user bi thu hoi (dang xuat moi phien, dat lai mat khau)
+public record UserSessionsRevokedEvent(UUID userId) {
+}
@@ -0,0 +1,44 @@
+package com.mochi.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// cap username cho tai khoan oauth khong can hoi db: <phan dau email>_<ma node><bo dem>
+// ma node ngau nhien moi lan khoi dong nen cac node khong trung nhau; neu van trung, insert ON CONFLICT se bo qua va thu lai
+@Component
+public class UsernameAllocator {
+    private static final int MAX_BASE_LENGTH = 18;
+    private static final String NODE_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    private final String nodeTag;
+    private final AtomicLong counter = new AtomicLong();
+
+    public UsernameAllocator() {
+        SecureRandom random = new SecureRandom();
+        char[] tag = new char[4];
+        for (int i = 0; i < tag.length; i++) {
+            tag[i] = NODE_ALPHABET.charAt(random.nextInt(NODE_ALPHABET.length()));
+        }
+        this.nodeTag = new String(tag);
+    }
+
+    public String allocate(String email) {
+        StringBuilder username = new StringBuilder(30);
+        int end = email == null ? -1 : email.indexOf('@');
+        for (int i = 0; i < end && username.length() < MAX_BASE_LENGTH; i++) {
+            char c = email.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '_' || c == '-') {
+                username.append(c);
+            }
+        }
+        if (username.isEmpty()) {
+            username.append("user");
+        }
+        return username.append('_')
+                .append(nodeTag)
+                .append(Long.toString(counter.getAndIncrement(), 36))
+                .toString();
+    }
+}
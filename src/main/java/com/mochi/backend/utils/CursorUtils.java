@@ -0,0 +1,63 @@
+package com.mochi.backend.utils;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// cursor phan trang theo (created_at, id), ma hoa base64url de client chi coi la chuoi
+public class CursorUtils {
+
+    public static String encode(LocalDateTime createdAt, UUID id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder()
+                    .decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)), UUID.fromString(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    //    cursor cho ket qua tim kiem xep theo (score giam dan, id)
+    public static String encode(double score, UUID id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((score + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ScoredCursor decodeScored(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder()
+                    .decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new ScoredCursor(Double.parseDouble(value.substring(0, separator)), UUID.fromString(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    //    cursor cua lich su tin nhan la chinh id snowflake dang chuoi
+    public static Long decodeId(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public record Cursor(LocalDateTime createdAt, UUID id) {
+    }
+
+    public record ScoredCursor(double score, UUID id) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.mochi.backend.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// id 64 bit tang dan theo thoi gian: 41 bit ms tu EPOCH | 10 bit node | 12 bit sequence
+// id moi luon lon hon id cu nen insert chi ghi vao cuoi btree, sap xep theo id cung la sap xep theo thoi gian
+@Component
+public class SnowflakeIdGenerator {
+    //    2025-01-01T00:00:00Z
+    private static final long EPOCH = 1735689600000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    public SnowflakeIdGenerator(@Value("${chat.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("chat.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    //    dong ho lui hoac het sequence trong 1 ms thi muon ms tiep theo, khong cho va khong sinh id trung
+    public synchronized long nextId() {
+        long now = System.currentTimeMillis();
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            sequence = 0;
+        } else if (++sequence > SEQUENCE_MASK) {
+            lastTimestamp++;
+            sequence = 0;
+        }
+        return ((lastTimestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
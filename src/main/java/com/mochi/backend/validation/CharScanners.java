@@ -0,0 +1,109 @@
+package com.mochi.backend.validation;
+
+// kiem tra dinh dang bang cach duyet tung ky tu, thay cho String.matches (bien dich regex moi lan goi)
+// moi ham tuong duong voi regex cu ghi o comment
+public final class CharScanners {
+    private static final String PASSWORD_SPECIALS = "!@#$%^&*()_+{}[]:;<>,.?~\\/-";
+
+    private CharScanners() {
+    }
+
+    //    value.trim().isEmpty(): trim bo moi ky tu <= ' ', khong phai Character.isWhitespace
+    public static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //    ^[a-zA-Z0-9._-]+$
+    public static boolean isUsername(CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isUsernameChar(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //    ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$
+    public static boolean isEmail(CharSequence value) {
+        int length = value.length();
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '@') {
+                if (at >= 0) {
+                    return false;
+                }
+                at = i;
+            } else if (at < 0 ? !isEmailLocalChar(c) : !isEmailDomainChar(c)) {
+                return false;
+            }
+        }
+        return at > 0 && at < length - 1;
+    }
+
+    //    ^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\[\]:;<>,.?~\\/-]).*$
+    public static boolean isStrongPassword(CharSequence value) {
+        boolean upper = false;
+        boolean digit = false;
+        boolean special = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isLineTerminator(c)) {
+                return false;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (PASSWORD_SPECIALS.indexOf(c) >= 0) {
+                special = true;
+            }
+        }
+        return upper && digit && special;
+    }
+
+    //    ^[\p{L} ]+$
+    public static boolean isPersonName(CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; ) {
+            int codePoint = Character.codePointAt(value, i);
+            if (codePoint != ' ' && !Character.isLetter(codePoint)) {
+                return false;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return true;
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isUsernameChar(char c) {
+        return isAsciiAlphanumeric(c) || c == '.' || c == '_' || c == '-';
+    }
+
+    private static boolean isEmailLocalChar(char c) {
+        return isUsernameChar(c) || c == '+';
+    }
+
+    private static boolean isEmailDomainChar(char c) {
+        return isAsciiAlphanumeric(c) || c == '.' || c == '-';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
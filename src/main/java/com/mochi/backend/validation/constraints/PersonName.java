@@ -0,0 +1,19 @@
+package com.mochi.backend.validation.constraints;
+
+import com.mochi.backend.validation.validator.PersonNameValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+@Documented
+@Constraint(validatedBy = {PersonNameValidator.class})
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PersonName {
+    String message() default "{FIRSTNAME_REGEX}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
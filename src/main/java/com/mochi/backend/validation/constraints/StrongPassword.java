@@ -0,0 +1,19 @@
+package com.mochi.backend.validation.constraints;
+
+import com.mochi.backend.validation.validator.StrongPasswordValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+@Documented
+@Constraint(validatedBy = {StrongPasswordValidator.class})
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StrongPassword {
+    String message() default "{PASSWORD_REGEX}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
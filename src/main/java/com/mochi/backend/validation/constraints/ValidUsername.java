@@ -0,0 +1,19 @@
+package com.mochi.backend.validation.constraints;
+
+import com.mochi.backend.validation.validator.ValidUsernameValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+@Documented
+@Constraint(validatedBy = {ValidUsernameValidator.class})
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidUsername {
+    String message() default "{USERNAME_REGEX}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -1,14 +1,12 @@
 package com.mochi.backend.validation.validator;
 
+import com.mochi.backend.validation.CharScanners;
 import com.mochi.backend.validation.constraints.UsernameOrEmail;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 public class UsernameOrEmailValidator implements ConstraintValidator<UsernameOrEmail, String> {
 
-    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
-    private static final String USERNAME_REGEX = "^[a-zA-Z0-9._-]+$";
-
     private int usernameMin;
     private int usernameMax;
     private int emailMax;
@@ -22,15 +20,14 @@ public class UsernameOrEmailValidator implements ConstraintValidator<UsernameOrE
 
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
-        if (value == null || value.trim()
-                .isEmpty()) {
+        if (value == null || CharScanners.isBlank(value)) {
             context.disableDefaultConstraintViolation();
             context.buildConstraintViolationWithTemplate("{NOT_BLANK}")
                     .addConstraintViolation();
             return false;
         }
-        boolean isEmail = value.matches(EMAIL_REGEX);
-        boolean isUsername = value.matches(USERNAME_REGEX);
+        boolean isEmail = CharScanners.isEmail(value);
+        boolean isUsername = !isEmail && CharScanners.isUsername(value);
 
         if (!isEmail && !isUsername) {
             context.disableDefaultConstraintViolation();
@@ -0,0 +1,15 @@
+package com.mochi.backend.validation.validator;
+
+import com.mochi.backend.validation.CharScanners;
+import com.mochi.backend.validation.constraints.ValidUsername;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class ValidUsernameValidator implements ConstraintValidator<ValidUsername, String> {
+
+    //    null do @NotBlank kiem tra
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || CharScanners.isUsername(value);
+    }
+}
@@ -0,0 +1,301 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisMode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+// phat frame toi moi session cua danh sach user, user ket noi o node nao cung nhan duoc
+// node gui nhom nguoi nhan theo node (ChatRouteRegistry): moi node dich chi mot PUBLISH mang ca danh sach user
+// mot thread gom cac PUBLISH dang cho vao mot pipeline; hang doi day thi tu choi SEND moi thay vi don vao bo nho
+// node nhan chia nguoi nhan theo lane (hash userId), moi lane mot thread nen frame toi mot user giu dung thu tu
+// PUBLISH khong toi subscriber nao thi node dich da chet, xoa route; redis cluster chi dem subscriber tren node nhan lenh
+// nen o che do cluster khong xoa, route chet tu het han theo redis.ttl.chat-route
+@Slf4j
+@Component
+public class ChatBus implements MessageListener {
+    private static final String CHANNEL_PREFIX = "chat:node:";
+    //    publishedAt (8) + so nguoi nhan (4)
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int UUID_SIZE = 2 * Long.BYTES;
+
+    private final ChatSessionRegistry sessionRegistry;
+    private final ChatRouteRegistry routeRegistry;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final int nodeId;
+    private final boolean pruneStaleRoutes;
+
+    private final BlockingQueue<Outbound> queue;
+    private final ExecutorService publisher;
+    private final ThreadPoolExecutor[] lanes;
+    private volatile boolean running;
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+    private final Counter staleRouteCounter;
+    private final DistributionSummary batchSize;
+    private final Timer latencyTimer;
+
+    @Value("${chat.bus.batch-size:256}")
+    private int maxBatchSize;
+
+    public ChatBus(ChatSessionRegistry sessionRegistry,
+                   ChatRouteRegistry routeRegistry,
+                   RedisService redisService,
+                   @Qualifier("chatBusListenerContainer") RedisMessageListenerContainer listenerContainer,
+                   SnowflakeIdGenerator idGenerator,
+                   MeterRegistry meterRegistry,
+                   @Value("${chat.bus.queue-capacity:10000}") int queueCapacity,
+                   @Value("${chat.bus.delivery-lanes:4}") int laneCount,
+                   @Value("${chat.bus.lane-capacity:10000}") int laneCapacity,
+                   @Value("${redis.mode:standalone}") RedisMode redisMode) {
+        this.sessionRegistry = sessionRegistry;
+        this.routeRegistry = routeRegistry;
+        this.redisService = redisService;
+        this.listenerContainer = listenerContainer;
+        this.nodeId = (int) idGenerator.getNodeId();
+        this.pruneStaleRoutes = redisMode != RedisMode.CLUSTER;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.publisher = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                .name("chat-bus-publisher")
+                .daemon()
+                .factory());
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity), Thread.ofPlatform()
+                    .name("chat-delivery-" + i)
+                    .daemon()
+                    .factory());
+        }
+
+        Gauge.builder("chat.bus.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        Gauge.builder("chat.bus.delivery.queue", lanes, ChatBus::pendingDeliveries)
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("chat.bus.published")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("chat.bus.received")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("chat.bus.rejected")
+                .description("Frames refused because the publish queue was full")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("chat.bus.dropped")
+                .description("Local deliveries dropped because a delivery lane was full")
+                .register(meterRegistry);
+        this.staleRouteCounter = Counter.builder("chat.bus.stale_routes")
+                .description("Publishes that reached no subscriber, their routes are removed")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("chat.bus.publish.batch")
+                .description("Publishes sent in one Redis pipeline")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("chat.bus.latency")
+                .description("Publish to receive delay of cross-node frames, includes clock skew between nodes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + nodeId));
+        publisher.submit(this::runPublisher);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        publisher.shutdown();
+        if (!publisher.awaitTermination(5, TimeUnit.SECONDS)) {
+            publisher.shutdownNow();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    //    goi truoc khi nhan tin moi: hang doi publish day nghia la redis/node khac khong theo kip, client gui lai sau
+    public void ensureCapacity() {
+        if (queue.remainingCapacity() == 0) {
+            rejectedCounter.increment();
+            throw new AppException(ErrorCode.CHAT_BUSY);
+        }
+    }
+
+    //    excludeSessionId chi co nghia o node gui (session vua gui frame len)
+    public void publish(Collection<UUID> userIds, TextMessage message, String excludeSessionId) {
+        List<UUID> recipients = new ArrayList<>(userIds.size());
+        List<UUID> local = new ArrayList<>();
+        for (UUID userId : userIds) {
+            recipients.add(userId);
+            if (sessionRegistry.isConnected(userId)) {
+                local.add(userId);
+            }
+        }
+        deliverLocal(local, message, excludeSessionId);
+
+        //    user co the mo ket noi o nhieu node nen van tra route cho ca nguoi nhan dang o local
+        Map<Integer, List<UUID>> usersByNode;
+        try {
+            usersByNode = routeRegistry.lookup(recipients);
+        } catch (Exception e) {
+            log.warn("Could not look up chat routes: {}", e.getMessage());
+            return;
+        }
+        byte[] payload = message.asBytes();
+        long publishedAt = System.currentTimeMillis();
+        usersByNode.forEach((node, users) -> {
+            if (node == nodeId) {
+                return;
+            }
+            if (!queue.offer(new Outbound(node, users, encode(publishedAt, users, payload)))) {
+                rejectedCounter.increment();
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ByteBuffer buffer = ByteBuffer.wrap(message.getBody());
+        long publishedAt = buffer.getLong();
+        int count = buffer.getInt();
+        List<UUID> userIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            userIds.add(new UUID(buffer.getLong(), buffer.getLong()));
+        }
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        receivedCounter.increment();
+        latencyTimer.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - publishedAt)));
+        deliverLocal(userIds, new TextMessage(payload), null);
+    }
+
+    //    lane day thi bo frame cho nhom user do: session cham khong duoc keo ca node, client lay lai tu lich su
+    private void deliverLocal(List<UUID> userIds, TextMessage message, String excludeSessionId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<List<UUID>> byLane = new ArrayList<>(Collections.nCopies(lanes.length, null));
+        for (UUID userId : userIds) {
+            int lane = Math.floorMod(userId.hashCode(), lanes.length);
+            if (byLane.get(lane) == null) {
+                byLane.set(lane, new ArrayList<>());
+            }
+            byLane.get(lane)
+                    .add(userId);
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            List<UUID> users = byLane.get(i);
+            if (users == null) {
+                continue;
+            }
+            try {
+                lanes[i].execute(() -> {
+                    for (UUID userId : users) {
+                        sessionRegistry.sendToUser(userId, message, excludeSessionId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                droppedCounter.increment(users.size());
+            }
+        }
+    }
+
+    private void runPublisher() {
+        List<Outbound> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Outbound first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                        .interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Could not publish {} chat frames: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publishBatch(List<Outbound> batch) {
+        List<Object> receivers = redisService.pipelined((RedisCallback<Object>) connection -> {
+            for (Outbound outbound : batch) {
+                connection.publish(channel(outbound.node()), outbound.body());
+            }
+            return null;
+        });
+        publishedCounter.increment(batch.size());
+        batchSize.record(batch.size());
+        if (!pruneStaleRoutes) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (receivers.get(i) instanceof Long count && count == 0) {
+                Outbound outbound = batch.get(i);
+                staleRouteCounter.increment();
+                routeRegistry.removeNode(outbound.node(), outbound.userIds());
+            }
+        }
+    }
+
+    private static byte[] channel(int node) {
+        return (CHANNEL_PREFIX + node).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] encode(long publishedAt, List<UUID> userIds, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + userIds.size() * UUID_SIZE + payload.length);
+        buffer.putLong(publishedAt);
+        buffer.putInt(userIds.size());
+        for (UUID userId : userIds) {
+            buffer.putLong(userId.getMostSignificantBits());
+            buffer.putLong(userId.getLeastSignificantBits());
+        }
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    private static double pendingDeliveries(ThreadPoolExecutor[] lanes) {
+        int pending = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            pending += lane.getQueue()
+                    .size();
+        }
+        return pending;
+    }
+
+    private record Outbound(int node, List<UUID> userIds, byte[] body) {
+    }
+}
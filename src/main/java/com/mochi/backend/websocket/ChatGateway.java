@@ -0,0 +1,121 @@
+package com.mochi.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.dto.chat.ChatFrame;
+import com.mochi.backend.dto.chat.MessageDto;
+import com.mochi.backend.enums.ChatEventType;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.PresenceStatus;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import com.mochi.backend.service.ConversationService;
+import com.mochi.backend.service.MessageService;
+import com.mochi.backend.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+// xu ly frame client gui len va chuyen toi cac session cua thanh vien conversation qua ChatBus
+// frame chi serialize mot lan roi dung chung cho moi session nhan, ke ca o node khac
+@Component
+@RequiredArgsConstructor
+public class ChatGateway {
+    private final ChatSessionRegistry sessionRegistry;
+    private final ChatBus chatBus;
+    private final ConversationService conversationService;
+    private final MessageService messageService;
+    private final PresenceService presenceService;
+    private final ObjectMapper objectMapper;
+
+    public void handle(JwtPrincipal sender, WebSocketSession session, ChatFrame frame) {
+        if (frame.getType() == null) {
+            throw new AppException(ErrorCode.CHAT_FRAME_INVALID);
+        }
+        switch (frame.getType()) {
+            case SEND -> send(sender, session, frame);
+            case TYPING -> forward(sender, session, frame,
+                    conversationService.requireMember(frame.getConversationId(), sender.getUserId()));
+            case READ -> read(sender, session, frame);
+            case HEARTBEAT -> heartbeat(sender, frame);
+            default -> throw new AppException(ErrorCode.CHAT_FRAME_INVALID);
+        }
+    }
+
+    public TextMessage encode(ChatFrame frame) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(frame));
+        } catch (JsonProcessingException e) {
+            throw new AppException(ErrorCode.INTERNAL_SERVER);
+        }
+    }
+
+    public TextMessage error(ErrorCode errorCode, String clientMessageId) {
+        return encode(ChatFrame.builder()
+                .type(ChatEventType.ERROR)
+                .clientMessageId(clientMessageId)
+                .error(errorCode.getMessage())
+                .build());
+    }
+
+    //    luu truoc roi moi phat, ACK mang id tin nhan da luu
+    private void send(JwtPrincipal sender, WebSocketSession session, ChatFrame frame) {
+        chatBus.ensureCapacity();
+        MessageDto message = messageService.send(sender.getUserId(), frame.getConversationId(),
+                frame.getClientMessageId(), frame.getContent());
+        long timestamp = message.getCreatedAt()
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+        TextMessage outbound = encode(ChatFrame.builder()
+                .type(ChatEventType.MESSAGE)
+                .conversationId(message.getConversationId())
+                .messageId(message.getId())
+                .from(message.getSenderId())
+                .clientMessageId(message.getClientMessageId())
+                .content(message.getContent())
+                .timestamp(timestamp)
+                .build());
+        //    ca cac thiet bi khac cua nguoi gui cung nhan MESSAGE
+        chatBus.publish(conversationService.getMemberIds(message.getConversationId()), outbound, session.getId());
+        sessionRegistry.send(session, encode(ChatFrame.builder()
+                .type(ChatEventType.ACK)
+                .conversationId(message.getConversationId())
+                .messageId(message.getId())
+                .clientMessageId(message.getClientMessageId())
+                .timestamp(timestamp)
+                .build()));
+    }
+
+    private void read(JwtPrincipal sender, WebSocketSession session, ChatFrame frame) {
+        if (frame.getMessageId() == null) {
+            throw new AppException(ErrorCode.CHAT_FRAME_INVALID);
+        }
+        conversationService.markRead(frame.getConversationId(), sender.getUserId(), frame.getMessageId());
+        forward(sender, session, frame, conversationService.getMemberIds(frame.getConversationId()));
+    }
+
+    private void heartbeat(JwtPrincipal sender, ChatFrame frame) {
+        PresenceStatus status = frame.getStatus() == null ? PresenceStatus.ONLINE : frame.getStatus();
+        if (status == PresenceStatus.OFFLINE) {
+            throw new AppException(ErrorCode.CHAT_FRAME_INVALID);
+        }
+        presenceService.heartbeat(sender.getUserId(), status);
+    }
+
+    private void forward(JwtPrincipal sender, WebSocketSession session, ChatFrame frame, List<UUID> memberIds) {
+        TextMessage outbound = encode(ChatFrame.builder()
+                .type(frame.getType())
+                .conversationId(frame.getConversationId())
+                .messageId(frame.getMessageId())
+                .from(sender.getUserId())
+                .timestamp(System.currentTimeMillis())
+                .build());
+        chatBus.publish(memberIds, outbound, session.getId());
+    }
+}
@@ -0,0 +1,167 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+// userId -> cac node dang giu ket noi cua user, luu trong redis set chat:route:{userId}
+// node gia han ttl cho user cua minh theo chu ky, node chet thi route tu het han (hoac bi ChatBus xoa khi PUBLISH khong ai nhan)
+@Slf4j
+@Component
+public class ChatRouteRegistry {
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final RedisService redisService;
+    private final ChatSessionRegistry sessionRegistry;
+    private final byte[] nodeMember;
+    private final long ttlMs;
+    private final Counter errorCounter;
+
+    public ChatRouteRegistry(RedisService redisService, ChatSessionRegistry sessionRegistry,
+                             SnowflakeIdGenerator idGenerator, MeterRegistry meterRegistry) {
+        this.redisService = redisService;
+        this.sessionRegistry = sessionRegistry;
+        this.nodeMember = Long.toString(idGenerator.getNodeId())
+                .getBytes(StandardCharsets.US_ASCII);
+        this.ttlMs = redisService.ttl(RedisNamespace.CHAT_ROUTE)
+                .toMillis();
+        this.errorCounter = Counter.builder("chat.route.errors")
+                .description("Route updates that could not be written to Redis")
+                .register(meterRegistry);
+    }
+
+    //    loi redis chi ghi log: user van nhan duoc tin tu node nay, route duoc ghi lai o lan refresh sau
+    public void add(UUID userId) {
+        try {
+            redisService.pipelined((RedisCallback<Object>) connection -> {
+                addRoute(connection, RedisNamespace.CHAT_ROUTE.key(userId.toString()));
+                return null;
+            });
+        } catch (Exception e) {
+            errorCounter.increment();
+            log.warn("Could not register chat route for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    //    chi bo node khi khong con session nao cua user tren node nay, kiem tra lai sau SREM:
+    //    ket noi lai cung luc thi register chay truoc SADD cua no, neu SADD do chay truoc SREM thi lan kiem tra sau thay session va ghi lai route
+    public void remove(UUID userId) {
+        if (sessionRegistry.isConnected(userId)) {
+            return;
+        }
+        try {
+            redisService.pipelined((RedisCallback<Object>) connection -> {
+                connection.setCommands()
+                        .sRem(RedisNamespace.CHAT_ROUTE.key(userId.toString()), nodeMember);
+                return null;
+            });
+        } catch (Exception e) {
+            errorCounter.increment();
+            log.warn("Could not remove chat route for {}: {}", userId, e.getMessage());
+            return;
+        }
+        if (sessionRegistry.isConnected(userId)) {
+            add(userId);
+        }
+    }
+
+    //    mot pipeline SMEMBERS cho ca danh sach, ket qua nhom theo node
+    public Map<Integer, List<UUID>> lookup(List<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Object> results = redisService.pipelined((RedisCallback<Object>) connection -> {
+            for (UUID userId : userIds) {
+                connection.setCommands()
+                        .sMembers(RedisNamespace.CHAT_ROUTE.key(userId.toString()));
+            }
+            return null;
+        });
+        Map<Integer, List<UUID>> usersByNode = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            if (!(results.get(i) instanceof Collection<?> members)) {
+                continue;
+            }
+            for (Object member : members) {
+                int node = Integer.parseInt(new String((byte[]) member, StandardCharsets.US_ASCII));
+                usersByNode.computeIfAbsent(node, key -> new ArrayList<>())
+                        .add(userIds.get(i));
+            }
+        }
+        return usersByNode;
+    }
+
+    //    node khong con subscribe kenh cua no: bo node khoi route cua cac user nay
+    public void removeNode(int node, Collection<UUID> userIds) {
+        byte[] member = Integer.toString(node)
+                .getBytes(StandardCharsets.US_ASCII);
+        redisService.pipelined((RedisCallback<Object>) connection -> {
+            for (UUID userId : userIds) {
+                connection.setCommands()
+                        .sRem(RedisNamespace.CHAT_ROUTE.key(userId.toString()), member);
+            }
+            return null;
+        });
+    }
+
+    //    chu ky phai ngan hon ttl cua namespace chat-route
+    @Scheduled(fixedDelayString = "${chat.bus.route-refresh-ms:600000}",
+            initialDelayString = "${chat.bus.route-refresh-ms:600000}")
+    public void refresh() {
+        forEachBatch(batch -> redisService.pipelined((RedisCallback<Object>) connection -> {
+            for (UUID userId : batch) {
+                addRoute(connection, RedisNamespace.CHAT_ROUTE.key(userId.toString()));
+            }
+            return null;
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        forEachBatch(batch -> redisService.pipelined((RedisCallback<Object>) connection -> {
+            for (UUID userId : batch) {
+                connection.setCommands()
+                        .sRem(RedisNamespace.CHAT_ROUTE.key(userId.toString()), nodeMember);
+            }
+            return null;
+        }));
+    }
+
+    private void addRoute(RedisConnection connection, byte[] key) {
+        connection.setCommands()
+                .sAdd(key, nodeMember);
+        connection.keyCommands()
+                .pExpire(key, ttlMs);
+    }
+
+    private void forEachBatch(Consumer<List<UUID>> action) {
+        List<UUID> batch = new ArrayList<>(REFRESH_BATCH_SIZE);
+        try {
+            for (UUID userId : sessionRegistry.connectedUserIds()) {
+                batch.add(userId);
+                if (batch.size() == REFRESH_BATCH_SIZE) {
+                    action.accept(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                action.accept(batch);
+            }
+        } catch (Exception e) {
+            errorCounter.increment();
+            log.warn("Could not refresh chat routes: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import com.mochi.backend.service.RevokedTokenService;
+import com.mochi.backend.service.UserSessionsRevokedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+// session websocket chi song toi khi access token dung luc bat tay het han, bi thu hoi hoac user dang xuat moi phien
+// frame tu client duoc kiem tra o ChatWebSocketHandler, session im lang duoc quet dinh ky
+// thu hoi tren node khac den qua pub/sub: kenh revoked-tokens cua RevokedTokenService va kenh ws-close-user
+@Slf4j
+@Component
+public class ChatSessionGuard implements MessageListener {
+    //    client nhan ma nay thi lay access token moi roi ket noi lai
+    public static final CloseStatus TOKEN_INVALID = new CloseStatus(4401, "Access token expired or revoked");
+    private static final String CLOSE_USER_CHANNEL = "ws-close-user";
+
+    private final ChatSessionRegistry sessionRegistry;
+    private final RevokedTokenService revokedTokenService;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Counter closedCounter;
+
+    public ChatSessionGuard(ChatSessionRegistry sessionRegistry, RevokedTokenService revokedTokenService,
+                            StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                            MeterRegistry meterRegistry) {
+        this.sessionRegistry = sessionRegistry;
+        this.revokedTokenService = revokedTokenService;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.closedCounter = Counter.builder("chat.ws.auth.closed")
+                .description("Sessions closed because their access token expired or was revoked")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this,
+                List.of(new ChannelTopic(RevokedTokenService.CHANNEL), new ChannelTopic(CLOSE_USER_CHANNEL)));
+    }
+
+    //    true neu session da bi dong
+    public boolean closeIfInvalid(WebSocketSession session) {
+        if (isValid(session, System.currentTimeMillis())) {
+            return false;
+        }
+        close(session);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.ws.auth-check-ms:15000}")
+    void closeInvalidSessions() {
+        long now = System.currentTimeMillis();
+        sessionRegistry.forEachSession(session -> {
+            if (!isValid(session, now)) {
+                close(session);
+            }
+        });
+    }
+
+    //    dong ngay tren node nay, cac node khac nhan qua pub/sub
+    @EventListener
+    void onUserSessionsRevoked(UserSessionsRevokedEvent event) {
+        closeUser(event.userId());
+        try {
+            redisTemplate.convertAndSend(CLOSE_USER_CHANNEL, event.userId()
+                    .toString());
+        } catch (Exception e) {
+            log.warn("Could not broadcast session close for user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (CLOSE_USER_CHANNEL.equals(channel)) {
+                closeUser(UUID.fromString(body));
+            } else {
+                //    jti:expiresAtMs
+                closeToken(UUID.fromString(body.substring(0, body.indexOf(':'))));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed message on {}: {}", channel, body);
+        }
+    }
+
+    private boolean isValid(WebSocketSession session, long now) {
+        Object expiresAt = session.getAttributes()
+                .get(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE);
+        if (!(expiresAt instanceof Long expiresAtMs) || expiresAtMs <= now) {
+            return false;
+        }
+        JwtPrincipal principal = principal(session);
+        return principal != null && !revokedTokenService.isRevoked(principal.getTokenId());
+    }
+
+    private void closeUser(UUID userId) {
+        for (WebSocketSession session : sessionRegistry.sessions(userId)) {
+            close(session);
+        }
+    }
+
+    private void closeToken(UUID jti) {
+        sessionRegistry.forEachSession(session -> {
+            JwtPrincipal principal = principal(session);
+            if (principal != null && jti.equals(principal.getTokenId())) {
+                close(session);
+            }
+        });
+    }
+
+    private void close(WebSocketSession session) {
+        if (!session.isOpen()) {
+            return;
+        }
+        closedCounter.increment();
+        try {
+            session.close(TOKEN_INVALID);
+        } catch (IOException e) {
+            // session da dong
+        }
+    }
+
+    private static JwtPrincipal principal(WebSocketSession session) {
+        return (JwtPrincipal) session.getAttributes()
+                .get(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE);
+    }
+}
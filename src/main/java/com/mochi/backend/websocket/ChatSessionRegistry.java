@@ -0,0 +1,156 @@
+package com.mochi.backend.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// userId -> cac session dang mo tren node nay
+// da so user chi co 1-2 thiet bi nen dung mang copy-on-write thay vi Set, moi ket noi ton it bo nho nhat co the
+@Slf4j
+@Component
+public class ChatSessionRegistry {
+    private final ConcurrentHashMap<UUID, WebSocketSession[]> sessionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final Counter droppedCounter;
+
+    public ChatSessionRegistry(MeterRegistry meterRegistry,
+                               @Value("${chat.ws.send-time-limit:5s}") Duration sendTimeLimit,
+                               @Value("${chat.ws.buffer-size-limit:65536}") int bufferSizeLimit) {
+        this.sendTimeLimitMs = (int) sendTimeLimit.toMillis();
+        this.bufferSizeLimit = bufferSizeLimit;
+        Gauge.builder("chat.ws.connections", connections, AtomicInteger::get)
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.users", sessionsByUser, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("chat.ws.dropped")
+                .description("Sessions closed because their outbound buffer overflowed or a send failed")
+                .register(meterRegistry);
+    }
+
+    //    client doc cham thi buffer gui bi day, TERMINATE dong session thay vi giu tin nhan trong bo nho
+    public WebSocketSession register(UUID userId, WebSocketSession session) {
+        WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit,
+                ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        sessionsByUser.merge(userId, new WebSocketSession[]{outbound}, (current, added) -> {
+            WebSocketSession[] sessions = Arrays.copyOf(current, current.length + 1);
+            sessions[current.length] = added[0];
+            return sessions;
+        });
+        connections.incrementAndGet();
+        return outbound;
+    }
+
+    public void unregister(UUID userId, WebSocketSession session) {
+        boolean[] removed = new boolean[1];
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            for (int i = 0; i < sessions.length; i++) {
+                if (sessions[i].getId()
+                        .equals(session.getId())) {
+                    removed[0] = true;
+                    if (sessions.length == 1) {
+                        return null;
+                    }
+                    WebSocketSession[] remaining = new WebSocketSession[sessions.length - 1];
+                    System.arraycopy(sessions, 0, remaining, 0, i);
+                    System.arraycopy(sessions, i + 1, remaining, i, sessions.length - i - 1);
+                    return remaining;
+                }
+            }
+            return sessions;
+        });
+        if (removed[0]) {
+            connections.decrementAndGet();
+        }
+    }
+
+    public boolean isConnected(UUID userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public List<WebSocketSession> sessions(UUID userId) {
+        WebSocketSession[] sessions = sessionsByUser.get(userId);
+        return sessions == null ? List.of() : Arrays.asList(sessions);
+    }
+
+    public void forEachSession(Consumer<WebSocketSession> action) {
+        for (WebSocketSession[] sessions : sessionsByUser.values()) {
+            for (WebSocketSession session : sessions) {
+                action.accept(session);
+            }
+        }
+    }
+
+    public Set<UUID> connectedUserIds() {
+        return sessionsByUser.keySet();
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public int sendToUser(UUID userId, TextMessage message) {
+        return sendToUser(userId, message, null);
+    }
+
+    //    excludeSessionId: khong gui lai cho chinh session vua gui frame len
+    public int sendToUser(UUID userId, TextMessage message, String excludeSessionId) {
+        WebSocketSession[] sessions = sessionsByUser.get(userId);
+        if (sessions == null) {
+            return 0;
+        }
+        int delivered = 0;
+        for (WebSocketSession session : sessions) {
+            if (!session.getId()
+                    .equals(excludeSessionId) && send(session, message)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    public boolean send(WebSocketSession session, TextMessage message) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        try {
+            session.sendMessage(message);
+            return true;
+        } catch (SessionLimitExceededException e) {
+            droppedCounter.increment();
+            log.debug("Session {} closed: {}", session.getId(), e.getMessage());
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            droppedCounter.increment();
+            closeQuietly(session);
+            return false;
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            // session da dong
+        }
+    }
+}
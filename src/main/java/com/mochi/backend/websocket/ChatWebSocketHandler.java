@@ -0,0 +1,92 @@
+package com.mochi.backend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.dto.chat.ChatFrame;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import com.mochi.backend.service.PresenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.UUID;
+
+// session da duoc xac thuc o JwtHandshakeInterceptor, moi frame chi kiem tra token luc bat tay chua het han/bi thu hoi
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatWebSocketHandler extends TextWebSocketHandler {
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+
+    private final ChatSessionRegistry sessionRegistry;
+    private final ChatRouteRegistry routeRegistry;
+    private final PresenceService presenceService;
+    private final ChatGateway chatGateway;
+    private final ChatSessionGuard sessionGuard;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        UUID userId = principal(session).getUserId();
+        WebSocketSession outbound = sessionRegistry.register(userId, session);
+        session.getAttributes()
+                .put(OUTBOUND_ATTRIBUTE, outbound);
+        routeRegistry.add(userId);
+        presenceService.connected(userId);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        if (sessionGuard.closeIfInvalid(session)) {
+            return;
+        }
+        WebSocketSession outbound = outbound(session);
+        ChatFrame frame;
+        try {
+            frame = objectMapper.readValue(message.getPayload(), ChatFrame.class);
+        } catch (JsonProcessingException e) {
+            sessionRegistry.send(outbound, chatGateway.error(ErrorCode.CHAT_FRAME_INVALID, null));
+            return;
+        }
+        try {
+            chatGateway.handle(principal(session), outbound, frame);
+        } catch (AppException e) {
+            sessionRegistry.send(outbound, chatGateway.error(e.getErrorCode(), frame.getClientMessageId()));
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("WebSocket transport error on {}: {}", session.getId(), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        UUID userId = principal(session).getUserId();
+        sessionRegistry.unregister(userId, session);
+        //    session cuoi cua user tren node nay, remove tu kiem tra lai neu user vua ket noi lai
+        if (!sessionRegistry.isConnected(userId)) {
+            routeRegistry.remove(userId);
+            if (!sessionRegistry.isConnected(userId)) {
+                presenceService.disconnected(userId);
+            }
+        }
+    }
+
+    private static JwtPrincipal principal(WebSocketSession session) {
+        return (JwtPrincipal) session.getAttributes()
+                .get(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE);
+    }
+
+    private static WebSocketSession outbound(WebSocketSession session) {
+        Object outbound = session.getAttributes()
+                .get(OUTBOUND_ATTRIBUTE);
+        return outbound == null ? session : (WebSocketSession) outbound;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.ParsedToken;
+import com.mochi.backend.security.userDetails.GrantedAuthorities;
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// xac thuc access token mot lan khi bat tay, sau do moi frame chi doc principal trong attributes cua session
+// trinh duyet khong dat duoc header Authorization cho websocket nen nhan token qua Sec-WebSocket-Protocol:
+// client gui new WebSocket(url, ["bearer", token]), server chon lai "bearer" (WebSocketConfig)
+// ?token= bi access log / proxy ghi lai nen mac dinh tat, chi bat cho client cu (chat.ws.query-token-enabled)
+@Slf4j
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+    public static final String PRINCIPAL_ATTRIBUTE = "principal";
+    //    thoi diem het han cua access token (epoch ms), ChatSessionGuard dong session khi qua moc nay
+    public static final String EXPIRES_AT_ATTRIBUTE = "expiresAt";
+    public static final String BEARER_PROTOCOL = "bearer";
+
+    private final JwtService jwtService;
+    private final boolean queryTokenEnabled;
+
+    public JwtHandshakeInterceptor(JwtService jwtService,
+                                   @Value("${chat.ws.query-token-enabled:false}") boolean queryTokenEnabled) {
+        this.jwtService = jwtService;
+        this.queryTokenEnabled = queryTokenEnabled;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = extractToken(request);
+        if (token == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        try {
+            ParsedToken parsed = jwtService.parseToken(token);
+            if (!jwtService.isAccessTokenValid(parsed) || parsed.getUserId() == null) {
+                response.setStatusCode(HttpStatus.UNAUTHORIZED);
+                return false;
+            }
+            attributes.put(PRINCIPAL_ATTRIBUTE, new JwtPrincipal(
+                    parsed.getSubject(),
+                    GrantedAuthorities.of(parsed.getRoles()),
+                    parsed.getJti(),
+                    parsed.getUserId()
+            ));
+            attributes.put(EXPIRES_AT_ATTRIBUTE, parsed.getExpiration()
+                    .toEpochMilli());
+            return true;
+        } catch (AppException e) {
+            log.debug("WebSocket handshake rejected: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String extractToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders()
+                .getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7)
+                    .trim();
+        }
+        String protocolToken = protocolToken(request.getHeaders()
+                .get(WebSocketHttpHeaders.SEC_WEBSOCKET_PROTOCOL));
+        if (protocolToken != null || !queryTokenEnabled) {
+            return protocolToken;
+        }
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .build()
+                .getQueryParams()
+                .getFirst("token");
+    }
+
+    //    token la phan tu ngay sau "bearer" trong danh sach subprotocol
+    static String protocolToken(List<String> headerValues) {
+        if (headerValues == null) {
+            return null;
+        }
+        List<String> protocols = new ArrayList<>();
+        for (String value : headerValues) {
+            for (String protocol : StringUtils.tokenizeToStringArray(value, ",")) {
+                protocols.add(protocol);
+            }
+        }
+        int index = protocols.indexOf(BEARER_PROTOCOL);
+        if (index < 0 || index + 1 >= protocols.size()) {
+            return null;
+        }
+        return protocols.get(index + 1);
+    }
+}
@@ -0,0 +1,6 @@
+-- clientMessageId unique trong pham vi (conversation, sender), cung pham vi voi key chong trung msg:dedup:{shard} cua MessageIngestService.
+-- Constraint cu chi tren (sender_id, client_message_id): gui lai cung id o conversation khac thi flush bo qua dong do ma khong bao loi.
+-- Chay mot lan tren database da co bang messages (dev dung create-drop nen khong can).
+ALTER TABLE messages DROP CONSTRAINT IF EXISTS uk_messages_sender_client_message_id;
+ALTER TABLE messages ADD CONSTRAINT uk_messages_conversation_sender_client_message_id
+    UNIQUE (conversation_id, sender_id, client_message_id);
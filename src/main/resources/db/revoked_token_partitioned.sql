@@ -0,0 +1,16 @@
+-- Bang revoked_token phan vung theo ngay het han, dung voi security.jwt.revocation.purge.strategy=partition.
+-- Partition theo ngay duoc RevokedTokenPartitionManager tao truoc va drop khi da het han hoan toan.
+-- Khoa chinh phai chua cot phan vung nen la (jti, expires_at).
+CREATE TABLE IF NOT EXISTS revoked_token (
+    jti        UUID      NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP,
+    PRIMARY KEY (jti, expires_at)
+) PARTITION BY RANGE (expires_at);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires_at ON revoked_token (expires_at);
+-- RevokedTokenService nap lai dinh ky cac jti thu hoi sau lan dong bo truoc
+CREATE INDEX IF NOT EXISTS idx_revoked_token_revoked_at ON revoked_token (revoked_at);
+
+-- nhan cac token het han ngoai khoang partition da tao, duoc don bang batched delete
+CREATE TABLE IF NOT EXISTS revoked_token_default PARTITION OF revoked_token DEFAULT;
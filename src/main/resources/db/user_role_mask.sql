@@ -0,0 +1,36 @@
+-- Chuyen role cua user tu bang noi user_roles sang users.role_mask (bit thu n bat khi user co role co roles.bit = n).
+-- Chay mot lan tren database da co du lieu, truoc khi deploy ban khong con map user_roles (dev dung create-drop nen khong can).
+-- bit cua role co san theo RoleType.ordinal() (ROLE_ADMIN = 0, ROLE_USER = 1) giong InitDataConfig, role khac lay cac bit tiep theo.
+BEGIN;
+
+ALTER TABLE roles ADD COLUMN IF NOT EXISTS bit INTEGER;
+
+UPDATE roles SET bit = 0 WHERE name = 'ROLE_ADMIN' AND bit IS NULL;
+UPDATE roles SET bit = 1 WHERE name = 'ROLE_USER' AND bit IS NULL;
+UPDATE roles r
+SET bit = numbered.bit
+FROM (SELECT id,
+             (SELECT COALESCE(MAX(bit), -1) FROM roles) + ROW_NUMBER() OVER (ORDER BY name) AS bit
+      FROM roles
+      WHERE bit IS NULL) numbered
+WHERE r.id = numbered.id;
+
+ALTER TABLE roles ALTER COLUMN bit SET NOT NULL;
+ALTER TABLE roles ADD CONSTRAINT uk_roles_bit UNIQUE (bit);
+-- role_mask la bigint nen toi da 64 role
+ALTER TABLE roles ADD CONSTRAINT ck_roles_bit CHECK (bit BETWEEN 0 AND 63);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS role_mask BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET role_mask = u.role_mask | granted.mask
+FROM (SELECT ur.user_id, BIT_OR(1::BIGINT << r.bit) AS mask
+      FROM user_roles ur
+               JOIN roles r ON r.id = ur.role_id
+      GROUP BY ur.user_id) granted
+WHERE u.id = granted.user_id;
+
+COMMIT;
+
+-- user_roles khong con duoc doc/ghi; giu lai de doi chieu, xoa sau khi kiem tra:
+-- DROP TABLE user_roles;
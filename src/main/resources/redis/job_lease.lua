@@ -0,0 +1,13 @@
+-- KEYS[1]: lease cua job dinh ky (job:lease)
+-- ARGV[1]: id instance dang chay, ARGV[2]: thoi gian giu lease (ms)
+-- 1 neu instance nay dang giu (vua lay hoac gia han), 0 neu instance khac dang giu
+local owner = redis.call('GET', KEYS[1])
+if owner == false then
+    redis.call('SET', KEYS[1], ARGV[1], 'PX', tonumber(ARGV[2]))
+    return 1
+end
+if owner == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[2]))
+    return 1
+end
+return 0
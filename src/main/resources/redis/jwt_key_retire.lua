@@ -0,0 +1,7 @@
+-- KEYS[1]: hash kid -> khoa raw, KEYS[2]: kid dang active
+-- ARGV[1]: kid can bo
+-- tra ve -1 neu kid dang active, 1 neu da xoa, 0 neu khong co
+if redis.call('GET', KEYS[2]) == ARGV[1] then
+    return -1
+end
+return redis.call('HDEL', KEYS[1], ARGV[1])
@@ -0,0 +1,8 @@
+-- KEYS[1]: hash kid -> khoa raw, KEYS[2]: kid dang active
+-- ARGV[1]: kid moi, ARGV[2]: khoa raw
+-- tra ve 1 khi da them va chuyen sang ky bang kid moi, 0 neu kid da ton tai (khong ghi de khoa cu)
+if redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) == 0 then
+    return 0
+end
+redis.call('SET', KEYS[2], ARGV[1])
+return 1
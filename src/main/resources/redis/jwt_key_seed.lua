@@ -0,0 +1,12 @@
+-- KEYS[1]: hash kid -> khoa raw, KEYS[2]: kid dang active
+-- ARGV[1]: kid active, ARGV[2..]: cap kid, khoa tu cau hinh cua node
+-- chi nap khi redis chua co bo khoa: khoa da retire khong duoc node khoi dong voi cau hinh cu them lai
+-- tra ve 1 neu da nap, 0 neu bo khoa da ton tai
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return 0
+end
+for i = 2, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('SET', KEYS[2], ARGV[1])
+return 1
@@ -0,0 +1,15 @@
+-- KEYS[1]: so lan dang nhap sai, KEYS[2]: khoa tai khoan
+-- ARGV[1]: so lan sai bat dau khoa, ARGV[2]: thoi gian khoa lan dau (giay),
+-- ARGV[3]: thoi gian khoa toi da (giay), ARGV[4]: thoi gian nho so lan sai (giay)
+-- tra ve so giay bi khoa, 0 neu chua khoa
+local failures = redis.call('INCR', KEYS[1])
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[4]))
+local threshold = tonumber(ARGV[1])
+if failures < threshold then
+    return 0
+end
+-- moi lan sai sau nguong thi thoi gian khoa gap doi
+local lock = math.min(tonumber(ARGV[3]), tonumber(ARGV[2]) * 2 ^ (failures - threshold))
+lock = math.floor(lock)
+redis.call('SET', KEYS[2], '1', 'EX', lock)
+return lock
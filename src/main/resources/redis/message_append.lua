@@ -0,0 +1,17 @@
+-- KEYS[1]: stream cua shard, KEYS[2] (tuy chon): key chong trung (conversationId:senderId:clientMessageId), cung hash tag voi stream
+-- ARGV[1]: tin nhan da encode, ARGV[2]: so tin toi da dang cho flush trong stream
+-- key chong trung khong co ttl cho toi khi tin duoc ghi xuong postgres (MessageIngestService dat ttl luc flush)
+-- khong dung XADD MAXLEN: cat stream se xoa tin da ACK ma chua ghi, gioi han bang cach tu choi tin moi
+-- tra ve nil khi da them vao stream, tin nhan cu khi clientMessageId da duoc gui truoc do, chuoi rong khi stream day
+local existing = KEYS[2] and redis.call('GET', KEYS[2])
+if existing then
+    return existing
+end
+if redis.call('XLEN', KEYS[1]) >= tonumber(ARGV[2]) then
+    return ''
+end
+if KEYS[2] then
+    redis.call('SET', KEYS[2], ARGV[1])
+end
+redis.call('XADD', KEYS[1], '*', 'm', ARGV[1])
+return false
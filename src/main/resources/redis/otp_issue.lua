@@ -0,0 +1,9 @@
+-- KEYS[1]: hash ma otp, KEYS[2]: khoa lockout
+-- ARGV[1]: ma, ARGV[2]: ttl (giay)
+-- tra ve 1 neu da luu ma, -2 neu tai khoan dang bi khoa
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return -2
+end
+redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[2]))
+return 1
@@ -0,0 +1,21 @@
+-- KEYS[1]: hash ma otp, KEYS[2]: khoa lockout
+-- ARGV[1]: ma nguoi dung nhap, ARGV[2]: so lan sai toi da, ARGV[3]: thoi gian khoa (giay)
+-- tra ve 1 dung (ma bi xoa), 0 sai, -1 khong co/het han, -2 dang bi khoa
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return -2
+end
+local stored = redis.call('HGET', KEYS[1], 'code')
+if not stored then
+    return -1
+end
+if stored == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if attempts >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1])
+    redis.call('SET', KEYS[2], '1', 'EX', tonumber(ARGV[3]))
+    return -2
+end
+return 0
@@ -0,0 +1,10 @@
+-- KEYS[1]: hash cua family (jti, gen), KEYS[2]: generation cua user
+-- ARGV[1]: jti cua refresh token dau tien, ARGV[2]: ttl (ms)
+local gen = redis.call('GET', KEYS[2]) or '0'
+redis.call('HSET', KEYS[1], 'jti', ARGV[1], 'gen', gen, 'prev', '', 'rotated', 0)
+redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[2]))
+-- generation phai song it nhat bang family moi nhat
+if gen ~= '0' then
+    redis.call('PEXPIRE', KEYS[2], tonumber(ARGV[2]))
+end
+return 1
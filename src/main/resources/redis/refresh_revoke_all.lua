@@ -0,0 +1,6 @@
+-- KEYS[1]: generation cua user
+-- ARGV[1]: ttl (ms)
+-- tang generation thi moi family tao truoc do deu het hieu luc, khong can duyet tung family
+local gen = redis.call('INCR', KEYS[1])
+redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[1]))
+return gen
@@ -0,0 +1,27 @@
+-- KEYS[1]: hash cua family (jti, gen, prev, rotated), KEYS[2]: generation cua user
+-- ARGV[1]: jti dang duoc dung, ARGV[2]: jti moi, ARGV[3]: ttl (ms), ARGV[4]: thoi gian an han (ms)
+-- tra ve 1 da xoay, 0 hai request dong thoi trong thoi gian an han, -1 family khong con, -2 dung lai token cu (da huy family)
+local family = redis.call('HMGET', KEYS[1], 'jti', 'gen', 'prev', 'rotated')
+if not family[1] then
+    return -1
+end
+local gen = redis.call('GET', KEYS[2]) or '0'
+if family[2] ~= gen then
+    redis.call('DEL', KEYS[1])
+    return -1
+end
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+if family[1] ~= ARGV[1] then
+    if family[3] == ARGV[1] and now - tonumber(family[4]) <= tonumber(ARGV[4]) then
+        return 0
+    end
+    redis.call('DEL', KEYS[1])
+    return -2
+end
+redis.call('HSET', KEYS[1], 'jti', ARGV[2], 'prev', ARGV[1], 'rotated', now)
+redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[3]))
+if gen ~= '0' then
+    redis.call('PEXPIRE', KEYS[2], tonumber(ARGV[3]))
+end
+return 1
@@ -0,0 +1,33 @@
+-- KEYS[1]: hash cua bucket (tokens, ts)
+-- ARGV[1]: so token toi da, ARGV[2]: thoi gian nap day bucket (ms), ARGV[3]: so token muon lay
+-- tra ve {so token duoc cap, so ms phai cho neu khong duoc cap token nao}
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local capacity = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * capacity / window)
+    ts = now
+end
+
+local granted = math.min(requested, math.floor(tokens))
+local retry = 0
+if granted < 1 then
+    granted = 0
+    retry = math.ceil((1 - tokens) * window / capacity)
+else
+    tokens = tokens - granted
+end
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', ts)
+-- sau mot window khong dung thi bucket da day lai, xoa key cung khong sai
+redis.call('PEXPIRE', KEYS[1], window)
+return {granted, retry}
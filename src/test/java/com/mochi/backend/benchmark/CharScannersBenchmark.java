@@ -0,0 +1,45 @@
+package com.mochi.backend.benchmark;
+
+import com.mochi.backend.validation.CharScanners;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// so sanh validate mot request dang ky/dang nhap: String.matches (cach cu, bien dich regex moi lan) va CharScanners
+// chay: mvn test-compile && java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main CharScannersBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharScannersBenchmark {
+    private static final String USERNAME_REGEX = "^[a-zA-Z0-9._-]+$";
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$";
+    private static final String PASSWORD_REGEX = "^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\\[\\]:;<>,.?~\\\\/-]).*$";
+    private static final String NAME_REGEX = "^[\\p{L} ]+$";
+
+    private final String username = "nguyen.van_a-01";
+    private final String email = "nguyen.van.a+chat@mochi-mail.example.com";
+    private final String password = "correct-Horse-battery-staple-42!";
+    private final String firstName = "Nguyễn Văn";
+
+    //    UsernameOrEmailValidator cu: trim + hai lan matches; dto cu: @Pattern cho username, password, ten
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        blackhole.consume(!email.trim()
+                .isEmpty() && (email.matches(EMAIL_REGEX) | email.matches(USERNAME_REGEX)));
+        blackhole.consume(username.matches(USERNAME_REGEX));
+        blackhole.consume(password.matches(PASSWORD_REGEX));
+        blackhole.consume(firstName.matches(NAME_REGEX));
+    }
+
+    @Benchmark
+    public void scanners(Blackhole blackhole) {
+        blackhole.consume(!CharScanners.isBlank(email) && (CharScanners.isEmail(email) || CharScanners.isUsername(email)));
+        blackhole.consume(CharScanners.isUsername(username));
+        blackhole.consume(CharScanners.isStrongPassword(password));
+        blackhole.consume(CharScanners.isPersonName(firstName));
+    }
+}
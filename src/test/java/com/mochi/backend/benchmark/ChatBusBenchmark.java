@@ -0,0 +1,164 @@
+package com.mochi.backend.benchmark;
+
+import com.mochi.backend.enums.RedisMode;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.support.EmbeddedRedis;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import com.mochi.backend.websocket.ChatBus;
+import com.mochi.backend.websocket.ChatRouteRegistry;
+import com.mochi.backend.websocket.ChatSessionRegistry;
+import io.lettuce.core.api.StatefulConnection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// frame di tu node 1 sang node 2 qua embedded redis: publish -> pipeline PUBLISH -> listener -> lane -> session
+// oneFrame do do tre cua mot frame, burst gui 100 frame roi cho nhan du (publisher gom thanh it pipeline)
+// pooled=false giong redis.pool.enabled=false: moi pipeline mo mot connection rieng, chiem gan het thoi gian
+// chay: mvn test-compile && java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main ChatBusBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatBusBenchmark {
+    private static final int BURST = 100;
+
+    //    so thanh vien cua conversation, tat ca dang ket noi o node 2
+    @Param({"1", "50"})
+    private int recipients;
+
+    @Param({"false", "true"})
+    private boolean pooled;
+
+    //    moi frame toi mot session tra mot permit, khong spin de chay duoc tren may it core
+    private final Semaphore delivered = new Semaphore(0);
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+    private final List<ChatBus> buses = new ArrayList<>();
+    private LettuceConnectionFactory pooledFactory;
+    private RedisService redisService;
+    private ChatBus sender;
+    private List<UUID> userIds;
+    private TextMessage message;
+
+    @Setup
+    public void setUp() throws Exception {
+        redisService = pooled ? pooledRedisService() : EmbeddedRedis.redisService();
+        sender = bus(1);
+        ChatBus receiver = bus(2);
+        ChatSessionRegistry receiverSessions = (ChatSessionRegistry) ReflectionTestUtils.getField(receiver, "sessionRegistry");
+        ChatRouteRegistry receiverRoutes = (ChatRouteRegistry) ReflectionTestUtils.getField(receiver, "routeRegistry");
+        userIds = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            UUID userId = UUID.randomUUID();
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn(userId.toString());
+            when(session.isOpen()).thenReturn(true);
+            doAnswer(invocation -> {
+                delivered.release();
+                return null;
+            }).when(session)
+                    .sendMessage(any());
+            receiverSessions.register(userId, session);
+            receiverRoutes.add(userId);
+            userIds.add(userId);
+        }
+        message = new TextMessage("{\"type\":\"MESSAGE\",\"conversationId\":\"" + UUID.randomUUID()
+                + "\",\"content\":\"xin chao, hom nay the nao?\"}");
+        //    cho listener cua node 2 subscribe xong
+        Thread.sleep(500);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (ChatBus bus : buses) {
+            ReflectionTestUtils.invokeMethod(bus, "stop");
+        }
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+        if (pooledFactory != null) {
+            pooledFactory.destroy();
+        }
+    }
+
+    @Benchmark
+    public void oneFrame() throws InterruptedException {
+        publishAndAwait(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst() throws InterruptedException {
+        publishAndAwait(BURST);
+    }
+
+    private void publishAndAwait(int frames) throws InterruptedException {
+        for (int i = 0; i < frames; i++) {
+            sender.publish(userIds, message, null);
+        }
+        delivered.acquire(frames * recipients);
+    }
+
+    private ChatBus bus(int node) {
+        RedisConnectionFactory connectionFactory = EmbeddedRedis.template()
+                .getRequiredConnectionFactory();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(new SimpleAsyncTaskExecutor("bench-listener-" + node + "-"));
+        container.afterPropertiesSet();
+        container.start();
+        containers.add(container);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(node);
+        ChatSessionRegistry sessionRegistry = new ChatSessionRegistry(meterRegistry, Duration.ofSeconds(5), 65536);
+        ChatRouteRegistry routeRegistry = new ChatRouteRegistry(redisService, sessionRegistry, idGenerator, meterRegistry);
+        ChatBus bus = new ChatBus(sessionRegistry, routeRegistry, redisService, container, idGenerator,
+                meterRegistry, 10000, 4, 10000, RedisMode.STANDALONE);
+        ReflectionTestUtils.setField(bus, "maxBatchSize", 256);
+        ReflectionTestUtils.invokeMethod(bus, "start");
+        buses.add(bus);
+        return bus;
+    }
+
+    //    giong RedisConfig khi redis.pool.enabled=true
+    private RedisService pooledRedisService() {
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(16);
+        poolConfig.setMaxIdle(8);
+        pooledFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", EmbeddedRedis.port()),
+                LettucePoolingClientConfiguration.builder()
+                        .poolConfig(poolConfig)
+                        .build());
+        pooledFactory.afterPropertiesSet();
+        pooledFactory.start();
+        RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(pooledFactory);
+        template.setEnableDefaultSerializer(false);
+        template.afterPropertiesSet();
+        return new RedisService(template, template, List.of(), new StandardEnvironment());
+    }
+}
@@ -0,0 +1,176 @@
+package com.mochi.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// mo N websocket idle toi /ws/chat (token trong subprotocol "bearer"), do heap moi ket noi cua server va cua client
+// heap server doc tu /actuator/metrics (jvm.memory.used area=heap) truoc va sau khi mo, co pid thi goi jcmd GC.run truoc moi lan do
+// moi user giu mang session copy-on-write nen can nhieu token (file, moi dong mot access token), dung lan luot
+// mot ip client chi co ~28k port tam: 100k socket can nhieu tien trinh/ip client, va ulimit -n du lon o ca hai ben
+// chay: mvn test-compile && java -Xmx2g -cp target/test-classes:target/classes:<test classpath> \
+//   com.mochi.backend.benchmark.ChatLoadClient ws://localhost:8080/ws/chat tokens.txt 10000 [pid server] [giu ket noi (s)]
+public class ChatLoadClient {
+    private static final int MAX_PENDING_HANDSHAKES = 200;
+    private static final Duration SETTLE = Duration.ofSeconds(5);
+
+    private final URI chatUri;
+    private final URI heapUri;
+    private final List<String> tokens;
+    private final String serverPid;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<WebSocket> sockets = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger closedByServer = new AtomicInteger();
+
+    ChatLoadClient(URI chatUri, List<String> tokens, String serverPid) {
+        this.chatUri = chatUri;
+        this.heapUri = URI.create((chatUri.getScheme()
+                .equals("wss") ? "https://" : "http://") + chatUri.getRawAuthority()
+                + "/actuator/metrics/jvm.memory.used?tag=area:heap");
+        this.tokens = tokens;
+        this.serverPid = serverPid;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: ChatLoadClient <ws url> <token file> <connections> [server pid] [hold seconds]");
+            System.exit(1);
+        }
+        List<String> tokens = Files.readAllLines(Path.of(args[1]))
+                .stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .toList();
+        int connections = Integer.parseInt(args[2]);
+        String serverPid = args.length > 3 && !args[3].equals("-") ? args[3] : null;
+        long holdSeconds = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        new ChatLoadClient(URI.create(args[0]), tokens, serverPid).run(connections, holdSeconds);
+    }
+
+    void run(int connections, long holdSeconds) throws Exception {
+        long serverBefore = serverHeap();
+        long clientBefore = clientHeap();
+        long startedAt = System.nanoTime();
+        open(connections);
+        long openMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        Thread.sleep(SETTLE.toMillis());
+
+        int open = sockets.size() - closedByServer.get();
+        long serverAfter = serverHeap();
+        long clientAfter = clientHeap();
+        System.out.printf("opened %d/%d sockets in %d ms (%d failed, %d closed by server)%n",
+                open, connections, openMs, failed.get(), closedByServer.get());
+        if (open > 0) {
+            if (serverBefore >= 0 && serverAfter >= 0) {
+                System.out.printf("server heap: %,d -> %,d bytes, %,d bytes per connection%n",
+                        serverBefore, serverAfter, (serverAfter - serverBefore) / open);
+            } else {
+                System.out.println("server heap: unavailable (actuator metrics not reachable)");
+            }
+            System.out.printf("client heap: %,d -> %,d bytes, %,d bytes per connection%n",
+                    clientBefore, clientAfter, (clientAfter - clientBefore) / open);
+        }
+        if (holdSeconds > 0) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(holdSeconds));
+            System.out.printf("%d sockets still open after %d s%n", sockets.size() - closedByServer.get(), holdSeconds);
+        }
+        for (WebSocket socket : sockets) {
+            socket.abort();
+        }
+    }
+
+    //    gioi han so handshake dang cho de khong lam ngop accept queue cua server
+    private void open(int connections) throws InterruptedException {
+        Semaphore pending = new Semaphore(MAX_PENDING_HANDSHAKES);
+        for (int i = 0; i < connections; i++) {
+            pending.acquire();
+            httpClient.newWebSocketBuilder()
+                    .subprotocols("bearer", tokens.get(i % tokens.size()))
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .buildAsync(chatUri, new IdleListener())
+                    .whenComplete((socket, error) -> {
+                        pending.release();
+                        if (error != null) {
+                            if (failed.incrementAndGet() == 1) {
+                                System.err.println("handshake failed: " + error.getMessage());
+                            }
+                            return;
+                        }
+                        sockets.add(socket);
+                    });
+        }
+        pending.acquire(MAX_PENDING_HANDSHAKES);
+    }
+
+    //    -1 neu khong doc duoc; server chay tren may nay thi truyen pid de GC truoc khi do, so lieu bot nhieu
+    private long serverHeap() throws InterruptedException {
+        if (serverPid != null) {
+            try {
+                new ProcessBuilder("jcmd", serverPid, "GC.run").redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start()
+                        .waitFor(30, TimeUnit.SECONDS);
+            } catch (IOException e) {
+                System.err.println("jcmd GC.run failed: " + e.getMessage());
+            }
+        }
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(heapUri)
+                    .header("Authorization", "Bearer " + tokens.getFirst())
+                    .timeout(Duration.ofSeconds(10))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body())
+                    .path("measurements");
+            return measurements.isEmpty() ? -1 : measurements.get(0)
+                    .path("value")
+                    .asLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long clientHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //    socket idle: khong gui gi, ping cua server duoc java.net.http tu tra pong
+    private class IdleListener implements WebSocket.Listener {
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closedByServer.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            closedByServer.incrementAndGet();
+        }
+    }
+}
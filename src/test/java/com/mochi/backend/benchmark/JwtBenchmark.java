@@ -0,0 +1,98 @@
+package com.mochi.backend.benchmark;
+
+import com.mochi.backend.security.jwt.JwtKeyRing;
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.VerifiedTokenCache;
+import com.mochi.backend.service.RevokedTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// so sanh token/s truoc (decode khoa + build parser moi lan) va sau (JwtKeyRing, VerifiedTokenCache)
+// chay: mvn test-compile && java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main JwtBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private JwtService jwtService;
+    private JwtKeyRing keyRing;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        keyRing = new JwtKeyRing(SECRET, "k1", "", "k1");
+        jwtService = new JwtService(mock(RevokedTokenService.class),
+                new VerifiedTokenCache(10_000, Duration.ofMinutes(15)), keyRing);
+        ReflectionTestUtils.setField(jwtService, "accessExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationMs", 7_200_000L);
+        user = User.withUsername("alice")
+                .password("x")
+                .authorities("ROLE_USER")
+                .build();
+        token = jwtService.generateAccessToken(user);
+    }
+
+    //    cach cu: getSingInKey() decode base64 va tao SecretKey moi lan
+    private static SecretKey baselineKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+
+    @Benchmark
+    public String generateBaseline() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject(user.getUsername())
+                .claim("type", "ACCESS")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 3_600_000L))
+                .signWith(baselineKey())
+                .compact();
+    }
+
+    @Benchmark
+    public String generateKeyRing() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    //    cach cu: Jwts.parser()...build() moi lan verify
+    @Benchmark
+    public Claims verifyBaseline() {
+        return Jwts.parser()
+                .verifyWith(baselineKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims verifyKeyRing() {
+        return keyRing.parser()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Object verifyCached() {
+        return jwtService.parseToken(token);
+    }
+}
@@ -0,0 +1,186 @@
+package com.mochi.backend.config;
+
+import com.mochi.backend.support.EmbeddedRedis;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisConfigTest {
+    private static final byte[] NUMSUB = "return redis.call('PUBSUB', 'NUMSUB', ARGV[1])[2]".getBytes(StandardCharsets.UTF_8);
+
+    //    conversion service cua boot de doc RedisMode, Duration ("30s") nhu ung dung that
+    ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(RedisConfig.class)
+            .withPropertyValues(EmbeddedRedis.properties());
+
+    @Test
+    void binaryTemplateRoundTripsThroughEmbeddedRedis() {
+        runner.run(context -> {
+            @SuppressWarnings("unchecked")
+            RedisTemplate<byte[], byte[]> template = context.getBean("binaryRedisTemplate", RedisTemplate.class);
+            byte[] key = "config-test:{k}".getBytes(StandardCharsets.US_ASCII);
+
+            template.opsForValue()
+                    .set(key, new byte[]{1, 2, 3});
+
+            assertThat(template.opsForValue()
+                    .get(key)).containsExactly(1, 2, 3);
+            template.delete(key);
+        });
+    }
+
+    @Test
+    void listenerReceivesMessagesInPublishOrderOnOneThread() {
+        runner.run(context -> {
+            RedisMessageListenerContainer container = context.getBean("redisMessageListenerContainer",
+                    RedisMessageListenerContainer.class);
+            RedisTemplate<?, ?> template = context.getBean("binaryRedisTemplate", RedisTemplate.class);
+            List<String> received = new CopyOnWriteArrayList<>();
+            List<String> threads = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(200);
+            container.addMessageListener((message, pattern) -> {
+                received.add(new String(message.getBody(), StandardCharsets.UTF_8));
+                threads.add(Thread.currentThread()
+                        .getName());
+                done.countDown();
+            }, new ChannelTopic("config-test"));
+            waitForSubscription(template, "config-test");
+
+            for (int i = 0; i < 200; i++) {
+                byte[] body = Integer.toString(i)
+                        .getBytes(StandardCharsets.UTF_8);
+                template.execute(connection -> connection.publish("config-test".getBytes(StandardCharsets.UTF_8), body), true);
+            }
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).containsExactlyElementsOf(IntStream.range(0, 200)
+                    .mapToObj(Integer::toString)
+                    .toList());
+            assertThat(threads).allMatch(name -> name.startsWith("redis-listener-"))
+                    .hasSize(200);
+        });
+    }
+
+    @Test
+    void chatBusHasItsOwnListenerThread() {
+        runner.run(context -> {
+            RedisMessageListenerContainer control = context.getBean("redisMessageListenerContainer",
+                    RedisMessageListenerContainer.class);
+            RedisMessageListenerContainer chat = context.getBean("chatBusListenerContainer",
+                    RedisMessageListenerContainer.class);
+            RedisTemplate<?, ?> template = context.getBean("binaryRedisTemplate", RedisTemplate.class);
+            CountDownLatch controlBlocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicReference<String> chatThread = new AtomicReference<>();
+            CountDownLatch chatReceived = new CountDownLatch(1);
+            control.addMessageListener((message, pattern) -> {
+                controlBlocked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+            }, new ChannelTopic("config-test-control"));
+            chat.addMessageListener((message, pattern) -> {
+                chatThread.set(Thread.currentThread()
+                        .getName());
+                chatReceived.countDown();
+            }, new ChannelTopic("config-test-chat"));
+            waitForSubscription(template, "config-test-control");
+            waitForSubscription(template, "config-test-chat");
+
+            template.execute(connection -> connection.publish("config-test-control".getBytes(StandardCharsets.UTF_8),
+                    new byte[]{1}), true);
+            assertThat(controlBlocked.await(10, TimeUnit.SECONDS)).isTrue();
+            template.execute(connection -> connection.publish("config-test-chat".getBytes(StandardCharsets.UTF_8),
+                    new byte[]{1}), true);
+
+            assertThat(chatReceived.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(chatThread.get()).startsWith("chat-bus-listener-");
+            release.countDown();
+        });
+    }
+
+    @Test
+    void listenerExecutorsAreShutDownWithTheContext() {
+        AtomicReference<ThreadPoolTaskExecutor> control = new AtomicReference<>();
+        AtomicReference<ThreadPoolTaskExecutor> chat = new AtomicReference<>();
+        runner.run(context -> {
+            control.set(context.getBean("redisListenerExecutor", ThreadPoolTaskExecutor.class));
+            chat.set(context.getBean("chatBusListenerExecutor", ThreadPoolTaskExecutor.class));
+            assertThat(control.get()
+                    .getThreadPoolExecutor()
+                    .isShutdown()).isFalse();
+        });
+
+        assertThat(control.get()
+                .getThreadPoolExecutor()
+                .isShutdown()).isTrue();
+        assertThat(chat.get()
+                .getThreadPoolExecutor()
+                .isShutdown()).isTrue();
+    }
+
+    @Test
+    void clusterModeBuildsClusterConfigurationWithoutConnecting() {
+        runner.withPropertyValues("redis.mode=cluster", "redis.cluster.nodes=127.0.0.1:7000,127.0.0.1:7001",
+                        "redis.cluster.max-redirects=5")
+                .run(context -> {
+                    LettuceConnectionFactory factory = context.getBean("redisConnectionFactory",
+                            LettuceConnectionFactory.class);
+
+                    assertThat(factory.isClusterAware()).isTrue();
+                    assertThat(factory.getClusterConfiguration()
+                            .getMaxRedirects()).isEqualTo(5);
+                    assertThat(factory.getClusterConfiguration()
+                            .getClusterNodes()).hasSize(2);
+                });
+    }
+
+    @Test
+    void sentinelModeUsesConfiguredMaster() {
+        runner.withPropertyValues("redis.mode=sentinel", "redis.sentinel.master=chat-master",
+                        "redis.sentinel.nodes=127.0.0.1:26379")
+                .run(context -> {
+                    LettuceConnectionFactory factory = context.getBean("redisConnectionFactory",
+                            LettuceConnectionFactory.class);
+
+                    assertThat(factory.getSentinelConfiguration()
+                            .getMaster()
+                            .getName()).isEqualTo("chat-master");
+                });
+    }
+
+    //    container dang ky subscribe bat dong bo, doi toi khi PUBSUB NUMSUB thay subscriber
+    static void waitForSubscription(RedisTemplate<?, ?> template, String channel) throws InterruptedException {
+        byte[] name = channel.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 100; i++) {
+            Long subscribers = template.execute(connection -> connection.scriptingCommands()
+                    .eval(NUMSUB, ReturnType.INTEGER, 0, name), true);
+            if (subscribers != null && subscribers > 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No subscriber on " + channel);
+    }
+}
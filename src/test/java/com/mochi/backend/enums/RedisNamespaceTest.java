@@ -0,0 +1,36 @@
+package com.mochi.backend.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisNamespaceTest {
+
+    private static String text(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void asciiIdIsWrappedInHashTag() {
+        assertThat(text(RedisNamespace.OTP.key("alice@example.com"))).isEqualTo("otp:{alice@example.com}");
+        assertThat(text(RedisNamespace.OTP_LOCK.key("alice@example.com"))).isEqualTo("otp:lock:{alice@example.com}");
+    }
+
+    @Test
+    void nonAsciiIdIsUtf8Encoded() {
+        assertThat(RedisNamespace.RATE_LIMIT.key("nguyễn")).isEqualTo("rl:{nguyễn}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void suffixKeepsHashTagOfId() {
+        assertThat(text(RedisNamespace.MESSAGE_DEDUP.key("3", "user:cmid-ü"))).isEqualTo("msg:dedup:{3}:user:cmid-ü");
+    }
+
+    @Test
+    void propertyNameMatchesYamlKeys() {
+        assertThat(RedisNamespace.LOGIN_FAILURES.getPropertyName()).isEqualTo("login-failures");
+        assertThat(RedisNamespace.JOB_LEASE.getPropertyName()).isEqualTo("job-lease");
+    }
+}
@@ -0,0 +1,178 @@
+package com.mochi.backend.security.email;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.support.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// gui qua InMemoryMailSender, dead-letter ghi vao embedded redis
+class EmailDispatcherTest {
+    static final byte[] DEAD_LETTER_KEY = RedisNamespace.MAIL_DEAD_LETTER.key("email");
+
+    RedisTemplate<byte[], byte[]> redis = EmbeddedRedis.template();
+    ObjectMapper objectMapper = new ObjectMapper();
+    FlakyMailSender mailSender = new FlakyMailSender();
+    EmailDispatcher dispatcher;
+
+    //    failures lan gui dau tien nem loi, ghi lai thoi diem moi lan thu
+    static class FlakyMailSender extends InMemoryMailSender {
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Long> attempts = new CopyOnWriteArrayList<>();
+
+        FlakyMailSender() {
+            super(100);
+        }
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+            attempts.add(System.nanoTime());
+            if (failures.getAndDecrement() > 0) {
+                throw new MailSendException("smtp down");
+            }
+            super.doSend(mimeMessages, originalMessages);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.delete(DEAD_LETTER_KEY);
+        dispatcher = dispatcher(10);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    private EmailDispatcher dispatcher(int capacity) {
+        EmailDispatcher emailDispatcher = new EmailDispatcher(mailSender, EmbeddedRedis.redisService(), objectMapper,
+                new SimpleMeterRegistry(), capacity, 1);
+        ReflectionTestUtils.setField(emailDispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(emailDispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailDispatcher, "initialBackoffMs", 50L);
+        ReflectionTestUtils.setField(emailDispatcher, "maxBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(emailDispatcher, "deadLetterMaxSize", 10L);
+        return emailDispatcher;
+    }
+
+    private static OutboundEmail email(String to) {
+        return OutboundEmail.builder()
+                .to(to)
+                .encodedSubject("Ma xac thuc")
+                .htmlBody("<p>Ma cua ban: 123456</p>")
+                .template("VERIFICATION")
+                .locale("vi")
+                .enqueuedAt(System.currentTimeMillis())
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time")
+                    .isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> deadLetters() {
+        return redis.opsForList()
+                .range(DEAD_LETTER_KEY, 0, -1)
+                .stream()
+                .map(value -> new String(value, StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    @Test
+    void queuedEmailsAreSent() throws Exception {
+        dispatcher.enqueue(email("a@mochi.dev"));
+        dispatcher.enqueue(email("b@mochi.dev"));
+        dispatcher.start();
+
+        await(() -> mailSender.getSentMessages()
+                .size() == 2);
+        assertThat(mailSender.getSentMessages()).extracting(message -> message.getAllRecipients()[0].toString())
+                .containsExactlyInAnyOrder("a@mochi.dev", "b@mochi.dev");
+        assertThat(deadLetters()).isEmpty();
+    }
+
+    @Test
+    void fullQueueRejectsEmail() throws InterruptedException {
+        dispatcher.stop();
+        dispatcher = dispatcher(1);
+        dispatcher.enqueue(email("a@mochi.dev"));
+
+        assertThatThrownBy(() -> dispatcher.enqueue(email("b@mochi.dev")))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.EMAIL_QUEUE_FULL));
+    }
+
+    //    backoff 50ms roi 100ms
+    @Test
+    void failedSendIsRetriedWithBackoff() throws Exception {
+        mailSender.failures.set(2);
+        dispatcher.enqueue(email("a@mochi.dev"));
+        dispatcher.start();
+
+        await(() -> mailSender.getSentMessages()
+                .size() == 1);
+        List<Long> attempts = mailSender.attempts;
+        assertThat(attempts).hasSize(3);
+        assertThat(attempts.get(1) - attempts.get(0)).isGreaterThanOrEqualTo(50_000_000L);
+        assertThat(attempts.get(2) - attempts.get(1)).isGreaterThanOrEqualTo(100_000_000L);
+        assertThat(deadLetters()).isEmpty();
+    }
+
+    @Test
+    void exhaustedEmailIsDeadLetteredWithoutBody() throws Exception {
+        mailSender.failures.set(Integer.MAX_VALUE);
+        dispatcher.enqueue(email("a@mochi.dev"));
+        dispatcher.start();
+
+        await(() -> !deadLetters().isEmpty());
+        assertThat(mailSender.attempts).hasSize(3);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> entry = objectMapper.readValue(deadLetters().getFirst(), Map.class);
+        assertThat(entry).containsEntry("to", "a@mochi.dev")
+                .containsEntry("template", "VERIFICATION")
+                .containsEntry("locale", "vi")
+                .containsEntry("error", "smtp down");
+        assertThat(deadLetters().getFirst()).doesNotContain("123456");
+        assertThat(redis.getExpire(DEAD_LETTER_KEY)).isPositive();
+    }
+
+    @Test
+    void pendingRetryIsDeadLetteredOnShutdown() throws Exception {
+        mailSender.failures.set(Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 60_000L);
+        dispatcher.enqueue(email("a@mochi.dev"));
+        dispatcher.start();
+        Set<?> pendingRetries = (Set<?>) ReflectionTestUtils.getField(dispatcher, "pendingRetries");
+        await(() -> !pendingRetries.isEmpty());
+
+        dispatcher.stop();
+
+        assertThat(deadLetters()).singleElement()
+                .satisfies(entry -> assertThat(entry).contains("a@mochi.dev"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.mochi.backend.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+    static final String K1 = secret('1');
+    static final String K2 = secret('2');
+    static final String K0 = secret('0');
+
+    static String secret(char fill) {
+        return Base64.getEncoder()
+                .encodeToString(String.valueOf(fill)
+                        .repeat(32)
+                        .getBytes());
+    }
+
+    //    cap kid, secret base64 -> bo khoa raw nhu JwtKeySync doc tu redis
+    static Map<String, byte[]> keys(String... kidAndSecrets) {
+        Map<String, byte[]> keys = new HashMap<>();
+        for (int i = 0; i < kidAndSecrets.length; i += 2) {
+            keys.put(kidAndSecrets[i], Base64.getDecoder()
+                    .decode(kidAndSecrets[i + 1]));
+        }
+        return keys;
+    }
+
+    static String token(JwtKeyRing keyRing, String subject) {
+        return keyRing.sign(Jwts.builder()
+                        .subject(subject)
+                        .expiration(new Date(System.currentTimeMillis() + 60_000)))
+                .compact();
+    }
+
+    static String subjectOf(JwtKeyRing keyRing, String token) {
+        return keyRing.parser()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Test
+    void signsWithActiveKidAndVerifiesPreviousKeys() {
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "k0:" + K0, "k1");
+        JwtKeyRing previous = new JwtKeyRing(K0, "k0", "", "k0");
+
+        String current = token(keyRing, "alice");
+        assertThat(keyRing.parser()
+                .parseSignedClaims(current)
+                .getHeader()
+                .getKeyId()).isEqualTo("k1");
+        assertThat(subjectOf(keyRing, current)).isEqualTo("alice");
+        assertThat(subjectOf(keyRing, token(previous, "bob"))).isEqualTo("bob");
+    }
+
+    @Test
+    void rotateKeepsOldTokensValidAndSignsWithNewKid() {
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "", "k1");
+        String old = token(keyRing, "alice");
+
+        keyRing.load("k2", keys("k1", K1, "k2", K2));
+
+        assertThat(keyRing.getActiveKeyId()).isEqualTo("k2");
+        assertThat(subjectOf(keyRing, old)).isEqualTo("alice");
+        assertThat(keyRing.parser()
+                .parseSignedClaims(token(keyRing, "bob"))
+                .getHeader()
+                .getKeyId()).isEqualTo("k2");
+    }
+
+    @Test
+    void retiredKidIsRejected() {
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "", "k1");
+        String old = token(keyRing, "alice");
+        keyRing.load("k2", keys("k1", K1, "k2", K2));
+
+        keyRing.load("k2", keys("k2", K2));
+
+        assertThat(keyRing.isTrusted("k1")).isFalse();
+        assertThat(keyRing.isTrusted("k2")).isTrue();
+        assertThatThrownBy(() -> keyRing.parser()
+                .parseSignedClaims(old)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unknownKidIsRejected() {
+        JwtKeyRing other = new JwtKeyRing(K2, "k9", "", "k9");
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "", "k1");
+
+        assertThatThrownBy(() -> keyRing.parser()
+                .parseSignedClaims(token(other, "mallory"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void activeKidMustHaveAKey() {
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "", "k1");
+
+        assertThatThrownBy(() -> keyRing.load("k2", keys("k1", K1))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(keyRing.getActiveKeyId()).isEqualTo("k1");
+    }
+
+    //    token phat hanh truoc khi co kid van verify bang khoa legacy sau khi da xoay sang khoa khac
+    @Test
+    void kidlessTokenStaysPinnedToLegacyKey() {
+        JwtKeyRing keyRing = new JwtKeyRing(K1, "k1", "", "k1");
+        String kidless = Jwts.builder()
+                .subject("alice")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder()
+                        .decode(K1)))
+                .compact();
+
+        keyRing.load("k2", keys("k1", K1, "k2", K2));
+        assertThat(subjectOf(keyRing, kidless)).isEqualTo("alice");
+
+        keyRing.load("k2", keys("k2", K2));
+        assertThatThrownBy(() -> keyRing.parser()
+                .parseSignedClaims(kidless)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
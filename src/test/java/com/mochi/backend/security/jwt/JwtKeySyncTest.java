@@ -0,0 +1,89 @@
+package com.mochi.backend.security.jwt;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.support.EmbeddedRedis;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+
+import static com.mochi.backend.security.jwt.JwtKeyRingTest.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// hai node dung chung bo khoa tren embedded redis; PUBLISH la mock, node kia nap lai bang onMessage/reload
+class JwtKeySyncTest {
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        EmbeddedRedis.template()
+                .delete(List.of(RedisNamespace.JWT_KEYS.key("ring"), RedisNamespace.JWT_KEYS.key("ring", "active")));
+    }
+
+    private JwtKeySync node(JwtKeyRing keyRing) {
+        JwtKeySync sync = new JwtKeySync(keyRing, EmbeddedRedis.redisService(), redisTemplate,
+                mock(RedisMessageListenerContainer.class));
+        sync.init();
+        return sync;
+    }
+
+    @Test
+    void firstNodeSeedsKeysAndLaterConfigDoesNotOverride() {
+        JwtKeyRing first = new JwtKeyRing(K1, "k1", "k0:" + K0, "k1");
+        node(first);
+        //    node khoi dong sau voi cau hinh khac van dung bo khoa da co tren redis
+        JwtKeyRing second = new JwtKeyRing(K2, "k2", "", "k1");
+        node(second);
+
+        assertThat(second.getActiveKeyId()).isEqualTo("k1");
+        assertThat(second.isTrusted("k0")).isTrue();
+        assertThat(second.isTrusted("k2")).isFalse();
+        assertThat(subjectOf(second, token(first, "alice"))).isEqualTo("alice");
+    }
+
+    @Test
+    void rotationOnOneNodeIsSeenByTheOther() {
+        JwtKeyRing ringA = new JwtKeyRing(K1, "k1", "", "k1");
+        JwtKeyRing ringB = new JwtKeyRing(K1, "k1", "", "k1");
+        JwtKeySync nodeA = node(ringA);
+        JwtKeySync nodeB = node(ringB);
+        String old = token(ringA, "alice");
+
+        String keyId = nodeA.rotate();
+        verify(redisTemplate).convertAndSend(JwtKeySync.CHANNEL, keyId);
+        nodeB.reload();
+
+        assertThat(ringA.getActiveKeyId()).isEqualTo(keyId);
+        assertThat(ringB.getActiveKeyId()).isEqualTo(keyId);
+        assertThat(subjectOf(ringB, token(ringA, "bob"))).isEqualTo("bob");
+        assertThat(subjectOf(ringB, old)).isEqualTo("alice");
+    }
+
+    @Test
+    void retireRemovesKeyOnEveryNodeButNotTheActiveOne() {
+        JwtKeyRing ringA = new JwtKeyRing(K1, "k1", "", "k1");
+        JwtKeyRing ringB = new JwtKeyRing(K1, "k1", "", "k1");
+        JwtKeySync nodeA = node(ringA);
+        JwtKeySync nodeB = node(ringB);
+        String keyId = nodeA.rotate();
+
+        assertThatThrownBy(() -> nodeB.retire(keyId)).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.JWT_KEY_ACTIVE));
+        assertThat(nodeB.retire("k1")).isTrue();
+        assertThat(nodeB.retire("k1")).isFalse();
+        nodeA.reload();
+
+        assertThat(ringA.isTrusted("k1")).isFalse();
+        assertThat(ringB.isTrusted("k1")).isFalse();
+        assertThat(ringA.isTrusted(keyId)).isTrue();
+        verify(redisTemplate, times(2)).convertAndSend(eq(JwtKeySync.CHANNEL), anyString());
+    }
+}
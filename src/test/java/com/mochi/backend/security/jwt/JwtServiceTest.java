@@ -0,0 +1,74 @@
+package com.mochi.backend.security.jwt;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.service.RevokedTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class JwtServiceTest {
+    JwtKeyRing keyRing;
+    JwtService jwtService;
+    UserDetails alice = User.withUsername("alice")
+            .password("x")
+            .authorities("ROLE_USER")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        keyRing = new JwtKeyRing(JwtKeyRingTest.K1, "k1", "", "k1");
+        jwtService = new JwtService(mock(RevokedTokenService.class),
+                new VerifiedTokenCache(100, Duration.ofMinutes(15)), keyRing);
+        ReflectionTestUtils.setField(jwtService, "accessExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationMs", 120_000L);
+    }
+
+    @Test
+    void parsedTokenRecordsSigningKid() {
+        ParsedToken parsed = jwtService.parseToken(jwtService.generateAccessToken(alice));
+
+        assertThat(parsed.getSubject()).isEqualTo("alice");
+        assertThat(parsed.getKeyId()).isEqualTo("k1");
+        assertThat(parsed.getRoles()).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void cachedTokenIsReturnedWithoutReverifying() {
+        String token = jwtService.generateAccessToken(alice);
+
+        assertThat(jwtService.parseToken(token)).isSameAs(jwtService.parseToken(token));
+    }
+
+    @Test
+    void cachedTokenOfRetiredKeyIsRejected() {
+        String token = jwtService.generateAccessToken(alice);
+        jwtService.parseToken(token);
+
+        keyRing.load("k2", JwtKeyRingTest.keys("k2", JwtKeyRingTest.K2));
+
+        assertThatThrownBy(() -> jwtService.parseToken(token)).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.UNAUTHORIZED));
+        //    lan sau khong con trong cache, verify lai va van bi tu choi
+        assertThatThrownBy(() -> jwtService.parseToken(token)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void tokenOfRotatedButNotRetiredKeyStaysValid() {
+        String token = jwtService.generateAccessToken(alice);
+        jwtService.parseToken(token);
+
+        keyRing.load("k2", JwtKeyRingTest.keys("k1", JwtKeyRingTest.K1, "k2", JwtKeyRingTest.K2));
+
+        assertThat(jwtService.parseToken(token)
+                .getKeyId()).isEqualTo("k1");
+    }
+}
@@ -0,0 +1,63 @@
+package com.mochi.backend.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    static ParsedToken expiringAt(Instant expiration) {
+        return ParsedToken.builder()
+                .subject("alice")
+                .type(TokenType.ACCESS)
+                .keyId("k1")
+                .expiration(expiration)
+                .build();
+    }
+
+    @Test
+    void keyIsStableDigestOfToken() {
+        assertThat(VerifiedTokenCache.keyOf("a.b.c")).isEqualTo(VerifiedTokenCache.keyOf("a.b.c"))
+                .isNotEqualTo(VerifiedTokenCache.keyOf("a.b.d"));
+        assertThat(VerifiedTokenCache.keyOf("a.b.c")
+                .remaining()).isEqualTo(32);
+    }
+
+    @Test
+    void entryLivesUntilTokenExpiry() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(15));
+        ByteBuffer key = VerifiedTokenCache.keyOf("token");
+        cache.put(key, expiringAt(Instant.now()
+                .plusMillis(200)));
+
+        assertThat(cache.get(key)).isNotNull();
+        Thread.sleep(300);
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void entryIsCappedAtMaxTtl() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMillis(200));
+        ByteBuffer key = VerifiedTokenCache.keyOf("token");
+        cache.put(key, expiringAt(Instant.now()
+                .plus(Duration.ofHours(1))));
+
+        assertThat(cache.get(key)).isNotNull();
+        Thread.sleep(300);
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void expiredTokenIsNeverCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(15));
+        ByteBuffer key = VerifiedTokenCache.keyOf("token");
+        cache.put(key, expiringAt(Instant.now()
+                .minusSeconds(1)));
+
+        assertThat(cache.get(key)).isNull();
+    }
+}
@@ -0,0 +1,40 @@
+package com.mochi.backend.security.password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// cau hinh giong AppConfig.passwordEncoder: hash cu khong co {id} van dang nhap duoc va duoc hash lai
+class LegacyFormatPasswordEncoderTest {
+    PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    PasswordEncoder argon2 = Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+    LegacyFormatPasswordEncoder legacy = new LegacyFormatPasswordEncoder(bcrypt, argon2);
+
+    @Test
+    void legacyHashesMatchAndNeedUpgrade() {
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt, "argon2", argon2));
+        delegating.setDefaultPasswordEncoderForMatches(legacy);
+        String legacyBCrypt = bcrypt.encode("Secret#123");
+        String legacyArgon2 = argon2.encode("Secret#123");
+
+        assertThat(delegating.matches("Secret#123", legacyBCrypt)).isTrue();
+        assertThat(delegating.matches("Secret#123", legacyArgon2)).isTrue();
+        assertThat(delegating.matches("wrong", legacyBCrypt)).isFalse();
+        assertThat(delegating.upgradeEncoding(legacyBCrypt)).isTrue();
+        assertThat(delegating.upgradeEncoding(delegating.encode("Secret#123"))).isFalse();
+    }
+
+    @Test
+    void encodeFallsBackToBCrypt() {
+        String encoded = legacy.encode("Secret#123");
+
+        assertThat(PasswordFormat.isLegacyBCrypt(encoded)).isTrue();
+        assertThat(legacy.matches("Secret#123", encoded)).isTrue();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mochi.backend.security.password;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordFormatTest {
+
+    @Test
+    void legacyBCryptVariants() {
+        assertThat(PasswordFormat.isLegacyBCrypt("$2a$10$N9qo8uLOickgx2ZMRZoMye")).isTrue();
+        assertThat(PasswordFormat.isLegacyBCrypt("$2b$12$N9qo8uLOickgx2ZMRZoMye")).isTrue();
+        assertThat(PasswordFormat.isLegacyBCrypt("$2y$04$N9qo8uLOickgx2ZMRZoMye")).isTrue();
+        assertThat(PasswordFormat.isLegacyBCrypt("$2x$10$N9qo8uLOickgx2ZMRZoMye")).isFalse();
+        assertThat(PasswordFormat.isLegacyBCrypt("$2a$")).isFalse();
+        assertThat(PasswordFormat.isLegacyBCrypt("$argon2id$v=19$m=16384")).isFalse();
+        assertThat(PasswordFormat.isLegacyBCrypt(null)).isFalse();
+    }
+
+    @Test
+    void legacyArgon2() {
+        assertThat(PasswordFormat.isLegacyArgon2("$argon2id$v=19$m=16384,t=2,p=1$c2FsdA$aGFzaA")).isTrue();
+        assertThat(PasswordFormat.isLegacyArgon2("{argon2}$argon2id$v=19")).isFalse();
+        assertThat(PasswordFormat.isLegacyArgon2(null)).isFalse();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mochi.backend.security.userDetails;
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// bang intern la static: test lam day bang (qua MAX_COMBINATIONS) phai chay sau cung
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class GrantedAuthoritiesTest {
+
+    @Test
+    @Order(1)
+    void sameRoleCombinationSharesOneSet() {
+        Set<GrantedAuthority> first = GrantedAuthorities.of(List.of("ROLE_USER", "ROLE_ADMIN"));
+        Set<GrantedAuthority> second = GrantedAuthorities.of(Set.of("ROLE_ADMIN", "ROLE_USER"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @Order(2)
+    void sharedSetIsImmutable() {
+        Set<GrantedAuthority> authorities = GrantedAuthorities.of(List.of("ROLE_USER"));
+
+        assertThatThrownBy(authorities::clear).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @Order(3)
+    void combinationsBeyondLimitAreStillCorrect() {
+        for (int i = 0; i < 300; i++) {
+            assertThat(GrantedAuthorities.of(List.of("ROLE_X" + i))).extracting(GrantedAuthority::getAuthority)
+                    .containsExactly("ROLE_X" + i);
+        }
+    }
+}
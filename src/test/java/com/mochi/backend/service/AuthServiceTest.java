@@ -0,0 +1,86 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.auth.LoginRequest;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.mapper.UserMapper;
+import com.mochi.backend.model.User;
+import com.mochi.backend.security.email.EmailService;
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.ratelimit.LoginLockoutService;
+import com.mochi.backend.security.ratelimit.RateLimiter;
+import com.mochi.backend.security.userDetails.CustomUserDetails;
+import com.mochi.backend.security.userDetails.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthServiceTest {
+    CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    LoginLockoutService loginLockoutService = mock(LoginLockoutService.class);
+    AuthService authService = new AuthService(mock(UserService.class), mock(RoleService.class), authenticationManager,
+            mock(UserMapper.class), mock(EmailService.class), mock(JwtService.class), userDetailsService,
+            mock(RevokedTokenService.class), mock(OtpService.class), mock(RedisService.class), mock(RateLimiter.class),
+            loginLockoutService, mock(RefreshTokenService.class), mock(ApplicationEventPublisher.class));
+
+    private static LoginRequest request(String usernameOrEmail) {
+        LoginRequest request = new LoginRequest();
+        request.setUsernameOrEmail(usernameOrEmail);
+        request.setPassword("Wrong-pass1");
+        return request;
+    }
+
+    private void assertLoginFails(String usernameOrEmail) {
+        assertThatThrownBy(() -> authService.login(request(usernameOrEmail))).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode())
+                        .isEqualTo(ErrorCode.LOGIN_FAIL));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    //    sai mat khau qua username va qua email phai tru vao cung mot bo dem
+    @Test
+    void usernameAndEmailShareOneLockoutBudget() {
+        UUID id = UUID.randomUUID();
+        CustomUserDetails alice = new CustomUserDetails(User.builder()
+                .id(id)
+                .username("alice")
+                .email("alice@example.com")
+                .build(), Set.of());
+        when(userDetailsService.loadUserByUsername(any())).thenReturn(alice);
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("bad"));
+
+        assertLoginFails("alice");
+        assertLoginFails(" Alice@Example.com ");
+
+        verify(loginLockoutService, times(2)).ensureNotLocked("id:" + id);
+        verify(loginLockoutService, times(2)).recordFailure("id:" + id);
+    }
+
+    @Test
+    void unknownAccountIsCountedByNormalizedLogin() {
+        when(userDetailsService.loadUserByUsername(any())).thenThrow(new UsernameNotFoundException("missing"));
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("bad"));
+
+        assertLoginFails(" Ghost ");
+
+        verify(loginLockoutService).ensureNotLocked("login:ghost");
+        verify(loginLockoutService).recordFailure("login:ghost");
+    }
+}
@@ -0,0 +1,113 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.chat.ConversationDto;
+import com.mochi.backend.dto.chat.CreateConversationRequest;
+import com.mochi.backend.enums.ConversationType;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.mapper.ChatMapperImpl;
+import com.mochi.backend.model.Conversation;
+import com.mochi.backend.repository.ConversationRepository;
+import com.mochi.backend.repository.ParticipantRepository;
+import com.mochi.backend.repository.UserRepository;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ConversationServiceTest {
+    ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    ParticipantRepository participantRepository = mock(ParticipantRepository.class);
+    UserRepository userRepository = mock(UserRepository.class);
+    UserService userService = mock(UserService.class);
+    ConversationService conversationService = new ConversationService(conversationRepository, participantRepository,
+            userRepository, userService, new SnowflakeIdGenerator(1), new ChatMapperImpl(),
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 100, Duration.ofMinutes(1));
+    Authentication alice = mock(Authentication.class);
+    Authentication bob = mock(Authentication.class);
+    UUID aliceId = UUID.randomUUID();
+    UUID bobId = UUID.randomUUID();
+
+    ConversationServiceTest() {
+        when(userService.getCurrentUserId(alice)).thenReturn(aliceId);
+        when(userService.getCurrentUserId(bob)).thenReturn(bobId);
+        when(userRepository.countByIdIn(anyCollection())).thenAnswer(invocation -> (long) invocation.<Collection<?>>getArgument(0)
+                .size());
+        when(conversationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static CreateConversationRequest direct(UUID memberId) {
+        CreateConversationRequest request = new CreateConversationRequest();
+        request.setType(ConversationType.DIRECT);
+        request.setMemberIds(List.of(memberId));
+        return request;
+    }
+
+    private static void assertError(Runnable call, ErrorCode errorCode) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(errorCode));
+    }
+
+    @Test
+    void directConversationIsSharedByBothSides() {
+        ConversationDto created = conversationService.createConversation(alice, direct(bobId));
+        Conversation saved = Conversation.builder()
+                .id(created.getId())
+                .type(ConversationType.DIRECT)
+                .build();
+        when(conversationRepository.findByDirectKey(any())).thenReturn(Optional.of(saved));
+
+        ConversationDto reverse = conversationService.createConversation(bob, direct(aliceId));
+
+        assertThat(reverse.getId()).isEqualTo(created.getId());
+        verify(conversationRepository, times(1)).save(any());
+        verify(conversationRepository, times(2)).findByDirectKey((aliceId.compareTo(bobId) < 0 ? aliceId + ":" + bobId : bobId + ":" + aliceId));
+    }
+
+    //    hai ben tao cung luc: unique direct_key chan ban thu hai, ben thua doc lai ban ghi da co
+    @Test
+    void losingConcurrentCreateReturnsWinnersConversation() {
+        Conversation winner = Conversation.builder()
+                .id(42L)
+                .type(ConversationType.DIRECT)
+                .build();
+        when(conversationRepository.findByDirectKey(any())).thenReturn(Optional.empty(), Optional.of(winner));
+        when(conversationRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_conversations_direct_key"));
+
+        assertThat(conversationService.createConversation(alice, direct(bobId))
+                .getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void directConversationNeedsExactlyOneOtherMember() {
+        CreateConversationRequest request = direct(bobId);
+        request.setMemberIds(List.of(bobId, UUID.randomUUID()));
+
+        assertError(() -> conversationService.createConversation(alice, request), ErrorCode.CONVERSATION_MEMBERS_INVALID);
+        assertError(() -> conversationService.createConversation(alice, direct(aliceId)), ErrorCode.CONVERSATION_MEMBERS_INVALID);
+    }
+
+    @Test
+    void requireMemberRejectsOutsidersAndUnknownConversations() {
+        when(participantRepository.findUserIdsByConversationId(7L)).thenReturn(List.of(aliceId, bobId));
+        when(participantRepository.findUserIdsByConversationId(8L)).thenReturn(List.of());
+
+        assertThat(conversationService.requireMember(7L, aliceId)).containsExactly(aliceId, bobId);
+        assertError(() -> conversationService.requireMember(7L, UUID.randomUUID()), ErrorCode.CONVERSATION_FORBIDDEN);
+        assertError(() -> conversationService.requireMember(8L, aliceId), ErrorCode.CONVERSATION_NOT_FOUND);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.model.Message;
+import com.mochi.backend.repository.MessageWriteRepository;
+import com.mochi.backend.support.EmbeddedRedis;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+// chay message_append.lua va XRANGE/XDEL that tren embedded redis, postgres la mock
+class MessageIngestServiceTest {
+    RedisTemplate<byte[], byte[]> redis = EmbeddedRedis.template();
+    MessageWriteRepository messageWriteRepository = mock(MessageWriteRepository.class);
+    SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1);
+    MessageIngestService ingestService = new MessageIngestService(EmbeddedRedis.redisService(), messageWriteRepository,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), idGenerator, new SimpleMeterRegistry(), 1, 5);
+    List<List<Message>> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ingestService, "maxBatchSize", 500);
+        ReflectionTestUtils.setField(ingestService, "maxDelayMs", 100L);
+        redis.delete(List.of(RedisNamespace.MESSAGE_STREAM.key("0"), RedisNamespace.MESSAGE_DEAD.key("0")));
+        doAnswer(invocation -> inserted.add(invocation.getArgument(0))).when(messageWriteRepository)
+                .insertBatch(anyList());
+    }
+
+    private Message message(String clientMessageId, String content) {
+        long id = idGenerator.nextId();
+        return Message.builder()
+                .conversationId(42L)
+                .id(id)
+                .senderId(UUID.randomUUID())
+                .clientMessageId(clientMessageId)
+                .content(content)
+                .build();
+    }
+
+    private long streamLength(RedisNamespace namespace) {
+        Long size = redis.opsForStream()
+                .size(namespace.key("0"));
+        return size == null ? 0 : size;
+    }
+
+    private long dedupTtl(Message message) {
+        return redis.getExpire(RedisNamespace.MESSAGE_DEDUP.key("0", message.getConversationId() + ":" + message.getSenderId() + ":" + message.getClientMessageId()));
+    }
+
+    @Test
+    void dedupKeyOutlivesBufferAndExpiresAfterFlush() {
+        Message first = message("c-1", "xin chao");
+        ingestService.append(first);
+        Message retry = message("c-1", "xin chao");
+        retry.setSenderId(first.getSenderId());
+
+        assertThat(ingestService.append(retry)
+                .getId()).isEqualTo(first.getId());
+        assertThat(dedupTtl(first)).isEqualTo(-1);
+
+        ingestService.flushOnce("0");
+
+        assertThat(inserted).hasSize(1);
+        assertThat(inserted.getFirst()).extracting(Message::getId)
+                .containsExactly(first.getId());
+        assertThat(streamLength(RedisNamespace.MESSAGE_STREAM)).isZero();
+        assertThat(dedupTtl(first)).isPositive();
+    }
+
+    @Test
+    void rejectedRowGoesToDeadLetterAndRestAreInserted() {
+        Message good = message("c-good", "ok");
+        Message poison = message("c-poison", "bad\u0000content");
+        Message after = message(null, "still ok");
+        ingestService.append(good);
+        ingestService.append(poison);
+        ingestService.append(after);
+        doThrow(new DataIntegrityViolationException("invalid byte sequence for encoding \"UTF8\": 0x00"))
+                .when(messageWriteRepository)
+                .insertBatch(argThat(messages -> messages.stream()
+                        .anyMatch(message -> message.getId()
+                                .equals(poison.getId()))));
+
+        ingestService.flushOnce("0");
+
+        assertThat(inserted).flatExtracting(messages -> messages.stream()
+                        .map(Message::getId)
+                        .toList())
+                .containsExactly(good.getId(), after.getId());
+        assertThat(streamLength(RedisNamespace.MESSAGE_STREAM)).isZero();
+        List<ByteRecord> dead = redis.execute((RedisCallback<List<ByteRecord>>) connection -> connection.streamCommands()
+                .xRange(RedisNamespace.MESSAGE_DEAD.key("0"), Range.unbounded()));
+        assertThat(dead).hasSize(1);
+        assertThat(dead.getFirst()
+                .getValue()
+                .entrySet()).anySatisfy(field -> {
+            assertThat(new String(field.getKey(), StandardCharsets.US_ASCII)).isEqualTo("error");
+            assertThat(new String(field.getValue(), StandardCharsets.UTF_8)).contains("0x00");
+        });
+        assertThat(dedupTtl(poison)).isPositive();
+    }
+
+    @Test
+    void connectionFailureKeepsBatchInStream() {
+        Message message = message("c-2", "xin chao");
+        ingestService.append(message);
+        doThrow(new CannotGetJdbcConnectionException("down")).when(messageWriteRepository)
+                .insertBatch(anyList());
+
+        assertThatThrownBy(() -> ingestService.flushOnce("0")).isInstanceOf(CannotGetJdbcConnectionException.class);
+
+        verify(messageWriteRepository, times(1)).insertBatch(anyList());
+        assertThat(streamLength(RedisNamespace.MESSAGE_STREAM)).isEqualTo(1);
+        assertThat(streamLength(RedisNamespace.MESSAGE_DEAD)).isZero();
+        assertThat(dedupTtl(message)).isEqualTo(-1);
+    }
+
+    @Test
+    void sameClientMessageIdInAnotherConversationIsANewMessage() {
+        Message first = message("c-3", "xin chao");
+        Message other = message("c-3", "xin chao");
+        other.setSenderId(first.getSenderId());
+        other.setConversationId(43L);
+
+        assertThat(ingestService.append(first)
+                .getId()).isEqualTo(first.getId());
+        assertThat(ingestService.append(other)
+                .getId()).isEqualTo(other.getId());
+        assertThat(streamLength(RedisNamespace.MESSAGE_STREAM)).isEqualTo(2);
+    }
+
+    //    postgres khong flush duoc: stream dung o max-backlog, tin moi bi tu choi, retry cua tin da ACK van tra ve tin cu
+    @Test
+    void fullBacklogRefusesNewMessages() {
+        Message first = message("c-4", "xin chao");
+        ingestService.append(first);
+        for (int i = 0; i < 4; i++) {
+            ingestService.append(message(null, "tin " + i));
+        }
+
+        assertThatThrownBy(() -> ingestService.append(message("c-5", "qua tai")))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.CHAT_BUSY));
+        Message retry = message("c-4", "xin chao");
+        retry.setSenderId(first.getSenderId());
+        assertThat(ingestService.append(retry)
+                .getId()).isEqualTo(first.getId());
+        assertThat(streamLength(RedisNamespace.MESSAGE_STREAM)).isEqualTo(5);
+
+        ingestService.flushOnce("0");
+
+        assertThat(ingestService.append(message("c-5", "da het tai"))
+                .getContent()).isEqualTo("da het tai");
+    }
+}
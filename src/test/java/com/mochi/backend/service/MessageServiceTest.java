@@ -0,0 +1,117 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.chat.MessageDto;
+import com.mochi.backend.dto.chat.MessagePageResponse;
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.mapper.ChatMapperImpl;
+import com.mochi.backend.model.Message;
+import com.mochi.backend.repository.MessageRepository;
+import com.mochi.backend.repository.MessageWriteRepository;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.Authentication;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessageServiceTest {
+    MessageRepository messageRepository = mock(MessageRepository.class);
+    MessageWriteRepository messageWriteRepository = mock(MessageWriteRepository.class);
+    MessageIngestService messageIngestService = mock(MessageIngestService.class);
+    ConversationService conversationService = mock(ConversationService.class);
+    UserService userService = mock(UserService.class);
+    MessageService messageService = new MessageService(messageRepository, messageWriteRepository, messageIngestService,
+            conversationService, userService, new SnowflakeIdGenerator(1), new ChatMapperImpl());
+    Authentication authentication = mock(Authentication.class);
+    UUID userId = UUID.randomUUID();
+
+    MessageServiceTest() {
+        when(userService.getCurrentUserId(authentication)).thenReturn(userId);
+    }
+
+    private static Message message(long conversationId, long id) {
+        return Message.builder()
+                .conversationId(conversationId)
+                .id(id)
+                .senderId(UUID.randomUUID())
+                .content("m" + id)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    //    id giam dan tu from, dung count dong
+    private static List<Message> rows(long from, int count) {
+        return LongStream.range(0, count)
+                .mapToObj(i -> message(7L, from - i))
+                .toList();
+    }
+
+    @Test
+    void firstPageFetchesOneExtraRowForNextCursor() {
+        when(messageRepository.findByConversationIdOrderByIdDesc(7L, Limit.of(4))).thenReturn(rows(100, 4));
+
+        MessagePageResponse page = messageService.getHistory(authentication, 7L, null, 3);
+
+        assertThat(page.getItems()).extracting(MessageDto::getId)
+                .containsExactly(100L, 99L, 98L);
+        assertThat(page.getNextCursor()).isEqualTo("98");
+    }
+
+    @Test
+    void olderPageStartsBeforeCursorAndLastPageHasNoCursor() {
+        when(messageRepository.findByConversationIdAndIdLessThanOrderByIdDesc(7L, 98L, Limit.of(4))).thenReturn(rows(97, 2));
+
+        MessagePageResponse page = messageService.getHistory(authentication, 7L, "98", 3);
+
+        assertThat(page.getItems()).extracting(MessageDto::getId)
+                .containsExactly(97L, 96L);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> messageService.getHistory(authentication, 7L, "not-an-id", 3))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_CURSOR));
+    }
+
+    @Test
+    void nonMemberCannotReadHistory() {
+        when(conversationService.requireMember(7L, userId)).thenThrow(new AppException(ErrorCode.CONVERSATION_FORBIDDEN));
+
+        assertThatThrownBy(() -> messageService.getHistory(authentication, 7L, null, null))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.CONVERSATION_FORBIDDEN));
+        verifyNoInteractions(messageRepository);
+    }
+
+    //    clientMessageId chi unique trong mot conversation: tra ve dong da luu cua chinh conversation nay
+    @Test
+    void directWriteReturnsStoredRowOfSameConversation() {
+        Message stored = message(7L, 55L);
+        stored.setClientMessageId("c-1");
+        when(messageIngestService.append(any())).thenThrow(new IllegalStateException("redis down"));
+        when(messageWriteRepository.insert(any())).thenReturn(false);
+        when(messageRepository.findByConversationIdAndSenderIdAndClientMessageId(7L, userId, "c-1")).thenReturn(Optional.of(stored));
+
+        assertThat(messageService.send(userId, 7L, "c-1", "xin chao")
+                .getId()).isEqualTo(55L);
+    }
+
+    @Test
+    void fullBufferIsNotBypassedByDirectWrite() {
+        when(messageIngestService.append(any())).thenThrow(new AppException(ErrorCode.CHAT_BUSY));
+
+        assertThatThrownBy(() -> messageService.send(userId, 7L, "c-1", "xin chao"))
+                .isInstanceOfSatisfying(AppException.class, e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.CHAT_BUSY));
+        verifyNoInteractions(messageWriteRepository);
+    }
+}
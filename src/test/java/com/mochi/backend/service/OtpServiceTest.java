@@ -0,0 +1,58 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.support.EmbeddedRedis;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// chay otp_issue.lua / otp_verify.lua that tren embedded redis
+class OtpServiceTest {
+    OtpService otpService = new OtpService(EmbeddedRedis.redisService(), 3);
+    String email = UUID.randomUUID() + "@example.com";
+
+    private static void assertError(Runnable call, ErrorCode errorCode) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(errorCode));
+    }
+
+    private static String wrong(String code) {
+        return code.equals("000000") ? "000001" : "000000";
+    }
+
+    @Test
+    void codeIsSixDigitsAndSingleUse() {
+        String code = otpService.generateCode(email);
+
+        assertThat(code).hasSize(6)
+                .containsOnlyDigits();
+        assertThat(otpService.verifyOtp(email, code)).isTrue();
+        assertError(() -> otpService.verifyOtp(email, code), ErrorCode.VERIFICATION_CODE_EXPIRED);
+    }
+
+    @Test
+    void wrongCodesLockAfterMaxAttempts() {
+        String code = otpService.generateCode(email);
+
+        assertError(() -> otpService.verifyOtp(email, wrong(code)), ErrorCode.VERIFICATION_CODE_INVALID);
+        assertError(() -> otpService.verifyOtp(email, wrong(code)), ErrorCode.VERIFICATION_CODE_INVALID);
+        assertError(() -> otpService.verifyOtp(email, wrong(code)), ErrorCode.VERIFICATION_CODE_LOCKED);
+        assertError(() -> otpService.verifyOtp(email, code), ErrorCode.VERIFICATION_CODE_LOCKED);
+        assertError(() -> otpService.generateCode(email), ErrorCode.VERIFICATION_CODE_LOCKED);
+    }
+
+    @Test
+    void newCodeReplacesPreviousOne() {
+        String first = otpService.generateCode(email);
+        String second = otpService.generateCode(email);
+
+        if (!first.equals(second)) {
+            assertError(() -> otpService.verifyOtp(email, first), ErrorCode.VERIFICATION_CODE_INVALID);
+        }
+        assertThat(otpService.verifyOtp(email, second)).isTrue();
+    }
+}
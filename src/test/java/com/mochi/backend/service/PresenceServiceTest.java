@@ -0,0 +1,172 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.user.PresenceDto;
+import com.mochi.backend.enums.PresenceStatus;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.repository.UserPresenceRepository;
+import com.mochi.backend.support.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// presence:{online}/{away}/{last-seen} dung chung tren embedded redis, moi test dung userId ngau nhien
+class PresenceServiceTest {
+    private static final byte[] ONLINE_KEY = RedisNamespace.PRESENCE.key("online");
+    private static final byte[] LAST_SEEN_KEY = RedisNamespace.PRESENCE.key("last-seen");
+
+    UserPresenceRepository userPresenceRepository = mock(UserPresenceRepository.class);
+    UUID userId = UUID.randomUUID();
+
+    private PresenceService service(RedisService redisService) {
+        PresenceService presenceService = new PresenceService(redisService, userPresenceRepository,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(presenceService, "lastSeenBatchSize", 500);
+        return presenceService;
+    }
+
+    private PresenceService service() {
+        return service(EmbeddedRedis.redisService());
+    }
+
+    private PresenceDto presence(PresenceService presenceService) {
+        return presenceService.getPresence(List.of(userId))
+                .getFirst();
+    }
+
+    private Double onlineScore() {
+        return EmbeddedRedis.template()
+                .opsForZSet()
+                .score(ONLINE_KEY, member());
+    }
+
+    private byte[] member() {
+        return userId.toString()
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void onlineTurnsAwayAfterHeartbeatTimeout() throws InterruptedException {
+        PresenceService presenceService = service();
+        ReflectionTestUtils.setField(presenceService, "heartbeatTimeoutMs", 50L);
+        presenceService.connected(userId);
+        presenceService.flush();
+        assertThat(presence(presenceService).getStatus()).isEqualTo(PresenceStatus.ONLINE);
+
+        Thread.sleep(100);
+        presenceService.flush();
+
+        assertThat(presence(presenceService).getStatus()).isEqualTo(PresenceStatus.AWAY);
+        assertThat(onlineScore()).isNull();
+        presenceService.heartbeat(userId, PresenceStatus.ONLINE);
+        presenceService.flush();
+        assertThat(presence(presenceService).getStatus()).isEqualTo(PresenceStatus.ONLINE);
+    }
+
+    //    ttl 400ms: heartbeat lien tuc khong ghi lai, qua nua ttl thi gia han
+    @Test
+    void writesOnlyTransitionsAndEntriesPastHalfTtl() throws InterruptedException {
+        MockEnvironment environment = new MockEnvironment().withProperty("redis.ttl.presence", "400ms");
+        environment.setConversionService(new ApplicationConversionService());
+        PresenceService presenceService = service(new RedisService(EmbeddedRedis.template(), EmbeddedRedis.template(),
+                List.of(), environment));
+        presenceService.connected(userId);
+        presenceService.flush();
+        Double written = onlineScore();
+
+        presenceService.heartbeat(userId, PresenceStatus.ONLINE);
+        presenceService.flush();
+        assertThat(onlineScore()).isEqualTo(written);
+
+        Thread.sleep(250);
+        presenceService.heartbeat(userId, PresenceStatus.ONLINE);
+        presenceService.flush();
+        assertThat(onlineScore()).isGreaterThan(written);
+    }
+
+    @Test
+    void offlineRemovesEntryAndRecordsLastSeen() {
+        PresenceService presenceService = service();
+        presenceService.connected(userId);
+        presenceService.flush();
+
+        presenceService.disconnected(userId);
+        presenceService.flush();
+
+        assertThat(onlineScore()).isNull();
+        assertThat(EmbeddedRedis.template()
+                .opsForZSet()
+                .score(LAST_SEEN_KEY, member())).isNotNull();
+        PresenceDto presence = presence(presenceService);
+        assertThat(presence.getStatus()).isEqualTo(PresenceStatus.OFFLINE);
+        assertThat(presence.getLastSeenAt()).isNotNull();
+        verify(userPresenceRepository, never()).findLastSeen(any());
+
+        presenceService.flushLastSeen();
+        verify(userPresenceRepository).updateLastSeen(Map.of(userId, presence.getLastSeenAt()));
+    }
+
+    //    published khong doi khi pipeline loi, lan flush sau ghi lai cung thay doi
+    @Test
+    void failedFlushIsRetriedOnNextFlush() {
+        RedisService redisService = spy(EmbeddedRedis.redisService());
+        PresenceService presenceService = service(redisService);
+        doThrow(new RedisConnectionFailureException("down")).doCallRealMethod()
+                .when(redisService)
+                .pipelined(any());
+        presenceService.connected(userId);
+
+        presenceService.flush();
+        assertThat(onlineScore()).isNull();
+
+        presenceService.flush();
+        assertThat(onlineScore()).isNotNull();
+    }
+
+    @Test
+    void lastSeenFallsBackToDatabaseWhenMissingInRedis() {
+        PresenceService presenceService = service();
+        LocalDateTime stored = LocalDateTime.of(2026, 1, 2, 3, 4);
+        when(userPresenceRepository.findLastSeen(List.of(userId))).thenReturn(Map.of(userId, stored));
+
+        PresenceDto presence = presence(presenceService);
+
+        assertThat(presence.getStatus()).isEqualTo(PresenceStatus.OFFLINE);
+        assertThat(presence.getLastSeenAt()).isEqualTo(stored);
+    }
+
+    //    user mo hai node, mot node dong ket noi: node con lai ghi lai entry sau presence-left
+    @Test
+    void otherNodeRestoresEntryAfterPresenceLeft() {
+        PresenceService nodeA = service();
+        PresenceService nodeB = service();
+        nodeA.connected(userId);
+        nodeB.connected(userId);
+        nodeA.flush();
+        nodeB.flush();
+
+        nodeA.disconnected(userId);
+        nodeA.flush();
+        assertThat(onlineScore()).isNull();
+
+        nodeB.onMessage(new DefaultMessage(PresenceService.CHANNEL.getBytes(StandardCharsets.US_ASCII), member()), null);
+        nodeB.flush();
+        assertThat(onlineScore()).isNotNull();
+        assertThat(presence(nodeB).getStatus()).isEqualTo(PresenceStatus.ONLINE);
+    }
+}
@@ -0,0 +1,154 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.exception.AppException;
+import com.mochi.backend.security.jwt.JwtKeyRing;
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.ParsedToken;
+import com.mochi.backend.security.jwt.TokenType;
+import com.mochi.backend.security.jwt.VerifiedTokenCache;
+import com.mochi.backend.support.EmbeddedRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+// chay refresh_issue.lua / refresh_rotate.lua / refresh_revoke_all.lua that tren embedded redis
+class RefreshTokenServiceTest {
+    private static final String SECRET = secret();
+
+    RevokedTokenService revokedTokenService = mock(RevokedTokenService.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    JwtService jwtService;
+    UserDetails user = User.withUsername(UUID.randomUUID()
+                    .toString())
+            .password("x")
+            .authorities("ROLE_USER")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(revokedTokenService, new VerifiedTokenCache(100, Duration.ofMinutes(15)),
+                new JwtKeyRing(SECRET, "k1", "", "k1"));
+        ReflectionTestUtils.setField(jwtService, "accessExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpirationMs", 120_000L);
+    }
+
+    private static String secret() {
+        byte[] key = new byte[64];
+        Arrays.fill(key, (byte) 'r');
+        return Base64.getEncoder()
+                .encodeToString(key);
+    }
+
+    private RefreshTokenService service(Duration reuseGrace) {
+        return new RefreshTokenService(EmbeddedRedis.redisService(), jwtService, revokedTokenService, meterRegistry, reuseGrace);
+    }
+
+    private ParsedToken parse(String token) {
+        return jwtService.parseToken(token);
+    }
+
+    private boolean familyExists(ParsedToken token) {
+        return EmbeddedRedis.template()
+                .hasKey(RedisNamespace.REFRESH_TOKEN.key(token.getSubject(), "fam:" + token.getFamilyId()));
+    }
+
+    private double reuses() {
+        return meterRegistry.counter("refresh.token.reuse")
+                .count();
+    }
+
+    private static void assertInvalid(Runnable call) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(AppException.class,
+                e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.REFRESH_TOKEN_INVALID));
+    }
+
+    @Test
+    void rotateKeepsFamilyAndIssuesNewJti() {
+        RefreshTokenService refreshTokenService = service(Duration.ofSeconds(5));
+        ParsedToken first = parse(refreshTokenService.issue(user));
+
+        ParsedToken second = parse(refreshTokenService.rotate(first, user));
+        ParsedToken third = parse(refreshTokenService.rotate(second, user));
+
+        assertThat(second.getFamilyId()).isEqualTo(first.getFamilyId());
+        assertThat(second.getJti()).isNotEqualTo(first.getJti());
+        assertThat(third.getFamilyId()).isEqualTo(first.getFamilyId());
+        assertThat(familyExists(third)).isTrue();
+    }
+
+    //    token da bi thay dung lai ngoai thoi gian an han (rotate_script tra -2): ca family bi huy, ke ca token moi nhat
+    @Test
+    void reuseOfRotatedTokenRevokesFamily() throws InterruptedException {
+        RefreshTokenService refreshTokenService = service(Duration.ZERO);
+        ParsedToken first = parse(refreshTokenService.issue(user));
+        ParsedToken second = parse(refreshTokenService.rotate(first, user));
+        Thread.sleep(5);
+
+        assertInvalid(() -> refreshTokenService.rotate(first, user));
+
+        assertThat(reuses()).isEqualTo(1);
+        assertThat(familyExists(second)).isFalse();
+        assertInvalid(() -> refreshTokenService.rotate(second, user));
+    }
+
+    //    hai tab refresh cung luc (rotate_script tra 0): request thua bi tu choi nhung family van con
+    @Test
+    void concurrentRefreshInsideGraceKeepsFamily() {
+        RefreshTokenService refreshTokenService = service(Duration.ofSeconds(5));
+        ParsedToken first = parse(refreshTokenService.issue(user));
+        ParsedToken second = parse(refreshTokenService.rotate(first, user));
+
+        assertInvalid(() -> refreshTokenService.rotate(first, user));
+
+        assertThat(reuses()).isZero();
+        assertThat(familyExists(second)).isTrue();
+        assertThat(parse(refreshTokenService.rotate(second, user)).getFamilyId()).isEqualTo(first.getFamilyId());
+    }
+
+    @Test
+    void revokeAllInvalidatesOlderFamiliesOnly() {
+        RefreshTokenService refreshTokenService = service(Duration.ofSeconds(5));
+        ParsedToken phone = parse(refreshTokenService.issue(user));
+        ParsedToken laptop = parse(refreshTokenService.issue(user));
+
+        refreshTokenService.revokeAll(user.getUsername());
+
+        assertInvalid(() -> refreshTokenService.rotate(phone, user));
+        assertInvalid(() -> refreshTokenService.rotate(laptop, user));
+        assertThat(familyExists(phone)).isFalse();
+        assertThat(reuses()).isZero();
+        ParsedToken afterLogout = parse(refreshTokenService.issue(user));
+        assertThat(parse(refreshTokenService.rotate(afterLogout, user)).getFamilyId()).isEqualTo(afterLogout.getFamilyId());
+    }
+
+    //    token phat ra truoc khi co family: jti cu vao danh sach thu hoi, nhan token moi co fid
+    @Test
+    void legacyTokenWithoutFamilyMigratesToNewFamily() {
+        RefreshTokenService refreshTokenService = service(Duration.ofSeconds(5));
+        ParsedToken legacy = parse(jwtService.generateToken(new HashMap<>(), user, TokenType.REFRESH, 120_000L));
+        assertThat(legacy.getFamilyId()).isNull();
+
+        ParsedToken migrated = parse(refreshTokenService.rotate(legacy, user));
+
+        verify(revokedTokenService).revoke(legacy.getJti(), legacy.getExpiration());
+        assertThat(migrated.getFamilyId()).isNotNull();
+        assertThat(familyExists(migrated)).isTrue();
+        assertThat(parse(refreshTokenService.rotate(migrated, user)).getFamilyId()).isEqualTo(migrated.getFamilyId());
+    }
+}
@@ -0,0 +1,69 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RevokedTokenPurgeServiceTest {
+    RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    RevokedTokenPartitionManager partitionManager = mock(RevokedTokenPartitionManager.class);
+    RedisService redisService = mock(RedisService.class);
+    RevokedTokenPurgeService service;
+
+    @BeforeEach
+    void setUp() {
+        when(redisService.ttl(RedisNamespace.JOB_LEASE)).thenReturn(Duration.ofMinutes(15));
+        service = new RevokedTokenPurgeService(repository, partitionManager, redisService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "strategy", "partition");
+        ReflectionTestUtils.setField(service, "batchSize", 1000);
+        ReflectionTestUtils.setField(service, "maxRowsPerRun", 100_000);
+        ReflectionTestUtils.setField(service, "partitionDaysAhead", 8);
+        ReflectionTestUtils.setField(service, "refreshExpirationMs", Duration.ofDays(30)
+                .toMillis());
+        when(partitionManager.isPartitioned()).thenReturn(true);
+    }
+
+    private void leaseHeld(long result) {
+        when(redisService.execute(any(), anyList(), any(byte[].class), any(byte[].class))).thenReturn(result);
+    }
+
+    @Test
+    void skipsRunWhenAnotherNodeHoldsLease() {
+        leaseHeld(0L);
+
+        service.purgeExpired();
+
+        verifyNoInteractions(repository, partitionManager);
+    }
+
+    @Test
+    void partitionFailureDoesNotSkipBatchedDelete() {
+        leaseHeld(1L);
+        doThrow(new IllegalStateException("partition overlaps default")).when(partitionManager)
+                .ensurePartitions(any(), anyInt());
+
+        service.purgeExpired();
+
+        verify(repository).deleteExpiredBatch(any(), eq(1000));
+        verify(repository).findOldestExpiresAtBefore(any());
+    }
+
+    @Test
+    void partitionsCoverRefreshTokenLifetime() {
+        leaseHeld(1L);
+
+        service.purgeExpired();
+
+        verify(partitionManager).ensurePartitions(any(LocalDate.class), eq(31));
+    }
+}
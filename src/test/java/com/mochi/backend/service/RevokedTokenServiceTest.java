@@ -0,0 +1,64 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.model.RevokedToken;
+import com.mochi.backend.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RevokedTokenServiceTest {
+    RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    RevokedTokenService service;
+    LocalDateTime lastSync = LocalDateTime.now()
+            .minusMinutes(1);
+
+    @BeforeEach
+    void setUp() {
+        service = new RevokedTokenService(repository, mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "reloadOverlap", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(service, "lastSync", lastSync);
+    }
+
+    @Test
+    void reloadPicksUpRevocationsMissedByPubSub() {
+        UUID jti = UUID.randomUUID();
+        when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of(RevokedToken.builder()
+                .jti(jti)
+                .expiresAt(LocalDateTime.now()
+                        .plusMinutes(5))
+                .revokedAt(LocalDateTime.now())
+                .build()));
+
+        assertThat(service.isRevoked(jti)).isFalse();
+        service.reloadRecent();
+
+        assertThat(service.isRevoked(jti)).isTrue();
+        verify(repository).findByRevokedAtAfterAndExpiresAtAfter(eq(lastSync.minusSeconds(10)), any());
+    }
+
+    @Test
+    void reloadAdvancesSyncPointOnlyOnSuccess() {
+        when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenThrow(new IllegalStateException("db down"))
+                .thenReturn(List.of());
+
+        service.reloadRecent();
+        assertThat(ReflectionTestUtils.getField(service, "lastSync")).isEqualTo(lastSync);
+
+        service.reloadRecent();
+        assertThat((LocalDateTime) ReflectionTestUtils.getField(service, "lastSync")).isAfter(lastSync);
+    }
+}
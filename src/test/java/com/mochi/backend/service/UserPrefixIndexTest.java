@@ -0,0 +1,90 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.dto.user.UserDto;
+import com.mochi.backend.repository.UserSearchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class UserPrefixIndexTest {
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    UserPrefixIndex index = new UserPrefixIndex(redisTemplate, mock(RedisMessageListenerContainer.class),
+            3, 20, 1000, Duration.ofMinutes(10));
+    AtomicInteger loads = new AtomicInteger();
+
+    private static UserSearchRepository.Result result(UUID id, String username) {
+        UserDto user = new UserDto();
+        user.setId(id);
+        user.setUsername(username);
+        return new UserSearchRepository.Result(user, 3);
+    }
+
+    private Function<String, List<UserSearchRepository.Result>> loader(UserSearchRepository.Result... results) {
+        return prefix -> {
+            loads.incrementAndGet();
+            return List.of(results);
+        };
+    }
+
+    @Test
+    void nodeIsLoadedOnce() {
+        UUID alice = UUID.randomUUID();
+        index.get("al", loader(result(alice, "alice")));
+        index.get("al", loader(result(alice, "alice")));
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void renamedUserInvalidatesOldPrefixesThroughReverseMap() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        index.get("al", loader(result(alice, "alice")));
+        index.get("bo", loader(result(bob, "bob")));
+
+        //    alice doi ten thanh carol: nut "al" khong con khop ten moi nhung van phai xoa
+        index.onUserSaved(new UserSavedEvent(alice, "carol", "carol@example.com", null, null));
+
+        index.get("al", loader());
+        index.get("bo", loader());
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void newPrefixesOfSavedUserAreInvalidated() {
+        UUID bob = UUID.randomUUID();
+        index.get("ca", loader(result(bob, "bob")));
+
+        index.onUserSaved(new UserSavedEvent(UUID.randomUUID(), "carol", "c@example.com", null, null));
+
+        index.get("ca", loader());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictionIsBroadcastAndAppliedFromOtherNodes() {
+        UUID alice = UUID.randomUUID();
+        index.onUserSaved(new UserSavedEvent(alice, "alice", "a@example.com", "Alice", null));
+        verify(redisTemplate).convertAndSend(eq("user-prefix-evict"), eq(alice + "\nalice\na@example.com\nAlice\n"));
+
+        index.get("al", loader(result(alice, "alice")));
+        index.onMessage(new DefaultMessage("user-prefix-evict".getBytes(StandardCharsets.UTF_8),
+                (alice + "\nalicia\n\n\n").getBytes(StandardCharsets.UTF_8)), null);
+
+        index.get("al", loader());
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mochi.backend.service;
+
+import com.mochi.backend.repository.UserSearchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class UserSearchServiceTest {
+
+    @Configuration
+    @EnableAsync
+    static class AsyncConfig {
+        @Bean
+        UserPrefixIndex prefixIndex() {
+            return mock(UserPrefixIndex.class);
+        }
+
+        @Bean
+        UserSearchService userSearchService(UserPrefixIndex prefixIndex) {
+            UserSearchService service = new UserSearchService(mock(UserSearchRepository.class), prefixIndex);
+            ReflectionTestUtils.setField(service, "trieEnabled", true);
+            return service;
+        }
+    }
+
+    //    khong co transaction thi van chay (fallbackExecution) va khong chay tren thread goi publishEvent
+    @Test
+    void userSavedIsHandledOffTheCallerThread() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AsyncConfig.class)) {
+            CompletableFuture<Thread> handledOn = new CompletableFuture<>();
+            doAnswer(invocation -> handledOn.complete(Thread.currentThread())).when(context.getBean(UserPrefixIndex.class))
+                    .onUserSaved(any());
+
+            context.publishEvent(new UserSavedEvent(UUID.randomUUID(), "alice", "a@example.com", null, null));
+
+            assertThat(handledOn.get(5, TimeUnit.SECONDS)).isNotSameAs(Thread.currentThread());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.mochi.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mochi.backend.enums.Provider;
+import com.mochi.backend.mapper.UserMapper;
+import com.mochi.backend.model.User;
+import com.mochi.backend.repository.UserQueryRepository;
+import com.mochi.backend.repository.UserRepository;
+import com.mochi.backend.security.userDetails.PrincipalCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserServiceTest {
+    UserRepository userRepository = mock(UserRepository.class);
+    ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    UsernameAllocator usernameAllocator = mock(UsernameAllocator.class);
+    UserService userService = new UserService(userRepository, mock(UserQueryRepository.class), new ObjectMapper(),
+            mock(UserMapper.class), mock(RoleService.class), mock(PasswordEncoder.class), mock(PrincipalCache.class),
+            eventPublisher, usernameAllocator);
+    Map<String, Object> attributes = Map.of("email", "alice@example.com", "sub", "google-123",
+            "given_name", "Alice", "family_name", "Nguyen");
+
+    private static User user(String username) {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .username(username)
+                .email("alice@example.com")
+                .provider(Provider.GOOGLE.name())
+                .providerId("google-123")
+                .build();
+    }
+
+    @Test
+    void returningUserCostsOneQuery() {
+        User alice = user("alice");
+        when(userRepository.findByProviderOrEmail(Provider.GOOGLE.name(), "google-123", "alice@example.com"))
+                .thenReturn(Optional.of(alice));
+
+        assertThat(userService.findOrCreateGoogleUser(attributes)).isSameAs(alice);
+
+        verify(userRepository).findByProviderOrEmail(any(), any(), any());
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(usernameAllocator, eventPublisher);
+    }
+
+    @Test
+    void firstLoginInsertsAndReturnsTheRow() {
+        User alice = user("alice_x1");
+        when(usernameAllocator.allocate("alice@example.com")).thenReturn("alice_x1");
+        when(userRepository.findByProviderOrEmail(any(), any(), any())).thenReturn(Optional.empty());
+        when(userRepository.insertOAuthUserIfAbsent(any(), eq("alice_x1"), eq("alice@example.com"), eq("Alice"), eq("Nguyen"),
+                any(), eq(Provider.GOOGLE.name()), eq("google-123"), anyLong())).thenReturn(Optional.of(alice));
+
+        assertThat(userService.findOrCreateGoogleUser(attributes)).isSameAs(alice);
+
+        verify(userRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(any(UserSavedEvent.class));
+    }
+
+    @Test
+    void concurrentFirstLoginReturnsTheOtherRequestsRow() {
+        User alice = user("alice_x1");
+        when(usernameAllocator.allocate(any())).thenReturn("alice_x2");
+        when(userRepository.findByProviderOrEmail(any(), any(), any())).thenReturn(Optional.empty(), Optional.of(alice));
+        when(userRepository.insertOAuthUserIfAbsent(any(), any(), any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(Optional.empty());
+
+        assertThat(userService.findOrCreateGoogleUser(attributes)).isSameAs(alice);
+
+        verify(userRepository, times(1)).insertOAuthUserIfAbsent(any(), any(), any(), any(), any(), any(), any(), any(), anyLong());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mochi.backend.support;
+
+import com.mochi.backend.service.RedisService;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.List;
+
+// redis that chay trong tien trinh test (embedded-redis, ban 6.2), mot server cho ca lan chay, dung khi JVM tat
+// test can redis dung cac property cua properties() de dung RedisConfig nhu ung dung that, hoac redisService()
+// cac test dung chung server nen moi test tu sinh key rieng (uuid) thay vi FLUSHALL
+public final class EmbeddedRedis {
+    private static RedisServer server;
+    private static int port;
+    private static RedisTemplate<byte[], byte[]> template;
+
+    private EmbeddedRedis() {
+    }
+
+    public static synchronized int port() {
+        if (server == null) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                server = RedisServer.newRedisServer()
+                        .port(port)
+                        .setting("bind 127.0.0.1")
+                        .setting("save \"\"")
+                        .setting("appendonly no")
+                        .build();
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            RedisServer started = server;
+            Runtime.getRuntime()
+                    .addShutdownHook(new Thread(() -> {
+                        try {
+                            started.stop();
+                        } catch (IOException ignored) {
+                        }
+                    }));
+        }
+        return port;
+    }
+
+    //    template byte[] giong binaryRedisTemplate cua RedisConfig, khong can dung ca context
+    public static synchronized RedisTemplate<byte[], byte[]> template() {
+        if (template == null) {
+            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration("127.0.0.1", port()));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            template = new RedisTemplate<>();
+            template.setConnectionFactory(connectionFactory);
+            template.setEnableDefaultSerializer(false);
+            template.afterPropertiesSet();
+        }
+        return template;
+    }
+
+    //    ttl theo mac dinh cua RedisNamespace
+    public static RedisService redisService() {
+        return new RedisService(template(), template(), List.of(), new StandardEnvironment());
+    }
+
+    public static String[] properties() {
+        return new String[]{
+                "spring.data.redis.host=127.0.0.1",
+                "spring.data.redis.port=" + port(),
+                "redis.mode=standalone",
+                "redis.read-from=master"
+        };
+    }
+}
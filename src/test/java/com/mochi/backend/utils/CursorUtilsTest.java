@@ -0,0 +1,50 @@
+package com.mochi.backend.utils;
+
+import com.mochi.backend.enums.ErrorCode;
+import com.mochi.backend.exception.AppException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilsTest {
+    UUID id = UUID.randomUUID();
+
+    @Test
+    void timeCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_000);
+
+        String cursor = CursorUtils.encode(createdAt, id);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(CursorUtils.decode(cursor)).isEqualTo(new CursorUtils.Cursor(createdAt, id));
+    }
+
+    @Test
+    void scoredCursorRoundTrips() {
+        String cursor = CursorUtils.encode(0.4375, id);
+
+        assertThat(CursorUtils.decodeScored(cursor)).isEqualTo(new CursorUtils.ScoredCursor(0.4375, id));
+    }
+
+    @Test
+    void idCursorIsThePlainSnowflakeId() {
+        assertThat(CursorUtils.decodeId("1234567890123")).isEqualTo(1234567890123L);
+    }
+
+    @Test
+    void malformedCursorsAreInvalidCursor() {
+        for (Runnable decode : new Runnable[]{
+                () -> CursorUtils.decode("not base64!"),
+                () -> CursorUtils.decode(CursorUtils.encode(0.5, id)),
+                () -> CursorUtils.decodeScored("bm8tc2VwYXJhdG9y"),
+                () -> CursorUtils.decodeId("12ab")
+        }) {
+            assertThatThrownBy(decode::run).isInstanceOfSatisfying(AppException.class,
+                    e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_CURSOR));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mochi.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void idsAreStrictlyIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        long previous = generator.nextId();
+        //    nhieu hon 4096 id/ms de di qua nhanh het sequence
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idCarriesNodeAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = new SnowflakeIdGenerator(1023).nextId();
+        long after = System.currentTimeMillis();
+
+        assertThat((id >>> 12) & 1023).isEqualTo(1023);
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isBetween(before, after);
+    }
+
+    @Test
+    void concurrentCallersNeverGetDuplicates() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> ids = new ArrayList<>(20_000);
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                all.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(all).hasSize(8 * 20_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,102 @@
+package com.mochi.backend.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharScannersTest {
+    //    regex cu tren cac dto va UsernameOrEmailValidator truoc khi thay bang CharScanners
+    static final Pattern USERNAME = Pattern.compile("^[a-zA-Z0-9._-]+$");
+    static final Pattern EMAIL = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    static final Pattern STRONG_PASSWORD = Pattern.compile("^(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()_+{}\\[\\]:;<>,.?~\\\\/-]).*$");
+    static final Pattern PERSON_NAME = Pattern.compile("^[\\p{L} ]+$");
+
+    //    ascii in duoc, khoang trang/dieu khien, ky tu xuong dong cua regex, chu co dau, chu ngoai BMP, surrogate le
+    static final String[] ALPHABET = {
+            "a", "z", "A", "Z", "0", "9", ".", "_", "-", "+", "@", "!", "#", "$", "%", "^", "&", "*", "(", ")",
+            "{", "}", "[", "]", ":", ";", "<", ">", ",", "?", "~", "\\", "/", "=", "|", "'", "\"", "`",
+            " ", "\t", "\u0000", "\u001f", "\u00a0", "\u3000",
+            "\n", "\r", "\r\n", "\u0085", "\u2028", "\u2029",
+            "ă", "Đ", "ư", "ñ", "ß", "Ω", "ж", "中", "ǅ", "ʰ", "٣", "²",
+            "𝒜", "😀", "\uD835", "\uDC9C"
+    };
+    static final int SAMPLES = 300_000;
+
+    static String randomString(Random random) {
+        int length = random.nextInt(13);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            value.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return value.toString();
+    }
+
+    private static void assertEquivalent(Pattern regex, Predicate<String> scanner) {
+        Random random = new Random(20260101L);
+        for (int i = 0; i < SAMPLES; i++) {
+            String value = randomString(random);
+            assertThat(scanner.test(value)).as("%s on %s", regex, escape(value))
+                    .isEqualTo(regex.matcher(value)
+                            .matches());
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        value.chars()
+                .forEach(c -> escaped.append(c < 0x20 || c > 0x7e ? String.format("\\u%04x", c) : String.valueOf((char) c)));
+        return escaped.append('"')
+                .toString();
+    }
+
+    @Test
+    void usernameMatchesOldRegex() {
+        assertEquivalent(USERNAME, CharScanners::isUsername);
+    }
+
+    @Test
+    void emailMatchesOldRegex() {
+        assertEquivalent(EMAIL, CharScanners::isEmail);
+    }
+
+    @Test
+    void strongPasswordMatchesOldRegex() {
+        assertEquivalent(STRONG_PASSWORD, CharScanners::isStrongPassword);
+    }
+
+    @Test
+    void personNameMatchesOldRegex() {
+        assertEquivalent(PERSON_NAME, CharScanners::isPersonName);
+    }
+
+    @Test
+    void blankMatchesOldTrimCheck() {
+        Random random = new Random(20260101L);
+        for (int i = 0; i < SAMPLES; i++) {
+            String value = randomString(random);
+            assertThat(CharScanners.isBlank(value)).as(escape(value))
+                    .isEqualTo(value.trim()
+                            .isEmpty());
+        }
+    }
+
+    @Test
+    void handPickedCases() {
+        assertThat(CharScanners.isEmail("a@b")).isTrue();
+        assertThat(CharScanners.isEmail("@b")).isFalse();
+        assertThat(CharScanners.isEmail("a@")).isFalse();
+        assertThat(CharScanners.isEmail("a@b@c")).isFalse();
+        assertThat(CharScanners.isStrongPassword("Abc1!")).isTrue();
+        assertThat(CharScanners.isStrongPassword("Abc1!\n")).isFalse();
+        assertThat(CharScanners.isPersonName("Nguyễn Văn A")).isTrue();
+        assertThat(CharScanners.isPersonName("")).isFalse();
+        assertThat(CharScanners.isUsername("john.doe_1-x")).isTrue();
+        assertThat(CharScanners.isUsername("john doe")).isFalse();
+        assertThat(CharScanners.isBlank("\u0001 \t")).isTrue();
+        assertThat(CharScanners.isBlank("\u2028")).isFalse();
+    }
+}
@@ -0,0 +1,64 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.enums.RedisMode;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// PUBLISH tra ve 0 subscriber: chi standalone/sentinel moi coi la node chet
+class ChatBusTest {
+    ChatRouteRegistry routeRegistry = mock(ChatRouteRegistry.class);
+    RedisService redisService = mock(RedisService.class);
+    UUID userId = UUID.randomUUID();
+    ChatBus bus;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bus.stop();
+    }
+
+    private void publishToDeadNode(RedisMode mode) {
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1);
+        bus = new ChatBus(new ChatSessionRegistry(new SimpleMeterRegistry(), Duration.ofSeconds(5), 16), routeRegistry,
+                redisService, mock(RedisMessageListenerContainer.class), idGenerator, new SimpleMeterRegistry(), 16, 1, 16, mode);
+        ReflectionTestUtils.setField(bus, "maxBatchSize", 16);
+        ReflectionTestUtils.invokeMethod(bus, "start");
+        when(routeRegistry.lookup(List.of(userId))).thenReturn(Map.of(2, List.of(userId)));
+        when(redisService.pipelined(any())).thenReturn(List.of(0L));
+
+        bus.publish(List.of(userId), new TextMessage("{}"), null);
+        verify(redisService, timeout(5_000)).pipelined(any());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RedisMode.class, names = {"STANDALONE", "SENTINEL"})
+    void unheardPublishPrunesRoutes(RedisMode mode) {
+        publishToDeadNode(mode);
+
+        verify(routeRegistry, timeout(5_000)).removeNode(2, List.of(userId));
+    }
+
+    //    cluster: so subscriber chi tinh tren node redis nhan PUBLISH, 0 khong co nghia node chat da chet
+    @Test
+    void clusterKeepsRoutes() throws InterruptedException {
+        publishToDeadNode(RedisMode.CLUSTER);
+        bus.stop();
+
+        verify(routeRegistry, never()).removeNode(anyInt(), any());
+    }
+}
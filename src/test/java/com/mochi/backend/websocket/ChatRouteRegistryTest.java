@@ -0,0 +1,82 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.enums.RedisNamespace;
+import com.mochi.backend.service.RedisService;
+import com.mochi.backend.support.EmbeddedRedis;
+import com.mochi.backend.utils.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// route ghi that vao embedded redis
+class ChatRouteRegistryTest {
+    ChatSessionRegistry sessionRegistry = new ChatSessionRegistry(new SimpleMeterRegistry(), Duration.ofSeconds(5), 65536);
+    RedisService redisService = spy(EmbeddedRedis.redisService());
+    ChatRouteRegistry routeRegistry = new ChatRouteRegistry(redisService, sessionRegistry, new SnowflakeIdGenerator(7),
+            new SimpleMeterRegistry());
+    UUID userId = UUID.randomUUID();
+
+    private static WebSocketSession session() {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(UUID.randomUUID()
+                .toString());
+        return session;
+    }
+
+    private boolean routed() {
+        return Boolean.TRUE.equals(EmbeddedRedis.template()
+                .opsForSet()
+                .isMember(RedisNamespace.CHAT_ROUTE.key(userId.toString()), "7".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void lastSessionClosingRemovesRoute() {
+        WebSocketSession session = session();
+        sessionRegistry.register(userId, session);
+        routeRegistry.add(userId);
+
+        sessionRegistry.unregister(userId, session);
+        routeRegistry.remove(userId);
+
+        assertThat(routed()).isFalse();
+    }
+
+    @Test
+    void removeIsSkippedWhileUserStillHasLocalSession() {
+        sessionRegistry.register(userId, session());
+        routeRegistry.add(userId);
+
+        routeRegistry.remove(userId);
+
+        assertThat(routed()).isTrue();
+    }
+
+    //    ket noi lai (register + SADD) chen vao giua luc kiem tra va SREM cua session cu
+    @Test
+    void reconnectRacingWithRemoveKeepsRoute() {
+        WebSocketSession old = session();
+        sessionRegistry.register(userId, old);
+        routeRegistry.add(userId);
+        sessionRegistry.unregister(userId, old);
+        doAnswer(invocation -> {
+            sessionRegistry.register(userId, session());
+            routeRegistry.add(userId);
+            return invocation.callRealMethod();
+        }).doCallRealMethod()
+                .when(redisService)
+                .pipelined(any(RedisCallback.class));
+
+        routeRegistry.remove(userId);
+
+        assertThat(routed()).isTrue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.security.userDetails.JwtPrincipal;
+import com.mochi.backend.service.RevokedTokenService;
+import com.mochi.backend.service.UserSessionsRevokedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatSessionGuardTest {
+    ChatSessionRegistry sessionRegistry = new ChatSessionRegistry(new SimpleMeterRegistry(), Duration.ofSeconds(5), 65536);
+    RevokedTokenService revokedTokenService = mock(RevokedTokenService.class);
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    ChatSessionGuard guard = new ChatSessionGuard(sessionRegistry, revokedTokenService, redisTemplate,
+            mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+
+    private static WebSocketSession session(UUID userId, UUID jti, long expiresAt) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE, new JwtPrincipal("user", Set.of(), jti, userId));
+        attributes.put(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE, expiresAt);
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(UUID.randomUUID()
+                .toString());
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static long inMinutes(long minutes) {
+        return System.currentTimeMillis() + Duration.ofMinutes(minutes)
+                .toMillis();
+    }
+
+    @Test
+    void frameOnExpiredTokenClosesSession() throws Exception {
+        WebSocketSession expired = session(UUID.randomUUID(), UUID.randomUUID(), inMinutes(-1));
+        WebSocketSession live = session(UUID.randomUUID(), UUID.randomUUID(), inMinutes(10));
+
+        assertThat(guard.closeIfInvalid(expired)).isTrue();
+        assertThat(guard.closeIfInvalid(live)).isFalse();
+        verify(expired).close(ChatSessionGuard.TOKEN_INVALID);
+        verify(live, never()).close(any());
+    }
+
+    @Test
+    void sweepClosesIdleSessionsWithRevokedToken() throws Exception {
+        UUID revokedJti = UUID.randomUUID();
+        WebSocketSession revoked = session(UUID.randomUUID(), revokedJti, inMinutes(10));
+        WebSocketSession live = session(UUID.randomUUID(), UUID.randomUUID(), inMinutes(10));
+        sessionRegistry.register(UUID.randomUUID(), revoked);
+        sessionRegistry.register(UUID.randomUUID(), live);
+        when(revokedTokenService.isRevoked(revokedJti)).thenReturn(true);
+
+        guard.closeInvalidSessions();
+
+        verify(revoked).close(ChatSessionGuard.TOKEN_INVALID);
+        verify(live, never()).close(any());
+    }
+
+    @Test
+    void revocationBroadcastClosesSessionsOfThatToken() throws Exception {
+        UUID jti = UUID.randomUUID();
+        WebSocketSession target = session(UUID.randomUUID(), jti, inMinutes(10));
+        WebSocketSession other = session(UUID.randomUUID(), UUID.randomUUID(), inMinutes(10));
+        sessionRegistry.register(UUID.randomUUID(), target);
+        sessionRegistry.register(UUID.randomUUID(), other);
+
+        guard.onMessage(new DefaultMessage(RevokedTokenService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                (jti + ":" + inMinutes(10)).getBytes(StandardCharsets.UTF_8)), null);
+
+        verify(target).close(ChatSessionGuard.TOKEN_INVALID);
+        verify(other, never()).close(any());
+    }
+
+    @Test
+    void logoutAllClosesEveryLocalSessionAndBroadcasts() throws Exception {
+        UUID userId = UUID.randomUUID();
+        WebSocketSession phone = session(userId, UUID.randomUUID(), inMinutes(10));
+        WebSocketSession laptop = session(userId, UUID.randomUUID(), inMinutes(10));
+        sessionRegistry.register(userId, phone);
+        sessionRegistry.register(userId, laptop);
+
+        guard.onUserSessionsRevoked(new UserSessionsRevokedEvent(userId));
+
+        verify(phone).close(ChatSessionGuard.TOKEN_INVALID);
+        verify(laptop).close(ChatSessionGuard.TOKEN_INVALID);
+        verify(redisTemplate).convertAndSend(eq("ws-close-user"), eq(userId.toString()));
+    }
+}
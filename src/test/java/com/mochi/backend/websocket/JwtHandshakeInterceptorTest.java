@@ -0,0 +1,77 @@
+package com.mochi.backend.websocket;
+
+import com.mochi.backend.security.jwt.JwtService;
+import com.mochi.backend.security.jwt.ParsedToken;
+import com.mochi.backend.security.jwt.TokenType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtHandshakeInterceptorTest {
+    JwtService jwtService = mock(JwtService.class);
+    Instant expiration = Instant.now()
+            .plusSeconds(600);
+    Map<String, Object> attributes = new HashMap<>();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    JwtHandshakeInterceptorTest() {
+        when(jwtService.parseToken("good")).thenReturn(ParsedToken.builder()
+                .subject("alice")
+                .userId(UUID.randomUUID())
+                .type(TokenType.ACCESS)
+                .roles(Set.of("ROLE_USER"))
+                .jti(UUID.randomUUID())
+                .expiration(expiration)
+                .build());
+        when(jwtService.isAccessTokenValid(any())).thenReturn(true);
+    }
+
+    private boolean handshake(boolean queryTokenEnabled, MockHttpServletRequest request) {
+        return new JwtHandshakeInterceptor(jwtService, queryTokenEnabled).beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(response), null, attributes);
+    }
+
+    @Test
+    void tokenIsReadFromSubprotocolAndExpiryIsKept() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/chat");
+        request.addHeader("Sec-WebSocket-Protocol", "bearer, good");
+
+        assertThat(handshake(false, request)).isTrue();
+        assertThat(attributes).containsEntry(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE, expiration.toEpochMilli())
+                .containsKey(JwtHandshakeInterceptor.PRINCIPAL_ATTRIBUTE);
+    }
+
+    @Test
+    void queryTokenIsRejectedUnlessEnabled() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/chat");
+        request.setQueryString("token=good");
+
+        assertThat(handshake(false, request)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        verify(jwtService, never()).parseToken(any());
+
+        assertThat(handshake(true, request)).isTrue();
+    }
+
+    @Test
+    void protocolTokenFollowsBearerEntry() {
+        assertThat(JwtHandshakeInterceptor.protocolToken(List.of("chat, bearer", "abc.def.ghi"))).isEqualTo("abc.def.ghi");
+        assertThat(JwtHandshakeInterceptor.protocolToken(List.of("bearer"))).isNull();
+        assertThat(JwtHandshakeInterceptor.protocolToken(List.of("chat"))).isNull();
+        assertThat(JwtHandshakeInterceptor.protocolToken(null)).isNull();
+    }
+}